@@ -1,43 +1,138 @@
 package ua.com.juja.microservices.keepers.slackbot;
 
+import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.impl.client.HttpClients;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.StringHttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.web.client.RestTemplate;
+import ua.com.juja.microservices.keepers.slackbot.balancer.AttemptCancellation;
+import ua.com.juja.microservices.keepers.slackbot.concurrent.KeyedSerialExecutor;
+import ua.com.juja.microservices.keepers.slackbot.json.JsonPayloads;
+import ua.com.juja.microservices.keepers.slackbot.startup.StartupTimingListener;
 
+import javax.inject.Named;
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Nikolay Horushko
  */
 @SpringBootApplication
+@EnableScheduling
 public class KeeperSlackBotApplication {
     @Bean
-    public RestTemplate restTemplate() {
-        RestTemplate restTemplate = new RestTemplate(httpRequestFactory());
-        restTemplate.setMessageConverters(getHttpMessageConverters());
+    public RestTemplate restTemplate(JsonPayloads jsonPayloads,
+                                     @Value("${keepers.requests.parallelism}") int parallelism,
+                                     @Value("${keepers.background.poolSize}") int backgroundPoolSize,
+                                     @Value("${keepers.concurrency.enabled:false}") boolean keepersLimited,
+                                     @Value("${keepers.concurrency.maxLimit:200}") int keepersMaxConcurrency,
+                                     @Value("${users.concurrency.enabled:false}") boolean usersLimited,
+                                     @Value("${users.concurrency.maxLimit:200}") int usersMaxConcurrency,
+                                     @Value("${keepers.http.connectTimeout:2000}") int connectTimeout,
+                                     @Value("${keepers.http.readTimeout:10000}") int readTimeout,
+                                     @Value("${keepers.http.connectionRequestTimeout:2000}")
+                                             int connectionRequestTimeout) {
+        int connectionsPerService = parallelism + backgroundPoolSize;
+        if (keepersLimited) {
+            connectionsPerService = Math.max(connectionsPerService, keepersMaxConcurrency);
+        }
+        if (usersLimited) {
+            connectionsPerService = Math.max(connectionsPerService, usersMaxConcurrency);
+        }
+        RestTemplate restTemplate = new RestTemplate(httpRequestFactory(connectionsPerService, connectTimeout,
+                readTimeout, connectionRequestTimeout));
+        restTemplate.setMessageConverters(getHttpMessageConverters(jsonPayloads));
         return restTemplate;
     }
 
-    private ClientHttpRequestFactory httpRequestFactory() {
-        return new HttpComponentsClientHttpRequestFactory(HttpClients.createDefault());
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService keepersRequestExecutor(@Value("${keepers.requests.parallelism}") int parallelism) {
+        return Executors.newFixedThreadPool(parallelism, new CustomizableThreadFactory("keepers-request-"));
     }
 
-    private List<HttpMessageConverter<?>> getHttpMessageConverters() {
+    /**
+     * Runs background calls to the other services: revalidation of cached directions, restore of the cache
+     * snapshot and replay of queued mutations, so they don't hold the threads of the commands.
+     * Tasks over the queue capacity are rejected
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService keepersBackgroundExecutor(@Value("${keepers.background.poolSize}") int poolSize,
+                                                     @Value("${keepers.background.queueCapacity}") int queueCapacity) {
+        return new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("keepers-background-"));
+    }
+
+    /**
+     * Runs the scheduled tasks on several threads, so a long replay of queued mutations doesn't hold back
+     * the health probes and the cache refreshes
+     */
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(@Value("${keepers.scheduler.poolSize}") int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("scheduled-");
+        return scheduler;
+    }
+
+    @Bean
+    public KeyedSerialExecutor keeperMutationExecutor(@Named("keepersRequestExecutor") ExecutorService executor) {
+        return new KeyedSerialExecutor(executor);
+    }
+
+    /**
+     * The connection pool is sized so that requests run in parallel on {@code keepersRequestExecutor} and
+     * {@code keepersBackgroundExecutor} don't wait
+     * for a connection. With adaptive concurrency limits it is sized to the highest limit, so that the limiters
+     * rather than the pool decide how many requests go to a service. Requests register their abort with the
+     * {@link AttemptCancellation} of the current attempt, so the losing attempt of a hedged read is aborted
+     */
+    private ClientHttpRequestFactory httpRequestFactory(int connectionsPerService, int connectTimeout,
+                                                        int readTimeout, int connectionRequestTimeout) {
+        HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory(
+                HttpClients.custom()
+                        .setMaxConnPerRoute(connectionsPerService)
+                        .setMaxConnTotal(connectionsPerService * 2)
+                        .build()) {
+            @Override
+            protected HttpUriRequest createHttpUriRequest(HttpMethod httpMethod, URI uri) {
+                HttpUriRequest request = super.createHttpUriRequest(httpMethod, uri);
+                AttemptCancellation.register(request::abort);
+                return request;
+            }
+        };
+        factory.setConnectTimeout(connectTimeout);
+        factory.setReadTimeout(readTimeout);
+        factory.setConnectionRequestTimeout(connectionRequestTimeout);
+        return factory;
+    }
+
+    private List<HttpMessageConverter<?>> getHttpMessageConverters(JsonPayloads jsonPayloads) {
         List<HttpMessageConverter<?>> converters = new ArrayList<>();
-        converters.add(new MappingJackson2HttpMessageConverter());
+        converters.add(new MappingJackson2HttpMessageConverter(jsonPayloads.getObjectMapper()));
         converters.add(new StringHttpMessageConverter());
         return converters;
     }
 
     public static void main(String[] args) {
-        SpringApplication.run(KeeperSlackBotApplication.class);
+        SpringApplication application = new SpringApplication(KeeperSlackBotApplication.class);
+        application.addListeners(new StartupTimingListener());
+        application.run(args);
     }
 }
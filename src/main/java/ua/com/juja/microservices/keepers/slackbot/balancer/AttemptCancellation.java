@@ -0,0 +1,71 @@
+package ua.com.juja.microservices.keepers.slackbot.balancer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Cancellation of one request attempt, e.g. of the slower attempt of a hedged read. The HTTP requests sent by
+ * the thread running the attempt register their abort with it, so a cancelled attempt gives its thread and
+ * pooled connection back at once. Failures of a cancelled attempt are not held against the instance.
+ */
+public final class AttemptCancellation {
+    private static final ThreadLocal<AttemptCancellation> CURRENT = new ThreadLocal<>();
+
+    private final List<Runnable> aborts = new ArrayList<>();
+    private boolean cancelled;
+
+    public <T> T call(Supplier<T> attempt) {
+        AttemptCancellation previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return attempt.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Registers the abort of a request sent by the current thread. Outside of an attempt it is ignored,
+     * in an already cancelled attempt it runs at once.
+     */
+    public static void register(Runnable abort) {
+        AttemptCancellation current = CURRENT.get();
+        if (current != null) {
+            current.add(abort);
+        }
+    }
+
+    public static boolean isCurrentCancelled() {
+        AttemptCancellation current = CURRENT.get();
+        return current != null && current.isCancelled();
+    }
+
+    public void cancel() {
+        List<Runnable> pending;
+        synchronized (this) {
+            cancelled = true;
+            pending = new ArrayList<>(aborts);
+            aborts.clear();
+        }
+        pending.forEach(Runnable::run);
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    private void add(Runnable abort) {
+        synchronized (this) {
+            if (!cancelled) {
+                aborts.add(abort);
+                return;
+            }
+        }
+        abort.run();
+    }
+}
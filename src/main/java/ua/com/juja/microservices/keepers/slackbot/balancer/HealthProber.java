@@ -0,0 +1,64 @@
+package ua.com.juja.microservices.keepers.slackbot.balancer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.net.URI;
+
+/**
+ * Probes the health url of every instance of the balanced services. A failed probe counts as a failed request,
+ * a successful one brings an ejected instance back. Services with a single instance are not probed.
+ */
+@Component
+public class HealthProber {
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Value("${keepers.healthPath}")
+    private String keepersHealthPath;
+    @Value("${users.healthPath}")
+    private String usersHealthPath;
+
+    private RestTemplate restTemplate;
+    private LoadBalancer keepersBalancer;
+    private LoadBalancer usersBalancer;
+
+    @Inject
+    public HealthProber(RestTemplate restTemplate, @Named("keepersBalancer") LoadBalancer keepersBalancer,
+                        @Named("usersBalancer") LoadBalancer usersBalancer) {
+        this.restTemplate = restTemplate;
+        this.keepersBalancer = keepersBalancer;
+        this.usersBalancer = usersBalancer;
+    }
+
+    @Scheduled(initialDelayString = "${keepers.balancer.healthCheckPeriod}",
+            fixedDelayString = "${keepers.balancer.healthCheckPeriod}")
+    public void probe() {
+        probe(keepersBalancer, keepersHealthPath);
+        probe(usersBalancer, usersHealthPath);
+    }
+
+    private void probe(LoadBalancer balancer, String healthPath) {
+        if (balancer.getInstances().size() < 2) {
+            return;
+        }
+        for (ServiceInstance instance : balancer.getInstances()) {
+            try {
+                restTemplate.execute(URI.create(instance.getBaseUrl() + healthPath), HttpMethod.GET, null,
+                        response -> null);
+                balancer.onSuccess(instance);
+            } catch (RestClientException ex) {
+                logger.debug("Health probe of {} service instance [{}] failed: [{}]", balancer.getService(),
+                        instance, ex.getMessage());
+                balancer.onFailure(instance, ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package ua.com.juja.microservices.keepers.slackbot.balancer;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import ua.com.juja.microservices.keepers.slackbot.concurrent.Deadline;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Sends idempotent reads through the {@link LoadBalancer} and, when the first attempt has not answered within
+ * the observed p95 latency, sends a hedged duplicate to another instance and takes whichever answers first.
+ * Each request earns {@code maxRate} of a hedge, so hedges stay under that share of the requests. No hedge is
+ * sent until the latency of enough requests is known. The slower attempt is cancelled through its
+ * {@link AttemptCancellation}, which aborts its HTTP request. When the executor has no free thread the request
+ * runs in the caller thread without a hedge.
+ * Counts of requests, hedges and hedge wins and the p95 are published as {@code hedging.<service>.*} metrics.
+ */
+public class Hedger implements PublicMetrics {
+    private static final double MAX_SAVED_HEDGES = 10;
+
+    private final LoadBalancer balancer;
+    private final ExecutorService executor;
+    private final boolean enabled;
+    private final long minDelay;
+    private final String metricPrefix;
+    private final LatencyWindow latencies = new LatencyWindow(0.95);
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong wins = new AtomicLong();
+    private final RequestBudget budget;
+
+    public Hedger(LoadBalancer balancer, ExecutorService executor, boolean enabled, double maxRate, long minDelay) {
+        this.balancer = balancer;
+        this.executor = executor;
+        this.enabled = enabled;
+        this.budget = new RequestBudget(maxRate, MAX_SAVED_HEDGES);
+        this.minDelay = minDelay;
+        this.metricPrefix = "hedging." + balancer.getService().toLowerCase() + ".";
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The request may run twice at the same time, so it must not share mutable state between the attempts
+     */
+    public <T> T execute(Function<ServiceInstance, T> request) {
+        if (!enabled) {
+            return balancer.execute(request);
+        }
+        requests.incrementAndGet();
+        budget.earn();
+        AtomicReference<ServiceInstance> primaryInstance = new AtomicReference<>();
+        AttemptCancellation primaryCancellation = new AttemptCancellation();
+        CompletableFuture<T> primary;
+        try {
+            primary = CompletableFuture.supplyAsync(Deadline.propagate(
+                    () -> primaryCancellation.call(() -> attempt(request, null, primaryInstance))), executor);
+        } catch (RejectedExecutionException ex) {
+            return balancer.execute(request);
+        }
+        long delay = latencies.get();
+        if (delay < 0) {
+            return join(primary);
+        }
+        try {
+            return primary.get(Math.max(minDelay, delay), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            if (!budget.spend()) {
+                return join(primary);
+            }
+        } catch (ExecutionException ex) {
+            return join(primary);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + balancer.getService() + " service", ex);
+        }
+
+        AttemptCancellation hedgeCancellation = new AttemptCancellation();
+        CompletableFuture<T> hedge;
+        try {
+            hedge = CompletableFuture.supplyAsync(Deadline.propagate(
+                    () -> hedgeCancellation.call(() -> attempt(request, primaryInstance.get(), null))), executor);
+        } catch (RejectedExecutionException ex) {
+            return join(primary);
+        }
+        hedges.incrementAndGet();
+        CompletableFuture<T> first = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        primary.whenComplete((result, ex) -> {
+            if (completeFirst(first, result, ex, failures, false)) {
+                hedgeCancellation.cancel();
+            }
+        });
+        hedge.whenComplete((result, ex) -> {
+            if (completeFirst(first, result, ex, failures, true)) {
+                primaryCancellation.cancel();
+            }
+        });
+        return join(first);
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        return Arrays.asList(
+                new Metric<>(metricPrefix + "requests", requests.get()),
+                new Metric<>(metricPrefix + "hedges", hedges.get()),
+                new Metric<>(metricPrefix + "wins", wins.get()),
+                new Metric<>(metricPrefix + "p95", latencies.get()));
+    }
+
+    long getHedges() {
+        return hedges.get();
+    }
+
+    long getWins() {
+        return wins.get();
+    }
+
+    void recordLatency(long latencyMillis) {
+        latencies.record(latencyMillis);
+    }
+
+    private <T> T attempt(Function<ServiceInstance, T> request, ServiceInstance excluded,
+                          AtomicReference<ServiceInstance> chosen) {
+        return balancer.execute(instance -> {
+            if (chosen != null) {
+                chosen.set(instance);
+            }
+            long startedAt = System.nanoTime();
+            T result = request.apply(instance);
+            latencies.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+            return result;
+        }, excluded);
+    }
+
+    /**
+     * @return true when this attempt has answered first
+     */
+    private <T> boolean completeFirst(CompletableFuture<T> first, T result, Throwable ex, AtomicInteger failures,
+                                      boolean hedge) {
+        if (ex == null) {
+            boolean won = first.complete(result);
+            if (won && hedge) {
+                wins.incrementAndGet();
+            }
+            return won;
+        }
+        if (failures.incrementAndGet() == 2) {
+            first.completeExceptionally(ex);
+        }
+        return false;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package ua.com.juja.microservices.keepers.slackbot.balancer;
+
+import java.util.Arrays;
+
+/**
+ * Percentile of the latest {@value #SIZE} latencies, recomputed every {@value #RECOMPUTE_EVERY} samples
+ */
+class LatencyWindow {
+    private static final int SIZE = 256;
+    private static final int RECOMPUTE_EVERY = 32;
+
+    private final double percentile;
+    private final long[] samples = new long[SIZE];
+    private int filled;
+    private int next;
+    private int sinceRecompute;
+    private volatile long value = -1;
+
+    LatencyWindow(double percentile) {
+        this.percentile = percentile;
+    }
+
+    synchronized void record(long latencyMillis) {
+        samples[next] = latencyMillis;
+        next = (next + 1) % SIZE;
+        filled = Math.min(filled + 1, SIZE);
+        if (++sinceRecompute == RECOMPUTE_EVERY) {
+            sinceRecompute = 0;
+            long[] sorted = Arrays.copyOf(samples, filled);
+            Arrays.sort(sorted);
+            value = sorted[Math.max(0, (int) Math.ceil(percentile * filled) - 1)];
+        }
+    }
+
+    /**
+     * @return the percentile in ms, or -1 until there are enough samples
+     */
+    long get() {
+        return value;
+    }
+}
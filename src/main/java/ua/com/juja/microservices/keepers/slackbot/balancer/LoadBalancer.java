@@ -0,0 +1,160 @@
+package ua.com.juja.microservices.keepers.slackbot.balancer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import ua.com.juja.microservices.keepers.slackbot.concurrent.AdaptiveConcurrencyLimiter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Spreads requests to a remote service over its instances, given as a comma-separated list of base urls.
+ * Every request goes to the less loaded of two randomly picked instances (power of two choices), judged by
+ * the count of outstanding requests. An instance that fails {@code failuresToEject} times in a row, with an
+ * I/O error or a 5xx response, is ejected for {@code ejectionTime} ms or until it succeeds again, e.g. in a
+ * {@link HealthProber} probe. If every instance is ejected, the one whose ejection ends first is used.
+ * The requests pass the {@link AdaptiveConcurrencyLimiter} of the service first. Failures of cancelled
+ * attempts are not counted.
+ */
+public class LoadBalancer {
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final String service;
+    private final List<ServiceInstance> instances;
+    private final int failuresToEject;
+    private final long ejectionTime;
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    public LoadBalancer(String service, String baseUrls, int failuresToEject, long ejectionTime) {
+        this(service, baseUrls, failuresToEject, ejectionTime, AdaptiveConcurrencyLimiter.disabled(service));
+    }
+
+    public LoadBalancer(String service, String baseUrls, int failuresToEject, long ejectionTime,
+                        AdaptiveConcurrencyLimiter limiter) {
+        List<ServiceInstance> parsed = new ArrayList<>();
+        for (String baseUrl : StringUtils.commaDelimitedListToStringArray(baseUrls)) {
+            if (!baseUrl.trim().isEmpty()) {
+                parsed.add(new ServiceInstance(parsed.size(), baseUrl.trim()));
+            }
+        }
+        if (parsed.isEmpty()) {
+            throw new IllegalArgumentException(String.format("No base url of %s service is configured", service));
+        }
+        this.service = service;
+        this.instances = Collections.unmodifiableList(parsed);
+        this.failuresToEject = Math.max(1, failuresToEject);
+        this.ejectionTime = ejectionTime;
+        this.limiter = limiter;
+        logger.info("{} service instances: {}", service, instances);
+    }
+
+    public String getService() {
+        return service;
+    }
+
+    public List<ServiceInstance> getInstances() {
+        return instances;
+    }
+
+    /**
+     * Sends the request to the chosen instance and records the outcome. 4xx responses count as success,
+     * the instance is alive and answering.
+     */
+    public <T> T execute(Function<ServiceInstance, T> request) {
+        return execute(request, null);
+    }
+
+    /**
+     * Like {@link #execute(Function)}, but avoids the excluded instance while there are others
+     */
+    public <T> T execute(Function<ServiceInstance, T> request, ServiceInstance excluded) {
+        return limiter.execute(() -> executeOn(choose(excluded), request));
+    }
+
+    private <T> T executeOn(ServiceInstance instance, Function<ServiceInstance, T> request) {
+        instance.requestStarted();
+        try {
+            T result = request.apply(instance);
+            onSuccess(instance);
+            return result;
+        } catch (ResourceAccessException | HttpServerErrorException ex) {
+            if (!AttemptCancellation.isCurrentCancelled()) {
+                onFailure(instance, ex);
+            }
+            throw ex;
+        } finally {
+            instance.requestFinished();
+        }
+    }
+
+    public ServiceInstance choose() {
+        return choose(null);
+    }
+
+    public ServiceInstance choose(ServiceInstance excluded) {
+        List<ServiceInstance> candidates = instances;
+        if (excluded != null && instances.size() > 1) {
+            candidates = new ArrayList<>(instances);
+            candidates.remove(excluded);
+        }
+        int size = candidates.size();
+        if (size == 1) {
+            return candidates.get(0);
+        }
+        long now = System.currentTimeMillis();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance one = candidates.get(first);
+        ServiceInstance other = candidates.get(second);
+        boolean oneAvailable = !one.isEjected(now);
+        boolean otherAvailable = !other.isEjected(now);
+        if (oneAvailable && otherAvailable) {
+            return one.getOutstanding() <= other.getOutstanding() ? one : other;
+        }
+        if (oneAvailable) {
+            return one;
+        }
+        if (otherAvailable) {
+            return other;
+        }
+        return chooseAmongEjected(candidates, now);
+    }
+
+    public void onSuccess(ServiceInstance instance) {
+        if (instance.succeeded()) {
+            logger.info("{} service instance [{}] is back", service, instance);
+        }
+    }
+
+    public void onFailure(ServiceInstance instance, Exception ex) {
+        if (instance.failed(failuresToEject, ejectionTime, System.currentTimeMillis())) {
+            logger.warn("Ejected {} service instance [{}] for {} ms: [{}]", service, instance, ejectionTime,
+                    ex.getMessage());
+        }
+    }
+
+    private ServiceInstance chooseAmongEjected(List<ServiceInstance> candidates, long now) {
+        ServiceInstance chosen = null;
+        for (ServiceInstance instance : candidates) {
+            if (!instance.isEjected(now)) {
+                if (chosen == null || chosen.isEjected(now) || instance.getOutstanding() < chosen.getOutstanding()) {
+                    chosen = instance;
+                }
+            } else if (chosen == null
+                    || chosen.isEjected(now) && instance.getEjectedUntil() < chosen.getEjectedUntil()) {
+                chosen = instance;
+            }
+        }
+        return chosen;
+    }
+}
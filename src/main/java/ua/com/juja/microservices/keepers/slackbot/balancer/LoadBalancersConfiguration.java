@@ -0,0 +1,101 @@
+package ua.com.juja.microservices.keepers.slackbot.balancer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import ua.com.juja.microservices.keepers.slackbot.concurrent.AdaptiveConcurrencyLimiter;
+
+import javax.inject.Named;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Balancers over the instances of the Keepers and Users services, listed comma-separated in their base urls,
+ * their concurrency limiters, the hedgers of their idempotent reads and the retriers of failed requests
+ */
+@Configuration
+public class LoadBalancersConfiguration {
+
+    @Bean
+    public AdaptiveConcurrencyLimiter keepersLimiter(@Value("${keepers.concurrency.enabled:false}") boolean enabled,
+                                                     @Value("${keepers.concurrency.initialLimit:20}") int initialLimit,
+                                                     @Value("${keepers.concurrency.minLimit:2}") int minLimit,
+                                                     @Value("${keepers.concurrency.maxLimit:200}") int maxLimit,
+                                                     @Value("${keepers.concurrency.maxWait:50}") long maxWait) {
+        return new AdaptiveConcurrencyLimiter("Keepers", enabled, initialLimit, minLimit, maxLimit, maxWait);
+    }
+
+    @Bean
+    public LoadBalancer keepersBalancer(@Value("${keepers.baseURL}") String baseUrls,
+                                        @Value("${keepers.balancer.failuresToEject:3}") int failuresToEject,
+                                        @Value("${keepers.balancer.ejectionTime:30000}") long ejectionTime,
+                                        @Named("keepersLimiter") AdaptiveConcurrencyLimiter limiter) {
+        return new LoadBalancer("Keepers", baseUrls, failuresToEject, ejectionTime, limiter);
+    }
+
+    @Bean
+    public AdaptiveConcurrencyLimiter usersLimiter(@Value("${users.concurrency.enabled:false}") boolean enabled,
+                                                   @Value("${users.concurrency.initialLimit:20}") int initialLimit,
+                                                   @Value("${users.concurrency.minLimit:2}") int minLimit,
+                                                   @Value("${users.concurrency.maxLimit:200}") int maxLimit,
+                                                   @Value("${users.concurrency.maxWait:50}") long maxWait) {
+        return new AdaptiveConcurrencyLimiter("Users", enabled, initialLimit, minLimit, maxLimit, maxWait);
+    }
+
+    @Bean
+    public LoadBalancer usersBalancer(@Value("${users.baseURL}") String baseUrls,
+                                      @Value("${users.balancer.failuresToEject:3}") int failuresToEject,
+                                      @Value("${users.balancer.ejectionTime:30000}") long ejectionTime,
+                                      @Named("usersLimiter") AdaptiveConcurrencyLimiter limiter) {
+        return new LoadBalancer("Users", baseUrls, failuresToEject, ejectionTime, limiter);
+    }
+
+    /**
+     * Runs the attempts of hedged reads. It has no queue: when all threads are busy, a read runs in the
+     * caller thread without a hedge
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService hedgedRequestExecutor(@Value("${keepers.hedging.poolSize:16}") int poolSize) {
+        return new ThreadPoolExecutor(0, poolSize, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                new CustomizableThreadFactory("hedged-request-"));
+    }
+
+    @Bean
+    public Hedger keepersHedger(@Named("keepersBalancer") LoadBalancer keepersBalancer,
+                                @Named("hedgedRequestExecutor") ExecutorService executor,
+                                @Value("${keepers.hedging.enabled:false}") boolean enabled,
+                                @Value("${keepers.hedging.maxRate:0.05}") double maxRate,
+                                @Value("${keepers.hedging.minDelay:10}") long minDelay) {
+        return new Hedger(keepersBalancer, executor, enabled, maxRate, minDelay);
+    }
+
+    @Bean
+    public Hedger usersHedger(@Named("usersBalancer") LoadBalancer usersBalancer,
+                              @Named("hedgedRequestExecutor") ExecutorService executor,
+                              @Value("${users.hedging.enabled:false}") boolean enabled,
+                              @Value("${users.hedging.maxRate:0.05}") double maxRate,
+                              @Value("${users.hedging.minDelay:10}") long minDelay) {
+        return new Hedger(usersBalancer, executor, enabled, maxRate, minDelay);
+    }
+
+    @Bean
+    public Retrier keepersRetrier(@Value("${keepers.retry.enabled:false}") boolean enabled,
+                                  @Value("${keepers.retry.maxAttempts:3}") int maxAttempts,
+                                  @Value("${keepers.retry.baseDelay:50}") long baseDelay,
+                                  @Value("${keepers.retry.maxDelay:1000}") long maxDelay,
+                                  @Value("${keepers.retry.budgetRatio:0.1}") double budgetRatio) {
+        return new Retrier("Keepers", enabled, maxAttempts, baseDelay, maxDelay, budgetRatio);
+    }
+
+    @Bean
+    public Retrier usersRetrier(@Value("${users.retry.enabled:false}") boolean enabled,
+                                @Value("${users.retry.maxAttempts:3}") int maxAttempts,
+                                @Value("${users.retry.baseDelay:50}") long baseDelay,
+                                @Value("${users.retry.maxDelay:1000}") long maxDelay,
+                                @Value("${users.retry.budgetRatio:0.1}") double budgetRatio) {
+        return new Retrier("Users", enabled, maxAttempts, baseDelay, maxDelay, budgetRatio);
+    }
+}
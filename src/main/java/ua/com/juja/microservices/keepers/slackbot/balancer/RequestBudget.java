@@ -0,0 +1,28 @@
+package ua.com.juja.microservices.keepers.slackbot.balancer;
+
+/**
+ * Share of the requests that may be spent on extra attempts: every request earns {@code ratio} of an attempt,
+ * and at most {@code max} unspent attempts are saved up
+ */
+class RequestBudget {
+    private final double ratio;
+    private final double max;
+    private double saved;
+
+    RequestBudget(double ratio, double max) {
+        this.ratio = ratio;
+        this.max = max;
+    }
+
+    synchronized void earn() {
+        saved = Math.min(max, saved + ratio);
+    }
+
+    synchronized boolean spend() {
+        if (saved < 1) {
+            return false;
+        }
+        saved--;
+        return true;
+    }
+}
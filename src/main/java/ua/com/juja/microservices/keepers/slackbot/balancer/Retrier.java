@@ -0,0 +1,124 @@
+package ua.com.juja.microservices.keepers.slackbot.balancer;
+
+import org.apache.http.conn.ConnectTimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import ua.com.juja.microservices.keepers.slackbot.concurrent.Deadline;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Retries failed requests to a downstream service after an exponential backoff with full jitter. Idempotent
+ * requests are retried after I/O errors and 502, 503 and 504 responses. Other requests are retried only when the
+ * connection could not be established, so the service has not seen them. Requests rejected by the concurrency
+ * limiter are not retried. Every request earns {@code budgetRatio} of a retry, so retries stay under that share of
+ * the requests, and no retry is made when its backoff doesn't fit into the {@link Deadline} of the command.
+ * Retries and retries refused by the budget are published as {@code retry.<service>.*} metrics.
+ */
+public class Retrier implements PublicMetrics {
+    private static final double MAX_SAVED_RETRIES = 10;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final String service;
+    private final boolean enabled;
+    private final int maxAttempts;
+    private final long baseDelay;
+    private final long maxDelay;
+    private final String metricPrefix;
+    private final RequestBudget budget;
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong exhausted = new AtomicLong();
+
+    public Retrier(String service, boolean enabled, int maxAttempts, long baseDelay, long maxDelay,
+                   double budgetRatio) {
+        this.service = service;
+        this.enabled = enabled;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelay = Math.max(1, baseDelay);
+        this.maxDelay = Math.max(this.baseDelay, maxDelay);
+        this.metricPrefix = "retry." + service.toLowerCase() + ".";
+        this.budget = new RequestBudget(budgetRatio, MAX_SAVED_RETRIES);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public <T> T execute(Supplier<T> request, boolean idempotent) {
+        if (!enabled) {
+            return request.get();
+        }
+        budget.earn();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return request.get();
+            } catch (RuntimeException ex) {
+                if (attempt >= maxAttempts || !isRetryable(ex, idempotent)) {
+                    throw ex;
+                }
+                long delay = backoff(attempt);
+                if (Deadline.remainingNanos() <= TimeUnit.MILLISECONDS.toNanos(delay)) {
+                    logger.debug("No time left to retry request to {} service", service);
+                    throw ex;
+                }
+                if (!budget.spend()) {
+                    exhausted.incrementAndGet();
+                    logger.debug("Retry budget of {} service is spent", service);
+                    throw ex;
+                }
+                retries.incrementAndGet();
+                logger.info("Retrying request to {} service in {} ms after: [{}]", service, delay, ex.getMessage());
+                sleep(delay, ex);
+            }
+        }
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        return Arrays.asList(
+                new Metric<>(metricPrefix + "retries", retries.get()),
+                new Metric<>(metricPrefix + "exhausted", exhausted.get()));
+    }
+
+    static boolean isRetryable(RuntimeException ex, boolean idempotent) {
+        if (ex instanceof ResourceAccessException) {
+            Throwable cause = ex.getCause();
+            return idempotent || cause instanceof ConnectException || cause instanceof ConnectTimeoutException
+                    || cause instanceof UnknownHostException || cause instanceof NoRouteToHostException;
+        }
+        if (ex instanceof HttpServerErrorException) {
+            HttpStatus status = ((HttpServerErrorException) ex).getStatusCode();
+            return idempotent && (status == HttpStatus.BAD_GATEWAY || status == HttpStatus.SERVICE_UNAVAILABLE
+                    || status == HttpStatus.GATEWAY_TIMEOUT);
+        }
+        return false;
+    }
+
+    private long backoff(int attempt) {
+        long ceiling = Math.min(maxDelay, baseDelay << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private static void sleep(long delay, RuntimeException failure) {
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package ua.com.juja.microservices.keepers.slackbot.balancer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Instance of a remote service as seen by the {@link LoadBalancer}: its outstanding requests and whether it is
+ * ejected after consecutive failures
+ */
+public class ServiceInstance {
+    private final int index;
+    private final String baseUrl;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private int consecutiveFailures;
+    private volatile long ejectedUntil;
+
+    ServiceInstance(int index, String baseUrl) {
+        this.index = index;
+        this.baseUrl = baseUrl;
+    }
+
+    /**
+     * @return position of the instance in the list of the balancer, to keep per-instance data in arrays
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    public boolean isEjected(long now) {
+        return ejectedUntil > now;
+    }
+
+    long getEjectedUntil() {
+        return ejectedUntil;
+    }
+
+    void requestStarted() {
+        outstanding.incrementAndGet();
+    }
+
+    void requestFinished() {
+        outstanding.decrementAndGet();
+    }
+
+    /**
+     * @return true if the instance was ejected before
+     */
+    synchronized boolean succeeded() {
+        consecutiveFailures = 0;
+        boolean ejected = ejectedUntil != 0;
+        ejectedUntil = 0;
+        return ejected;
+    }
+
+    /**
+     * @return true if the instance has just been ejected
+     */
+    synchronized boolean failed(int failuresToEject, long ejectionTime, long now) {
+        consecutiveFailures++;
+        if (consecutiveFailures < failuresToEject || isEjected(now)) {
+            return false;
+        }
+        ejectedUntil = now + ejectionTime;
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return baseUrl;
+    }
+}
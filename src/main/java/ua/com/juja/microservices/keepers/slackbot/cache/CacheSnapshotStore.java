@@ -0,0 +1,220 @@
+package ua.com.juja.microservices.keepers.slackbot.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import ua.com.juja.microservices.keepers.slackbot.model.dto.UserDTO;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Keeps the user directory and the keeper directions cache in a versioned snapshot file, so a restarted bot
+ * doesn't send all its first requests to the Users and Keepers services. The snapshot is written through a memory
+ * mapped temporary file at intervals and on shutdown, and is restored in background after startup. Restored
+ * entries are stale until they are revalidated. Disabled when no file is configured.
+ * <p>
+ * Layout: magic, version, time of writing, users count, users (slack id, uuid), keepers count,
+ * keepers (uuid, directions count, directions). Strings are UTF-8 with an int length, -1 for null.
+ */
+@Component
+public class CacheSnapshotStore {
+    static final int MAGIC = 0x4B534253;
+    static final int VERSION = 1;
+    private static final int NULL_LENGTH = -1;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Value("${keepers.cache.snapshot.file}")
+    private String file;
+
+    private UserDirectory userDirectory;
+    private UserDirectoryLoader userDirectoryLoader;
+    private KeeperDirectionsCache keeperDirectionsCache;
+    private ExecutorService backgroundExecutor;
+
+    @Inject
+    public CacheSnapshotStore(UserDirectory userDirectory, UserDirectoryLoader userDirectoryLoader,
+                              KeeperDirectionsCache keeperDirectionsCache,
+                              @Named("keepersBackgroundExecutor") ExecutorService backgroundExecutor) {
+        this.userDirectory = userDirectory;
+        this.userDirectoryLoader = userDirectoryLoader;
+        this.keeperDirectionsCache = keeperDirectionsCache;
+        this.backgroundExecutor = backgroundExecutor;
+    }
+
+    public boolean isEnabled() {
+        return StringUtils.hasText(file);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void restoreInBackground() {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            backgroundExecutor.execute(this::restore);
+        } catch (RejectedExecutionException ex) {
+            logger.warn("Cannot start restore of cache snapshot: [{}]", ex.getMessage());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${keepers.cache.snapshot.period}",
+            fixedDelayString = "${keepers.cache.snapshot.period}")
+    public void writeAtInterval() {
+        write();
+    }
+
+    @PreDestroy
+    public void writeOnShutdown() {
+        write();
+    }
+
+    public synchronized void write() {
+        if (!isEnabled()) {
+            return;
+        }
+        List<byte[]> users = new ArrayList<>();
+        if (userDirectoryLoader.isEnabled()) {
+            for (String slackUser : userDirectory.slackUsers()) {
+                UserDTO user = userDirectory.find(slackUser);
+                if (user != null) {
+                    users.add(encode(slackUser));
+                    users.add(encode(user.getUuid()));
+                }
+            }
+        }
+        List<byte[]> keepers = new ArrayList<>();
+        List<Integer> directionCounts = new ArrayList<>();
+        for (Map.Entry<String, String[]> entry : keeperDirectionsCache.snapshot().entrySet()) {
+            keepers.add(encode(entry.getKey()));
+            directionCounts.add(entry.getValue().length);
+            for (String direction : entry.getValue()) {
+                keepers.add(encode(direction));
+            }
+        }
+
+        long size = 4 + 4 + 8 + 4 + sizeOf(users) + 4 + sizeOf(keepers) + 4L * directionCounts.size();
+        Path target = Paths.get(file);
+        Path temporary = Paths.get(file + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(System.currentTimeMillis());
+            buffer.putInt(users.size() / 2);
+            users.forEach(bytes -> put(buffer, bytes));
+            buffer.putInt(directionCounts.size());
+            int index = 0;
+            for (int count : directionCounts) {
+                put(buffer, keepers.get(index++));
+                buffer.putInt(count);
+                for (int i = 0; i < count; i++) {
+                    put(buffer, keepers.get(index++));
+                }
+            }
+            buffer.force();
+        } catch (IOException ex) {
+            logger.warn("Cannot write cache snapshot [{}]: [{}]", temporary, ex.getMessage());
+            return;
+        }
+        try {
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Cache snapshot written: {} users, {} keepers, {} bytes", users.size() / 2,
+                    directionCounts.size(), size);
+        } catch (IOException ex) {
+            logger.warn("Cannot replace cache snapshot [{}]: [{}]", target, ex.getMessage());
+        }
+    }
+
+    public synchronized void restore() {
+        if (!isEnabled() || !Files.isRegularFile(Paths.get(file))) {
+            return;
+        }
+        Path path = Paths.get(file);
+        List<UserDTO> users = new ArrayList<>();
+        long writtenAt;
+        int keepers = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int magic = buffer.getInt();
+            int version = buffer.getInt();
+            if (magic != MAGIC || version != VERSION) {
+                logger.warn("Cache snapshot [{}] has unsupported format {}/{}, it is ignored", path, magic, version);
+                return;
+            }
+            writtenAt = buffer.getLong();
+            for (int i = buffer.getInt(); i > 0; i--) {
+                String slackUser = get(buffer);
+                users.add(new UserDTO(get(buffer), slackUser));
+            }
+            for (int i = buffer.getInt(); i > 0; i--, keepers++) {
+                String keeperUuid = get(buffer);
+                String[] directions = new String[buffer.getInt()];
+                for (int j = 0; j < directions.length; j++) {
+                    directions[j] = get(buffer);
+                }
+                keeperDirectionsCache.restore(keeperUuid, directions, writtenAt);
+            }
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException ex) {
+            logger.warn("Cannot read cache snapshot [{}]: [{}]", path, ex.toString());
+            return;
+        }
+        userDirectoryLoader.restoreStale(users, writtenAt);
+        logger.info("Cache snapshot restored: {} users, {} keepers", users.size(), keepers);
+    }
+
+    private static byte[] encode(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long sizeOf(List<byte[]> values) {
+        long size = 0;
+        for (byte[] value : values) {
+            size += 4 + (value == null ? 0 : value.length);
+        }
+        return size;
+    }
+
+    private static void put(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(NULL_LENGTH);
+        } else {
+            buffer.putInt(value.length).put(value);
+        }
+    }
+
+    private static String get(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Wrong string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
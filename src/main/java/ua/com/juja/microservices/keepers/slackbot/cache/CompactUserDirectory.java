@@ -0,0 +1,338 @@
+package ua.com.juja.microservices.keepers.slackbot.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ua.com.juja.microservices.keepers.slackbot.model.dto.UserDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact {@link UserDirectory} for large workspaces. Slack ids and uuids of all users are packed into one byte
+ * arena, one byte per char for Latin-1 strings and two bytes per char otherwise. Entries are rows of primitive ints
+ * and are found through an open-addressed table of entry indexes with linear probing, so no object is kept per user.
+ * Removed and replaced entries leave garbage in the arena, which is dropped on the next rebuild of the table.
+ */
+@Component
+@ConditionalOnProperty(name = "keepers.users.directory.type", havingValue = "compact")
+public class CompactUserDirectory implements UserDirectory {
+    private static final int FREE = 0;
+    private static final int DELETED = -1;
+    private static final int NULL_LENGTH = -1;
+
+    private static final int HASH = 0;
+    private static final int OFFSET = 1;
+    private static final int KEY_LENGTH = 2;
+    private static final int VALUE_LENGTH = 3;
+    private static final int FLAGS = 4;
+    private static final int ENTRY_SIZE = 5;
+
+    private static final int REMOVED_FLAG = 1;
+    private static final int WIDE_KEY_FLAG = 2;
+    private static final int WIDE_VALUE_FLAG = 4;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * Entry index + 1, or {@link #FREE} or {@link #DELETED}
+     */
+    private int[] slots = new int[INITIAL_CAPACITY * 2];
+    private int[] entries = new int[INITIAL_CAPACITY * ENTRY_SIZE];
+    private byte[] arena = new byte[INITIAL_CAPACITY * 48];
+    private int entryCount;
+    private int arenaLength;
+    private int usedSlots;
+    private int size;
+    private int garbageBytes;
+
+    @Override
+    public synchronized UserDTO find(String slackUser) {
+        int slot = findSlot(slackUser, hash(slackUser));
+        if (slot < 0) {
+            return null;
+        }
+        int entry = slots[slot] - 1;
+        return new UserDTO(readValue(entry), slackUser);
+    }
+
+    @Override
+    public synchronized void put(UserDTO user) {
+        String slackUser = user.getSlackUser();
+        String uuid = user.getUuid();
+        int hash = hash(slackUser);
+        int slot = findSlot(slackUser, hash);
+        if (slot >= 0) {
+            int entry = slots[slot] - 1;
+            if (replaceValueInPlace(entry, uuid)) {
+                return;
+            }
+            markRemoved(entry);
+            slots[slot] = DELETED;
+            size--;
+        }
+        if ((usedSlots + 1) * 4 > slots.length * 3) {
+            rebuild(Math.max(size + 1, INITIAL_CAPACITY));
+        }
+        insertSlot(hash, appendEntry(hash, slackUser, uuid));
+        usedSlots++;
+        size++;
+    }
+
+    @Override
+    public synchronized void remove(String slackUser) {
+        int slot = findSlot(slackUser, hash(slackUser));
+        if (slot >= 0) {
+            markRemoved(slots[slot] - 1);
+            slots[slot] = DELETED;
+            size--;
+        }
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized List<String> slackUsers() {
+        List<String> result = new ArrayList<>(size);
+        for (int entry = 0; entry < entryCount; entry++) {
+            if ((entries[entry * ENTRY_SIZE + FLAGS] & REMOVED_FLAG) == 0) {
+                result.add(readKey(entry));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return estimated heap size of the directory in bytes, with the array headers
+     */
+    public synchronized long footprint() {
+        return 16L + slots.length * 4L + 16L + entries.length * 4L + 16L + arena.length;
+    }
+
+    @Override
+    public synchronized String footprintReport() {
+        long footprint = footprint();
+        return String.format("users: %d, table slots: %d (used %d), entry rows: %d, arena: %d bytes " +
+                        "(used %d, garbage %d), total: %d bytes, %d bytes per user", size, slots.length, usedSlots,
+                entryCount, arena.length, arenaLength, garbageBytes, footprint, size == 0 ? 0 : footprint / size);
+    }
+
+    private static int hash(String key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private int findSlot(String key, int hash) {
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int value = slots[slot];
+            if (value == FREE) {
+                return -1;
+            }
+            if (value != DELETED) {
+                int row = (value - 1) * ENTRY_SIZE;
+                if (entries[row + HASH] == hash && keyEquals(row, key)) {
+                    return slot;
+                }
+            }
+        }
+    }
+
+    private void insertSlot(int hash, int entry) {
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (slots[slot] != FREE) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = entry + 1;
+    }
+
+    private boolean keyEquals(int row, String key) {
+        int length = entries[row + KEY_LENGTH];
+        if (length != key.length()) {
+            return false;
+        }
+        int offset = entries[row + OFFSET];
+        boolean wide = (entries[row + FLAGS] & WIDE_KEY_FLAG) != 0;
+        for (int i = 0; i < length; i++) {
+            if (charAt(offset, i, wide) != key.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private char charAt(int offset, int index, boolean wide) {
+        if (wide) {
+            int position = offset + index * 2;
+            return (char) (((arena[position] & 0xff) << 8) | (arena[position + 1] & 0xff));
+        }
+        return (char) (arena[offset + index] & 0xff);
+    }
+
+    private int appendEntry(int hash, String key, String value) {
+        boolean wideKey = isWide(key);
+        boolean wideValue = value != null && isWide(value);
+        int keyBytes = key.length() * (wideKey ? 2 : 1);
+        int valueBytes = value == null ? 0 : value.length() * (wideValue ? 2 : 1);
+        ensureArenaCapacity(keyBytes + valueBytes);
+        if (entries.length < (entryCount + 1) * ENTRY_SIZE) {
+            entries = Arrays.copyOf(entries, entries.length * 2);
+        }
+        int row = entryCount * ENTRY_SIZE;
+        entries[row + HASH] = hash;
+        entries[row + OFFSET] = arenaLength;
+        entries[row + KEY_LENGTH] = key.length();
+        entries[row + VALUE_LENGTH] = value == null ? NULL_LENGTH : value.length();
+        entries[row + FLAGS] = (wideKey ? WIDE_KEY_FLAG : 0) | (wideValue ? WIDE_VALUE_FLAG : 0);
+        arenaLength = write(key, wideKey, arenaLength);
+        if (value != null) {
+            arenaLength = write(value, wideValue, arenaLength);
+        }
+        return entryCount++;
+    }
+
+    private boolean replaceValueInPlace(int entry, String value) {
+        int row = entry * ENTRY_SIZE;
+        int flags = entries[row + FLAGS];
+        boolean oldWide = (flags & WIDE_VALUE_FLAG) != 0;
+        int oldLength = entries[row + VALUE_LENGTH];
+        int oldBytes = oldLength == NULL_LENGTH ? 0 : oldLength * (oldWide ? 2 : 1);
+        boolean wide = value != null && isWide(value);
+        int bytes = value == null ? 0 : value.length() * (wide ? 2 : 1);
+        if (bytes > oldBytes) {
+            return false;
+        }
+        int valueOffset = entries[row + OFFSET] + keyByteLength(row);
+        if (value != null) {
+            write(value, wide, valueOffset);
+        }
+        entries[row + VALUE_LENGTH] = value == null ? NULL_LENGTH : value.length();
+        entries[row + FLAGS] = wide ? flags | WIDE_VALUE_FLAG : flags & ~WIDE_VALUE_FLAG;
+        garbageBytes += oldBytes - bytes;
+        return true;
+    }
+
+    private void markRemoved(int entry) {
+        int row = entry * ENTRY_SIZE;
+        entries[row + FLAGS] |= REMOVED_FLAG;
+        garbageBytes += keyByteLength(row) + valueByteLength(row);
+    }
+
+    private int keyByteLength(int row) {
+        return entries[row + KEY_LENGTH] * ((entries[row + FLAGS] & WIDE_KEY_FLAG) != 0 ? 2 : 1);
+    }
+
+    private int valueByteLength(int row) {
+        int length = entries[row + VALUE_LENGTH];
+        return length == NULL_LENGTH ? 0 : length * ((entries[row + FLAGS] & WIDE_VALUE_FLAG) != 0 ? 2 : 1);
+    }
+
+    private String readKey(int entry) {
+        int row = entry * ENTRY_SIZE;
+        return read(entries[row + OFFSET], entries[row + KEY_LENGTH], (entries[row + FLAGS] & WIDE_KEY_FLAG) != 0);
+    }
+
+    private String readValue(int entry) {
+        int row = entry * ENTRY_SIZE;
+        int length = entries[row + VALUE_LENGTH];
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        return read(entries[row + OFFSET] + keyByteLength(row), length,
+                (entries[row + FLAGS] & WIDE_VALUE_FLAG) != 0);
+    }
+
+    private String read(int offset, int length, boolean wide) {
+        if (!wide) {
+            return new String(arena, offset, length, StandardCharsets.ISO_8859_1);
+        }
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = charAt(offset, i, true);
+        }
+        return new String(chars);
+    }
+
+    private int write(String value, boolean wide, int offset) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (wide) {
+                arena[offset++] = (byte) (c >>> 8);
+            }
+            arena[offset++] = (byte) c;
+        }
+        return offset;
+    }
+
+    private static boolean isWide(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0xff) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void ensureArenaCapacity(int bytes) {
+        if (arenaLength + bytes <= arena.length) {
+            return;
+        }
+        if (garbageBytes * 2 > arenaLength) {
+            rebuild(size);
+            if (arenaLength + bytes <= arena.length) {
+                return;
+            }
+        }
+        arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaLength + bytes));
+    }
+
+    /**
+     * Copies live entries into a new table sized for the expected count of users, dropping arena garbage
+     */
+    private void rebuild(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, INITIAL_CAPACITY) * 2 - 1) * 2;
+        int[] oldEntries = entries;
+        byte[] oldArena = arena;
+        int oldEntryCount = entryCount;
+
+        slots = new int[capacity];
+        entries = new int[Math.max(capacity / 2, size + 1) * ENTRY_SIZE];
+        arena = new byte[Math.max(arenaLength - garbageBytes, INITIAL_CAPACITY) * 2];
+        entryCount = 0;
+        arenaLength = 0;
+        garbageBytes = 0;
+        for (int entry = 0; entry < oldEntryCount; entry++) {
+            int row = entry * ENTRY_SIZE;
+            if ((oldEntries[row + FLAGS] & REMOVED_FLAG) != 0) {
+                continue;
+            }
+            int bytes = byteLength(oldEntries, row);
+            int newRow = entryCount * ENTRY_SIZE;
+            System.arraycopy(oldEntries, row, entries, newRow, ENTRY_SIZE);
+            System.arraycopy(oldArena, oldEntries[row + OFFSET], arena, arenaLength, bytes);
+            entries[newRow + OFFSET] = arenaLength;
+            arenaLength += bytes;
+            insertSlot(entries[newRow + HASH], entryCount++);
+        }
+        usedSlots = entryCount;
+        if (logger.isDebugEnabled()) {
+            logger.debug("Rebuilt user directory: {}", footprintReport());
+        }
+    }
+
+    private static int byteLength(int[] entries, int row) {
+        int flags = entries[row + FLAGS];
+        int valueLength = entries[row + VALUE_LENGTH];
+        return entries[row + KEY_LENGTH] * ((flags & WIDE_KEY_FLAG) != 0 ? 2 : 1) +
+                (valueLength == NULL_LENGTH ? 0 : valueLength * ((flags & WIDE_VALUE_FLAG) != 0 ? 2 : 1));
+    }
+}
@@ -0,0 +1,78 @@
+package ua.com.juja.microservices.keepers.slackbot.cache;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Dictionary of directions seen by the bot. Every normalised direction gets a compact integer id once, so
+ * sets of directions can be stored as {@link BitSet} instead of arrays of strings.
+ */
+@Component
+public class DirectionRegistry {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[INITIAL_CAPACITY];
+    private int size;
+
+    public int register(String direction) {
+        String key = normalize(direction);
+        Integer id = ids.get(key);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(key);
+            if (id == null) {
+                String[] target = size == names.length ? Arrays.copyOf(names, size * 2) : names;
+                target[size] = direction.trim();
+                names = target;
+                id = size++;
+                ids.put(key, id);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * @return id of the direction or -1 if the direction was never registered
+     */
+    public int find(String direction) {
+        Integer id = ids.get(normalize(direction));
+        return id == null ? -1 : id;
+    }
+
+    public String getName(int id) {
+        return names[id];
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    public BitSet toBitSet(String[] directions) {
+        BitSet result = new BitSet();
+        for (String direction : directions) {
+            result.set(register(direction));
+        }
+        return result;
+    }
+
+    public String[] toDirections(BitSet directions) {
+        String[] result = new String[directions.cardinality()];
+        int index = 0;
+        for (int id = directions.nextSetBit(0); id >= 0; id = directions.nextSetBit(id + 1)) {
+            result[index++] = getName(id);
+        }
+        return result;
+    }
+
+    public static String normalize(String direction) {
+        return direction.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,24 @@
+package ua.com.juja.microservices.keepers.slackbot.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Directions of a keeper returned by {@link KeeperDirectionsCache}
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class KeeperDirections {
+    private String[] directions;
+    /**
+     * True when the directions were served from an expired entry because the Keepers service is unavailable,
+     * or from an entry restored from a snapshot
+     */
+    private boolean outdated;
+    /**
+     * True when the directions were served from an entry restored from a snapshot while it is revalidated
+     */
+    private boolean restored;
+}
@@ -0,0 +1,188 @@
+package ua.com.juja.microservices.keepers.slackbot.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Local cache of keeper directions by keeper uuid. Disabled when ttl is 0.
+ * Directions are stored as a bitset of {@link DirectionRegistry} ids.
+ * <p>
+ * An expired entry is still served during the stale-while-revalidate window while it is refreshed in
+ * background. When the Keepers service is unavailable an expired entry is served during the stale-if-error
+ * window and marked as outdated.
+ * <p>
+ * Entries restored from a snapshot are never fresh: they are served only within the stale-while-revalidate and
+ * stale-if-error windows, and always marked as outdated.
+ * <p>
+ * Every eviction bumps the generation of the keeper, and directions loaded before it are not installed, so a
+ * load racing with a keeper mutation cannot bring back the directions from before the mutation. Entries whose
+ * stale windows have passed are purged periodically.
+ */
+@Component
+public class KeeperDirectionsCache {
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> generations = new ConcurrentHashMap<>();
+    private final Set<String> refreshingKeepers = ConcurrentHashMap.newKeySet();
+
+    @Value("${keepers.cache.directions.ttl:0}")
+    private long ttl;
+    @Value("${keepers.cache.directions.staleWhileRevalidate:0}")
+    private long staleWhileRevalidate;
+    @Value("${keepers.cache.directions.staleIfError:0}")
+    private long staleIfError;
+
+    private DirectionRegistry directionRegistry;
+    private ExecutorService backgroundExecutor;
+
+    @Inject
+    public KeeperDirectionsCache(DirectionRegistry directionRegistry,
+                                 @Named("keepersBackgroundExecutor") ExecutorService backgroundExecutor) {
+        this.directionRegistry = directionRegistry;
+        this.backgroundExecutor = backgroundExecutor;
+    }
+
+    public KeeperDirections getOrLoad(String keeperUuid, Supplier<String[]> loader) {
+        if (!isEnabled()) {
+            return new KeeperDirections(loader.get(), false, false);
+        }
+        long generation = generation(keeperUuid);
+        Entry entry = entries.get(keeperUuid);
+        long age = entry == null ? Long.MAX_VALUE : System.currentTimeMillis() - entry.loadedAt;
+
+        if (age < ttl && !entry.restored) {
+            logger.debug("Directions of keeper [{}] found in cache", keeperUuid);
+            return new KeeperDirections(directionRegistry.toDirections(entry.directions), false, false);
+        }
+        long staleFor = Math.max(0, age - ttl);
+        if (staleFor < staleWhileRevalidate) {
+            logger.debug("Stale directions of keeper [{}] found in cache, started revalidation", keeperUuid);
+            refreshInBackground(keeperUuid, loader, generation);
+            return new KeeperDirections(directionRegistry.toDirections(entry.directions), entry.restored,
+                    entry.restored);
+        }
+
+        try {
+            String[] directions = loader.get();
+            putIfNotEvicted(keeperUuid, directions, generation);
+            return new KeeperDirections(directions, false, false);
+        } catch (ResourceAccessException | HttpServerErrorException ex) {
+            if (entry != null && staleFor < staleIfError) {
+                logger.warn("Keepers service is unavailable: [{}]. Served outdated directions of keeper [{}]",
+                        ex.getMessage(), keeperUuid);
+                return new KeeperDirections(directionRegistry.toDirections(entry.directions), true, false);
+            }
+            throw ex;
+        }
+    }
+
+    public void put(String keeperUuid, String[] directions) {
+        if (isEnabled()) {
+            entries.put(keeperUuid, new Entry(directionRegistry.toBitSet(directions), System.currentTimeMillis(),
+                    false));
+        }
+    }
+
+    /**
+     * Puts directions loaded at the given time from a snapshot, unless the keeper is already in the cache
+     */
+    public void restore(String keeperUuid, String[] directions, long loadedAt) {
+        if (isEnabled()) {
+            entries.putIfAbsent(keeperUuid, new Entry(directionRegistry.toBitSet(directions), loadedAt, true));
+        }
+    }
+
+    /**
+     * @return directions of all cached keepers by keeper uuid
+     */
+    public Map<String, String[]> snapshot() {
+        Map<String, String[]> result = new HashMap<>();
+        entries.forEach((keeperUuid, entry) -> result.put(keeperUuid, directionRegistry.toDirections(entry.directions)));
+        return result;
+    }
+
+    public void evict(String keeperUuid) {
+        entries.compute(keeperUuid, (uuid, entry) -> {
+            generations.merge(uuid, 1L, Long::sum);
+            return null;
+        });
+        logger.debug("Directions of keeper [{}] evicted from cache", keeperUuid);
+    }
+
+    public boolean isEnabled() {
+        return ttl > 0;
+    }
+
+    @Scheduled(initialDelayString = "${keepers.cache.directions.purgePeriod:60000}",
+            fixedDelayString = "${keepers.cache.directions.purgePeriod:60000}")
+    public void purgeExpired() {
+        long expiredAt = System.currentTimeMillis() - ttl - Math.max(staleWhileRevalidate, staleIfError);
+        entries.forEach((keeperUuid, entry) -> {
+            if (entry.loadedAt <= expiredAt) {
+                entries.remove(keeperUuid, entry);
+            }
+        });
+    }
+
+    private long generation(String keeperUuid) {
+        return generations.getOrDefault(keeperUuid, 0L);
+    }
+
+    /**
+     * Installs directions loaded when the keeper had the given generation, unless it has been evicted since
+     */
+    private void putIfNotEvicted(String keeperUuid, String[] directions, long generation) {
+        Entry loaded = new Entry(directionRegistry.toBitSet(directions), System.currentTimeMillis(), false);
+        entries.compute(keeperUuid, (uuid, entry) -> generation(uuid) == generation ? loaded : entry);
+    }
+
+    private void refreshInBackground(String keeperUuid, Supplier<String[]> loader, long generation) {
+        if (!refreshingKeepers.add(keeperUuid)) {
+            return;
+        }
+        try {
+            backgroundExecutor.execute(() -> {
+                try {
+                    putIfNotEvicted(keeperUuid, loader.get(), generation);
+                    logger.debug("Directions of keeper [{}] revalidated in background", keeperUuid);
+                } catch (Exception ex) {
+                    logger.warn("Cannot revalidate directions of keeper [{}]: [{}]", keeperUuid, ex.getMessage());
+                } finally {
+                    refreshingKeepers.remove(keeperUuid);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            refreshingKeepers.remove(keeperUuid);
+            logger.warn("Cannot start revalidation of keeper [{}] directions: [{}]", keeperUuid, ex.getMessage());
+        }
+    }
+
+    private static class Entry {
+        private final BitSet directions;
+        private final long loadedAt;
+        private final boolean restored;
+
+        private Entry(BitSet directions, long loadedAt, boolean restored) {
+            this.directions = directions;
+            this.loadedAt = loadedAt;
+            this.restored = restored;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package ua.com.juja.microservices.keepers.slackbot.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ua.com.juja.microservices.keepers.slackbot.dao.KeeperRepository;
+import ua.com.juja.microservices.keepers.slackbot.model.dto.UserDTO;
+import ua.com.juja.microservices.keepers.slackbot.model.request.KeeperRequest;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Local index of keepers and their directions. It is built from the directions responses and
+ * add/deactivate results seen by the bot and refreshed in background for all known keepers.
+ * Directions of every keeper are kept as a bitset of {@link DirectionRegistry} ids.
+ */
+@Component
+public class KeepersByDirectionIndex {
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final Map<String, UserDTO> keepers = new HashMap<>();
+    private final Map<String, BitSet> directionsByKeeper = new HashMap<>();
+
+    private KeeperRepository keeperRepository;
+    private DirectionRegistry directionRegistry;
+
+    @Inject
+    public KeepersByDirectionIndex(KeeperRepository keeperRepository, DirectionRegistry directionRegistry) {
+        this.keeperRepository = keeperRepository;
+        this.directionRegistry = directionRegistry;
+    }
+
+    public synchronized void onKeeperDirections(UserDTO keeper, String[] directions) {
+        BitSet keeperDirections = directionRegistry.toBitSet(directions);
+        if (keeperDirections.isEmpty()) {
+            keepers.remove(keeper.getUuid());
+            directionsByKeeper.remove(keeper.getUuid());
+        } else {
+            keepers.put(keeper.getUuid(), keeper);
+            directionsByKeeper.put(keeper.getUuid(), keeperDirections);
+        }
+        logger.debug("Index updated with directions {} of keeper [{}]", Arrays.toString(directions), keeper);
+    }
+
+    public synchronized void onKeeperAdded(UserDTO keeper, String direction) {
+        keepers.put(keeper.getUuid(), keeper);
+        directionsByKeeper.computeIfAbsent(keeper.getUuid(), uuid -> new BitSet())
+                .set(directionRegistry.register(direction));
+        logger.debug("Index updated with new keeper [{}] in direction [{}]", keeper, direction);
+    }
+
+    public synchronized void onKeeperDeactivated(UserDTO keeper, String direction) {
+        BitSet keeperDirections = directionsByKeeper.get(keeper.getUuid());
+        int id = directionRegistry.find(direction);
+        if (keeperDirections != null && id >= 0) {
+            keeperDirections.clear(id);
+            if (keeperDirections.isEmpty()) {
+                directionsByKeeper.remove(keeper.getUuid());
+                keepers.remove(keeper.getUuid());
+            }
+        }
+        logger.debug("Index updated with deactivated keeper [{}] in direction [{}]", keeper, direction);
+    }
+
+    /**
+     * @return the spelling the direction was first seen in, or the trimmed direction if it is unknown
+     */
+    public String knownName(String direction) {
+        int id = directionRegistry.find(direction);
+        return id < 0 ? direction.trim() : directionRegistry.getName(id);
+    }
+
+    public List<UserDTO> findKeepers(String direction) {
+        return findKeepersOfAll(new String[]{direction});
+    }
+
+    public synchronized List<UserDTO> findKeepersOfAll(String[] directions) {
+        BitSet wanted = new BitSet();
+        for (String direction : directions) {
+            int id = directionRegistry.find(direction);
+            if (id < 0) {
+                return new ArrayList<>();
+            }
+            wanted.set(id);
+        }
+        List<UserDTO> result = new ArrayList<>();
+        directionsByKeeper.forEach((uuid, keeperDirections) -> {
+            BitSet common = (BitSet) wanted.clone();
+            common.and(keeperDirections);
+            if (common.equals(wanted)) {
+                result.add(keepers.get(uuid));
+            }
+        });
+        return result;
+    }
+
+    public synchronized String[] findDirectionsWithoutKeepers() {
+        BitSet directions = new BitSet();
+        directions.set(0, directionRegistry.size());
+        directionsByKeeper.values().forEach(directions::andNot);
+        return directionRegistry.toDirections(directions);
+    }
+
+    @Scheduled(initialDelayString = "${keepers.index.refreshPeriod}", fixedDelayString = "${keepers.index.refreshPeriod}")
+    public void refresh() {
+        List<UserDTO> knownKeepers;
+        synchronized (this) {
+            knownKeepers = new ArrayList<>(keepers.values());
+        }
+        logger.debug("Started background refresh of {} keepers in index", knownKeepers.size());
+        for (UserDTO keeper : knownKeepers) {
+            try {
+                String[] directions = keeperRepository.getKeeperDirections(
+                        new KeeperRequest(keeper.getUuid(), keeper.getUuid(), ""));
+                onKeeperDirections(keeper, directions);
+            } catch (Exception ex) {
+                logger.warn("Cannot refresh directions of keeper [{}] in index: [{}]", keeper, ex.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package ua.com.juja.microservices.keepers.slackbot.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ua.com.juja.microservices.keepers.slackbot.model.dto.UserDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link UserDirectory} on top of a concurrent hash map
+ */
+@Component
+@ConditionalOnProperty(name = "keepers.users.directory.type", havingValue = "map", matchIfMissing = true)
+public class MapUserDirectory implements UserDirectory {
+    private final Map<String, UserDTO> users = new ConcurrentHashMap<>();
+
+    @Override
+    public UserDTO find(String slackUser) {
+        return users.get(slackUser);
+    }
+
+    @Override
+    public void put(UserDTO user) {
+        users.put(user.getSlackUser(), user);
+    }
+
+    @Override
+    public void remove(String slackUser) {
+        users.remove(slackUser);
+    }
+
+    @Override
+    public int size() {
+        return users.size();
+    }
+
+    @Override
+    public List<String> slackUsers() {
+        return new ArrayList<>(users.keySet());
+    }
+
+    /**
+     * Estimates a compressed-oops heap: a map node, a table reference, a {@link UserDTO} and two strings per user
+     */
+    @Override
+    public String footprintReport() {
+        long footprint = 16L + 16L;
+        int count = 0;
+        for (UserDTO user : users.values()) {
+            footprint += 32 + 8 + 24 + stringFootprint(user.getSlackUser()) + stringFootprint(user.getUuid());
+            count++;
+        }
+        return String.format("users: %d, total: %d bytes, %d bytes per user (estimated)", count, footprint,
+                count == 0 ? 0 : footprint / count);
+    }
+
+    private static long stringFootprint(String value) {
+        return value == null ? 0 : 24 + ((16 + value.length() * 2 + 7) & ~7);
+    }
+}
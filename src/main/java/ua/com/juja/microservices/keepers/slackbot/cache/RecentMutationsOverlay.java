@@ -0,0 +1,113 @@
+package ua.com.juja.microservices.keepers.slackbot.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Short-living overlay of the keeper mutations this instance has made successfully, by keeper uuid.
+ * It is merged into the directions read from the cache or the Keepers service, so a user sees own changes
+ * right after the command even if the read returns older directions. Disabled when ttl is 0.
+ */
+@Component
+public class RecentMutationsOverlay {
+    private final ConcurrentMap<String, Map<String, Mutation>> mutationsByKeeper = new ConcurrentHashMap<>();
+
+    @Value("${keepers.cache.directions.overlayTtl:0}")
+    private long ttl;
+
+    public boolean isEnabled() {
+        return ttl > 0;
+    }
+
+    public void onKeeperAdded(String keeperUuid, String direction) {
+        record(keeperUuid, direction, true);
+    }
+
+    public void onKeeperDeactivated(String keeperUuid, String direction) {
+        record(keeperUuid, direction, false);
+    }
+
+    /**
+     * Returns the directions with the recently added ones appended and the recently deactivated ones removed
+     */
+    public String[] apply(String keeperUuid, String[] directions) {
+        if (!isEnabled()) {
+            return directions;
+        }
+        long now = System.currentTimeMillis();
+        Map<String, Mutation> mutations = new HashMap<>();
+        mutationsByKeeper.computeIfPresent(keeperUuid, (uuid, keeperMutations) -> {
+            keeperMutations.values().removeIf(mutation -> mutation.expiresAt <= now);
+            mutations.putAll(keeperMutations);
+            return keeperMutations.isEmpty() ? null : keeperMutations;
+        });
+        if (mutations.isEmpty()) {
+            return directions;
+        }
+
+        List<String> result = new ArrayList<>(directions.length + mutations.size());
+        Set<String> present = new HashSet<>();
+        for (String direction : directions) {
+            String normalized = DirectionRegistry.normalize(direction);
+            Mutation mutation = mutations.get(normalized);
+            if (mutation == null || mutation.added) {
+                result.add(direction);
+                present.add(normalized);
+            }
+        }
+        mutations.forEach((normalized, mutation) -> {
+            if (mutation.added && !present.contains(normalized)) {
+                result.add(mutation.direction);
+            }
+        });
+        return result.toArray(new String[result.size()]);
+    }
+
+    public int size() {
+        return mutationsByKeeper.values().stream().mapToInt(Map::size).sum();
+    }
+
+    private void record(String keeperUuid, String direction, boolean added) {
+        if (!isEnabled()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Mutation mutation = new Mutation(direction.trim(), added, now + ttl);
+        mutationsByKeeper.compute(keeperUuid, (uuid, keeperMutations) -> {
+            Map<String, Mutation> result = keeperMutations == null ? new HashMap<>() : keeperMutations;
+            result.put(DirectionRegistry.normalize(direction), mutation);
+            return result;
+        });
+        purgeExpired(now);
+    }
+
+    private void purgeExpired(long now) {
+        for (String keeperUuid : mutationsByKeeper.keySet()) {
+            mutationsByKeeper.computeIfPresent(keeperUuid, (uuid, keeperMutations) -> {
+                keeperMutations.values().removeIf(mutation -> mutation.expiresAt <= now);
+                return keeperMutations.isEmpty() ? null : keeperMutations;
+            });
+        }
+    }
+
+    private static class Mutation {
+        private final String direction;
+        private final boolean added;
+        private final long expiresAt;
+
+        Mutation(String direction, boolean added, long expiresAt) {
+            this.direction = direction;
+            this.added = added;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package ua.com.juja.microservices.keepers.slackbot.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Short-living negative cache of slack ids the Users service didn't return, so repeated commands with wrong
+ * mentions don't go to the Users service every time. Disabled when ttl is 0.
+ * The slack ids come from the command text, so the cache holds at most {@code maxSize} of them and expired ones
+ * are purged every {@code purgePeriod} ms; new ids are not cached while it is full.
+ * Its counters are published as {@code cache.unknownSlackUsers.*} metrics.
+ */
+@Component
+public class UnknownSlackUsersCache implements PublicMetrics {
+    private static final String METRIC_PREFIX = "cache.unknownSlackUsers.";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final Map<String, Long> expirationBySlackUser = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder additions = new LongAdder();
+    private final LongAdder purges = new LongAdder();
+    private final LongAdder overflows = new LongAdder();
+
+    @Value("${keepers.users.unknownCache.ttl:0}")
+    private long ttl;
+    @Value("${keepers.users.unknownCache.maxSize:10000}")
+    private int maxSize;
+
+    public boolean isEnabled() {
+        return ttl > 0;
+    }
+
+    public boolean isUnknown(String slackUser) {
+        if (!isEnabled()) {
+            return false;
+        }
+        Long expiresAt = expirationBySlackUser.get(slackUser);
+        if (expiresAt != null && expiresAt > System.currentTimeMillis()) {
+            hits.increment();
+            return true;
+        }
+        if (expiresAt != null) {
+            expirationBySlackUser.remove(slackUser, expiresAt);
+        }
+        misses.increment();
+        return false;
+    }
+
+    /**
+     * Remembers requested slack ids which are absent in the found ones
+     */
+    public void onResolved(Collection<String> requestedSlackUsers, Collection<String> foundSlackUsers) {
+        if (!isEnabled()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long expiresAt = now + ttl;
+        for (String slackUser : requestedSlackUsers) {
+            if (!foundSlackUsers.contains(slackUser)) {
+                if (expirationBySlackUser.size() >= maxSize && !expirationBySlackUser.containsKey(slackUser)
+                        && purgeExpired(now) == 0) {
+                    overflows.increment();
+                    logger.debug("Unknown slack users cache is full, slack user [{}] is not cached", slackUser);
+                    continue;
+                }
+                expirationBySlackUser.put(slackUser, expiresAt);
+                additions.increment();
+                logger.debug("Slack user [{}] is unknown for the Users service", slackUser);
+            }
+        }
+    }
+
+    public List<String> unknownSlackUsers() {
+        long now = System.currentTimeMillis();
+        List<String> result = new ArrayList<>();
+        expirationBySlackUser.forEach((slackUser, expiresAt) -> {
+            if (expiresAt > now) {
+                result.add(slackUser);
+            }
+        });
+        return result;
+    }
+
+    @Scheduled(initialDelayString = "${keepers.users.unknownCache.purgePeriod}",
+            fixedDelayString = "${keepers.users.unknownCache.purgePeriod}")
+    public void purgeExpired() {
+        int count = purgeExpired(System.currentTimeMillis());
+        if (count > 0) {
+            logger.debug("Purged {} expired unknown slack users", count);
+        }
+    }
+
+    /**
+     * @return count of purged slack ids
+     */
+    public int purge() {
+        int count = expirationBySlackUser.size();
+        expirationBySlackUser.clear();
+        purges.increment();
+        logger.info("Purged {} unknown slack users", count);
+        return count;
+    }
+
+    public boolean purge(String slackUser) {
+        boolean purged = expirationBySlackUser.remove(slackUser) != null;
+        purges.increment();
+        logger.info("Purged unknown slack user [{}]: {}", slackUser, purged);
+        return purged;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        return Arrays.asList(
+                new Metric<>(METRIC_PREFIX + "size", expirationBySlackUser.size()),
+                new Metric<>(METRIC_PREFIX + "hits", hits.sum()),
+                new Metric<>(METRIC_PREFIX + "misses", misses.sum()),
+                new Metric<>(METRIC_PREFIX + "additions", additions.sum()),
+                new Metric<>(METRIC_PREFIX + "purges", purges.sum()),
+                new Metric<>(METRIC_PREFIX + "overflows", overflows.sum()));
+    }
+
+    private int purgeExpired(long now) {
+        int count = 0;
+        for (Map.Entry<String, Long> entry : expirationBySlackUser.entrySet()) {
+            if (entry.getValue() <= now && expirationBySlackUser.remove(entry.getKey(), entry.getValue())) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
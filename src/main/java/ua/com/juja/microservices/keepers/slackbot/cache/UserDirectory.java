@@ -0,0 +1,29 @@
+package ua.com.juja.microservices.keepers.slackbot.cache;
+
+import ua.com.juja.microservices.keepers.slackbot.model.dto.UserDTO;
+
+import java.util.List;
+
+/**
+ * Local directory of users by their slack ids, kept warm so commands don't go to the Users service for every
+ * mentioned user
+ */
+public interface UserDirectory {
+    UserDTO find(String slackUser);
+
+    void put(UserDTO user);
+
+    void remove(String slackUser);
+
+    int size();
+
+    /**
+     * @return snapshot of all slack ids in the directory
+     */
+    List<String> slackUsers();
+
+    /**
+     * @return human readable estimate of the memory taken by the directory
+     */
+    String footprintReport();
+}
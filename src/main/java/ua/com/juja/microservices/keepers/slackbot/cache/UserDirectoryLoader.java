@@ -0,0 +1,202 @@
+package ua.com.juja.microservices.keepers.slackbot.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import ua.com.juja.microservices.keepers.slackbot.dao.UserRepository;
+import ua.com.juja.microservices.keepers.slackbot.model.dto.UserDTO;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Fills the {@link UserDirectory} at startup from the configured slack ids and seed file with batched requests
+ * to the Users service, and then re-validates a small slice of the directory per tick, so all entries are
+ * refreshed over time without load spikes. The slices go through the slack ids in sorted order, so users added
+ * or removed between ticks do not make the refresh skip or repeat the others. Users restored from a snapshot are stale and revalidated first;
+ * they may be served only within the stale-while-revalidate and stale-if-error windows counted from the snapshot.
+ */
+@Component
+public class UserDirectoryLoader {
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Value("${keepers.users.directory.enabled}")
+    private boolean enabled;
+    @Value("${keepers.users.directory.preload.slackUsers}")
+    private String preloadSlackUsers;
+    @Value("${keepers.users.directory.preload.file}")
+    private String preloadFile;
+    @Value("${keepers.users.directory.batchSize}")
+    private int batchSize;
+    @Value("${keepers.users.directory.refreshSliceSize}")
+    private int refreshSliceSize;
+    @Value("${keepers.users.directory.staleWhileRevalidate:0}")
+    private long staleWhileRevalidate;
+    @Value("${keepers.users.directory.staleIfError:0}")
+    private long staleIfError;
+
+    private UserRepository userRepository;
+    private UserDirectory userDirectory;
+    private final Set<String> staleSlackUsers = ConcurrentHashMap.newKeySet();
+    private String refreshedUpTo;
+    private volatile long restoredAt;
+
+    @Inject
+    public UserDirectoryLoader(UserRepository userRepository, UserDirectory userDirectory) {
+        this.userRepository = userRepository;
+        this.userDirectory = userDirectory;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        if (!enabled) {
+            return;
+        }
+        List<String> slackUsers = receivePreloadSlackUsers();
+        logger.info("Started preload of {} users into the user directory", slackUsers.size());
+        for (int from = 0; from < slackUsers.size(); from += batchSize) {
+            List<String> batch = slackUsers.subList(from, Math.min(from + batchSize, slackUsers.size()));
+            try {
+                userRepository.findUsersBySlackUsers(batch).forEach(userDirectory::put);
+            } catch (RuntimeException ex) {
+                logger.warn("Preload of users {} failed: [{}]", batch, ex.getMessage());
+            }
+        }
+        logger.info("Finished preload of the user directory: {}", userDirectory.footprintReport());
+    }
+
+    /**
+     * Puts users from a snapshot written at the given time into the directory as stale, unless they are
+     * already there. Nothing is restored when stale users may never be served.
+     */
+    public void restoreStale(List<UserDTO> users, long writtenAt) {
+        if (!enabled) {
+            return;
+        }
+        if (staleWhileRevalidate <= 0 && staleIfError <= 0) {
+            logger.info("Users of the snapshot are not restored, serving of stale users is disabled");
+            return;
+        }
+        restoredAt = writtenAt;
+        for (UserDTO user : users) {
+            if (userDirectory.find(user.getSlackUser()) == null) {
+                userDirectory.put(user);
+                staleSlackUsers.add(user.getSlackUser());
+            }
+        }
+        logger.info("Restored {} stale users into the user directory", staleSlackUsers.size());
+    }
+
+    public boolean isStale(String slackUser) {
+        return staleSlackUsers.contains(slackUser);
+    }
+
+    /**
+     * Returns true when stale users may be served: within the stale-while-revalidate window,
+     * or within the stale-if-error window when the Users service has failed
+     */
+    public boolean canServeStale(boolean serviceFailed) {
+        long age = Math.max(0, System.currentTimeMillis() - restoredAt);
+        return age < (serviceFailed ? staleIfError : staleWhileRevalidate);
+    }
+
+    public void onRevalidated(String slackUser) {
+        staleSlackUsers.remove(slackUser);
+    }
+
+    @Scheduled(initialDelayString = "${keepers.users.directory.refreshPeriod}",
+            fixedDelayString = "${keepers.users.directory.refreshPeriod}")
+    public void refreshSlice() {
+        if (!enabled) {
+            return;
+        }
+        List<String> slice = nextStaleSlice();
+        if (slice.isEmpty()) {
+            slice = nextSlice();
+            if (slice.isEmpty()) {
+                return;
+            }
+        }
+        logger.debug("Started refresh of users {} in the user directory", slice);
+        try {
+            Set<String> found = new HashSet<>();
+            for (UserDTO user : userRepository.findUsersBySlackUsers(new ArrayList<>(slice))) {
+                userDirectory.put(user);
+                found.add(user.getSlackUser());
+            }
+            slice.stream()
+                    .filter(slackUser -> !found.contains(slackUser))
+                    .forEach(userDirectory::remove);
+            staleSlackUsers.removeAll(slice);
+        } catch (RuntimeException ex) {
+            logger.warn("Refresh of users {} failed: [{}]", slice, ex.getMessage());
+        }
+    }
+
+    private List<String> nextSlice() {
+        List<String> slackUsers = new ArrayList<>(userDirectory.slackUsers());
+        if (slackUsers.isEmpty()) {
+            return slackUsers;
+        }
+        Collections.sort(slackUsers);
+        int from = 0;
+        if (refreshedUpTo != null) {
+            int position = Collections.binarySearch(slackUsers, refreshedUpTo);
+            from = position >= 0 ? position + 1 : -position - 1;
+        }
+        if (from >= slackUsers.size()) {
+            from = 0;
+        }
+        List<String> slice = slackUsers.subList(from, Math.min(from + refreshSliceSize, slackUsers.size()));
+        refreshedUpTo = slice.get(slice.size() - 1);
+        return slice;
+    }
+
+    private List<String> nextStaleSlice() {
+        List<String> slice = new ArrayList<>();
+        Iterator<String> iterator = staleSlackUsers.iterator();
+        while (iterator.hasNext() && slice.size() < refreshSliceSize) {
+            slice.add(iterator.next());
+        }
+        return slice;
+    }
+
+    private List<String> receivePreloadSlackUsers() {
+        Set<String> slackUsers = new LinkedHashSet<>(
+                Arrays.asList(StringUtils.commaDelimitedListToStringArray(preloadSlackUsers)));
+        if (StringUtils.hasText(preloadFile)) {
+            try {
+                slackUsers.addAll(Files.readAllLines(Paths.get(preloadFile), StandardCharsets.UTF_8));
+            } catch (IOException ex) {
+                logger.warn("Cannot read slack users from file [{}]: [{}]", preloadFile, ex.getMessage());
+            }
+        }
+        return slackUsers.stream()
+                .map(String::trim)
+                .filter(slackUser -> !slackUser.isEmpty() && !slackUser.startsWith("#"))
+                .distinct()
+                .collect(Collectors.toList());
+    }
+}
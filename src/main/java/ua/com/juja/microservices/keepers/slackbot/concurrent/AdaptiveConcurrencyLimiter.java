@@ -0,0 +1,177 @@
+package ua.com.juja.microservices.keepers.slackbot.concurrent;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Vegas-style adaptive limit of the requests in flight to a downstream service. The latency of each request is
+ * compared with the lowest latency seen, which estimates how many requests queue downstream. The limit grows
+ * while that queue is short and shrinks when it grows or requests time out. The lowest latency is re-measured every
+ * {@value #PROBE_INTERVAL} samples to follow a changed baseline. A request over the limit waits up to {@code maxWait}
+ * ms, but not past the {@link Deadline} of the command, for another one to finish and is rejected with
+ * {@link LimitExceededException} if none does. The limit, requests in flight and rejections are published as
+ * {@code concurrency.<service>.*} metrics.
+ */
+public class AdaptiveConcurrencyLimiter implements PublicMetrics {
+    private static final int PROBE_INTERVAL = 1000;
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final double ALPHA = 3;
+    private static final double BETA = 6;
+
+    private final String service;
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long maxWaitNanos;
+    private final String metricPrefix;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private final Object released = new Object();
+    private volatile double limit;
+    private long noLoadLatency;
+    private int samplesSinceProbe;
+
+    public AdaptiveConcurrencyLimiter(String service, boolean enabled, int initialLimit, int minLimit,
+                                      int maxLimit) {
+        this(service, enabled, initialLimit, minLimit, maxLimit, 0);
+    }
+
+    public AdaptiveConcurrencyLimiter(String service, boolean enabled, int initialLimit, int minLimit,
+                                      int maxLimit, long maxWait) {
+        this.service = service;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxWait));
+        this.enabled = enabled;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.max(this.minLimit, Math.min(this.maxLimit, initialLimit));
+        this.metricPrefix = "concurrency." + service.toLowerCase() + ".";
+    }
+
+    public static AdaptiveConcurrencyLimiter disabled(String service) {
+        return new AdaptiveConcurrencyLimiter(service, false, Integer.MAX_VALUE, 1, Integer.MAX_VALUE);
+    }
+
+    public <T> T execute(Supplier<T> request) {
+        if (!enabled) {
+            return request.get();
+        }
+        int inFlightAtStart = acquire();
+        long startedAt = System.nanoTime();
+        boolean dropped = false;
+        try {
+            return request.get();
+        } catch (ResourceAccessException | HttpServerErrorException ex) {
+            dropped = true;
+            throw ex;
+        } finally {
+            release();
+            onSample(System.nanoTime() - startedAt, inFlightAtStart, dropped);
+        }
+    }
+
+    private int acquire() {
+        long waitUntil = 0;
+        while (true) {
+            int current = inFlight.get();
+            if (current < getLimit()) {
+                if (inFlight.compareAndSet(current, current + 1)) {
+                    return current + 1;
+                }
+                continue;
+            }
+            long now = System.nanoTime();
+            if (waitUntil == 0) {
+                waitUntil = now + Math.min(maxWaitNanos, Math.max(0, Deadline.remainingNanos()));
+            }
+            if (now - waitUntil >= 0 || !awaitRelease(waitUntil - now)) {
+                rejected.incrementAndGet();
+                throw new LimitExceededException(String.format("Too many requests to %s service in flight: %d",
+                        service, current));
+            }
+        }
+    }
+
+    /**
+     * @return false when interrupted
+     */
+    private boolean awaitRelease(long timeoutNanos) {
+        synchronized (released) {
+            waiting.incrementAndGet();
+            try {
+                if (inFlight.get() < getLimit()) {
+                    return true;
+                }
+                TimeUnit.NANOSECONDS.timedWait(released, timeoutNanos);
+                return true;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                waiting.decrementAndGet();
+            }
+        }
+    }
+
+    private void release() {
+        inFlight.decrementAndGet();
+        if (waiting.get() > 0) {
+            synchronized (released) {
+                released.notify();
+            }
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        return Arrays.asList(
+                new Metric<>(metricPrefix + "limit", enabled ? getLimit() : -1),
+                new Metric<>(metricPrefix + "inFlight", getInFlight()),
+                new Metric<>(metricPrefix + "rejected", rejected.get()));
+    }
+
+    synchronized void onSample(long latency, int inFlightAtStart, boolean dropped) {
+        if (++samplesSinceProbe >= PROBE_INTERVAL) {
+            samplesSinceProbe = 0;
+            noLoadLatency = latency;
+        } else if (noLoadLatency == 0 || latency < noLoadLatency) {
+            noLoadLatency = latency;
+        }
+
+        double current = limit;
+        double next;
+        if (dropped) {
+            next = current * BACKOFF_RATIO;
+        } else if (inFlightAtStart * 2 < current) {
+            return;
+        } else {
+            double queue = current * (1 - (double) noLoadLatency / Math.max(1, latency));
+            double step = Math.max(1, Math.log10(current));
+            if (queue < ALPHA * step) {
+                next = current + step;
+            } else if (queue > BETA * step) {
+                next = current - step;
+            } else {
+                return;
+            }
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+}
@@ -0,0 +1,51 @@
+package ua.com.juja.microservices.keepers.slackbot.concurrent;
+
+import java.util.function.Supplier;
+
+/**
+ * Time budget of the command processed by the current thread. Tasks handed over to other threads carry it
+ * along when they are wrapped with {@link #propagate(Supplier)}. Work outside of a command has no deadline.
+ */
+public final class Deadline {
+    private static final ThreadLocal<Long> CURRENT = new ThreadLocal<>();
+
+    private Deadline() {
+    }
+
+    /**
+     * @return {@link System#nanoTime()} based deadline the given time from now
+     */
+    public static long after(long millis) {
+        return System.nanoTime() + millis * 1_000_000L;
+    }
+
+    public static <T> T callBefore(long deadlineNanos, Supplier<T> task) {
+        Long previous = CURRENT.get();
+        CURRENT.set(deadlineNanos);
+        try {
+            return task.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * @return nanoseconds left until the deadline of the current command, {@link Long#MAX_VALUE} without one
+     */
+    public static long remainingNanos() {
+        Long deadline = CURRENT.get();
+        return deadline == null ? Long.MAX_VALUE : deadline - System.nanoTime();
+    }
+
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+        Long deadline = CURRENT.get();
+        if (deadline == null) {
+            return task;
+        }
+        return () -> callBefore(deadline, task);
+    }
+}
@@ -0,0 +1,49 @@
+package ua.com.juja.microservices.keepers.slackbot.concurrent;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Runs tasks with the same key one after another in submission order, and tasks with different keys in parallel
+ * on the shared executor. Only keys with unfinished tasks are kept: the tail of a key is removed when its last
+ * task completes, so the state is bounded by the number of tasks in flight. A failed task doesn't stop the
+ * following ones.
+ */
+public class KeyedSerialExecutor {
+    private final Executor executor;
+    private final ConcurrentMap<Object, CompletableFuture<?>> tails = new ConcurrentHashMap<>();
+
+    public KeyedSerialExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * The task keeps the {@link Deadline} of the submitting thread
+     */
+    public <T> CompletableFuture<T> submit(Object key, Supplier<T> command) {
+        return submit(key, command, executor);
+    }
+
+    /**
+     * Runs the task on the given executor, still in order with the other tasks of the key
+     */
+    public <T> CompletableFuture<T> submit(Object key, Supplier<T> command, Executor executor) {
+        Supplier<T> task = Deadline.propagate(command);
+        @SuppressWarnings("unchecked")
+        CompletableFuture<T> next = (CompletableFuture<T>) tails.compute(key, (k, tail) -> tail == null ?
+                CompletableFuture.supplyAsync(task, executor) :
+                tail.handle((result, ex) -> null).thenApplyAsync(ignored -> task.get(), executor));
+        next.whenComplete((result, ex) -> tails.remove(key, next));
+        return next;
+    }
+
+    /**
+     * Number of keys with unfinished tasks
+     */
+    public int pendingKeys() {
+        return tails.size();
+    }
+}
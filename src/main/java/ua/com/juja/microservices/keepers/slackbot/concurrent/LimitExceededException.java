@@ -0,0 +1,13 @@
+package ua.com.juja.microservices.keepers.slackbot.concurrent;
+
+/**
+ * Request rejected by {@link AdaptiveConcurrencyLimiter}. The downstream service is healthy but this instance
+ * already sends it as many requests as it can take, so it is not handled as the service unavailability: the
+ * command is answered that the bot is busy and a mutation is not queued.
+ */
+public class LimitExceededException extends RuntimeException {
+
+    public LimitExceededException(String message) {
+        super(message);
+    }
+}
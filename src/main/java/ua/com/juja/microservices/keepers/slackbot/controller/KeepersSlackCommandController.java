@@ -11,14 +11,23 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
+import ua.com.juja.microservices.keepers.slackbot.concurrent.Deadline;
+import ua.com.juja.microservices.keepers.slackbot.concurrent.LimitExceededException;
 import ua.com.juja.microservices.keepers.slackbot.exception.BaseBotException;
+import ua.com.juja.microservices.keepers.slackbot.exception.ExpectedExceptions;
 import ua.com.juja.microservices.keepers.slackbot.exception.UserExchangeException;
 import ua.com.juja.microservices.keepers.slackbot.service.KeeperService;
+import ua.com.juja.microservices.keepers.slackbot.shutdown.DrainableExecutor;
+import ua.com.juja.microservices.keepers.slackbot.template.Message;
+import ua.com.juja.microservices.keepers.slackbot.template.MessageTemplates;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 /**
  * @author Nikolay Horushko
@@ -35,14 +44,25 @@ public class KeepersSlackCommandController {
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
     @Value("${keepers.slackBot.slack.slashCommandToken}")
     private String slackToken;
+    @Value("${keepers.slackBot.commands.timeBudget}")
+    private long commandTimeBudget;
 
     private KeeperService keeperService;
     private RestTemplate restTemplate;
+    private DrainableExecutor slackCommandExecutor;
+    private DrainableExecutor slackDeliveryExecutor;
+    private MessageTemplates messageTemplates;
 
     @Inject
-    public KeepersSlackCommandController(KeeperService keeperService, RestTemplate restTemplate) {
+    public KeepersSlackCommandController(KeeperService keeperService, RestTemplate restTemplate,
+                                         @Named("slackCommandExecutor") DrainableExecutor slackCommandExecutor,
+                                         @Named("slackDeliveryExecutor") DrainableExecutor slackDeliveryExecutor,
+                                         MessageTemplates messageTemplates) {
         this.keeperService = keeperService;
         this.restTemplate = restTemplate;
+        this.slackCommandExecutor = slackCommandExecutor;
+        this.slackDeliveryExecutor = slackDeliveryExecutor;
+        this.messageTemplates = messageTemplates;
     }
 
     @PostMapping(value = "${keepers.slackBot.endpoint.keeperAdd}", consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE)
@@ -58,12 +78,17 @@ public class KeepersSlackCommandController {
             if (!token.equals(slackToken)) {
                 logger.warn("Received invalid slack token: [{}] in command KeeperAdd for user: [{}]", token, fromSlackUser);
                 sendQuickResponse(httpServletResponse, SORRY_MESSAGE);
+            } else if (!slackCommandExecutor.isAccepting()) {
+                sendQuickResponse(httpServletResponse, messageTemplates.render(Message.SERVICE_BUSY));
             } else {
                 sendQuickResponse(httpServletResponse, IN_PROGRESS);
-                String response = keeperService.sendKeeperAddRequest(fromSlackUser, text);
-                logger.info("KeeperAdd command processed : user: [{}] text: [{}] and sent response into slack: [{}]",
-                        fromSlackUser, text, response);
-                sendDelayedResponse(responseUrl, response);
+                executeCommand("KeeperAdd", DrainableExecutor.Priority.HIGH,
+                        fromSlackUser, text, responseUrl, () -> {
+                    String response = keeperService.sendKeeperAddRequest(fromSlackUser, text, responseUrl);
+                    logger.info("KeeperAdd command processed : user: [{}] text: [{}] and sent response into slack: [{}]",
+                            fromSlackUser, text, response);
+                    return response;
+                });
             }
         } catch (BaseBotException bex) {
             sendBaseBotExceptionMessage(responseUrl, bex);
@@ -85,12 +110,17 @@ public class KeepersSlackCommandController {
             if (!token.equals(slackToken)) {
                 logger.warn("Received invalid slack token: [{}] in command KeeperDeactivate for user: [{}]", token, fromSlackUser);
                 sendQuickResponse(httpServletResponse, SORRY_MESSAGE);
+            } else if (!slackCommandExecutor.isAccepting()) {
+                sendQuickResponse(httpServletResponse, messageTemplates.render(Message.SERVICE_BUSY));
             } else {
                 sendQuickResponse(httpServletResponse, IN_PROGRESS);
-                String response = keeperService.sendKeeperDeactivateRequest(fromSlackUser, text);
-                logger.info("KeeperDeactivate command processed : user: [{}] text: [{}] and sent response into slack: [{}]",
-                        fromSlackUser, text, response);
-                sendDelayedResponse(responseUrl, response);
+                executeCommand("KeeperDeactivate", DrainableExecutor.Priority.HIGH,
+                        fromSlackUser, text, responseUrl, () -> {
+                    String response = keeperService.sendKeeperDeactivateRequest(fromSlackUser, text, responseUrl);
+                    logger.info("KeeperDeactivate command processed : user: [{}] text: [{}] and sent response into slack: [{}]",
+                            fromSlackUser, text, response);
+                    return response;
+                });
             }
         } catch (BaseBotException bex) {
             sendBaseBotExceptionMessage(responseUrl, bex);
@@ -113,12 +143,17 @@ public class KeepersSlackCommandController {
                 logger.warn("Received invalid slack token: [{}] in command getKeeperDirections for user: [{}]", token,
                         fromSlackUser);
                 sendQuickResponse(httpServletResponse, SORRY_MESSAGE);
+            } else if (!slackCommandExecutor.isAccepting()) {
+                sendQuickResponse(httpServletResponse, messageTemplates.render(Message.SERVICE_BUSY));
             } else {
                 sendQuickResponse(httpServletResponse, IN_PROGRESS);
-                String response = keeperService.getKeeperDirections(fromSlackUser, text);
-                logger.info("GetKeeperDirections command processed : user: [{}] text: [{}] and sent response to slack: [{}]",
-                        fromSlackUser, text, response);
-                sendDelayedResponse(responseUrl, response);
+                executeCommand("GetKeeperDirections", DrainableExecutor.Priority.NORMAL,
+                        fromSlackUser, text, responseUrl, () -> {
+                    String response = keeperService.getKeeperDirections(fromSlackUser, text);
+                    logger.info("GetKeeperDirections command processed : user: [{}] text: [{}] and sent response to slack: [{}]",
+                            fromSlackUser, text, response);
+                    return response;
+                });
             }
         } catch (BaseBotException bex) {
             sendBaseBotExceptionMessage(responseUrl, bex);
@@ -138,12 +173,51 @@ public class KeepersSlackCommandController {
             if (!token.equals(slackToken)) {
                 logger.warn("Received invalid slack token: [{}] in command getMyDirections for user: [{}]", token, fromSlackUser);
                 sendQuickResponse(httpServletResponse, SORRY_MESSAGE);
+            } else if (!slackCommandExecutor.isAccepting()) {
+                sendQuickResponse(httpServletResponse, messageTemplates.render(Message.SERVICE_BUSY));
             } else {
                 sendQuickResponse(httpServletResponse, IN_PROGRESS);
-                String response = keeperService.getMyDirections(fromSlackUser);
-                logger.info("GetMyDirections command processed : user: [{}] and sent response to slack: [{}]",
-                        fromSlackUser, response);
-                sendDelayedResponse(responseUrl, response);
+                executeCommand("GetMyDirections", DrainableExecutor.Priority.NORMAL,
+                        fromSlackUser, "", responseUrl, () -> {
+                    String response = keeperService.getMyDirections(fromSlackUser);
+                    logger.info("GetMyDirections command processed : user: [{}] and sent response to slack: [{}]",
+                            fromSlackUser, response);
+                    return response;
+                });
+            }
+        } catch (BaseBotException bex) {
+            sendBaseBotExceptionMessage(responseUrl, bex);
+        } catch (Exception ex) {
+            sendExceptionMessage(responseUrl, ex);
+        }
+    }
+
+    @PostMapping(value = "${keepers.slackBot.endpoint.getDirectionKeepers}",
+            consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+    public void getDirectionKeepers(@RequestParam("token") String token,
+                                    @RequestParam("user_id") String fromSlackUser,
+                                    @RequestParam("text") String text,
+                                    @RequestParam("response_url") String responseUrl,
+                                    HttpServletResponse httpServletResponse) {
+        try {
+            logger.debug("Received slash command GetDirectionKeepers: from user: [{}] command: [{}] token: [{}]",
+                    fromSlackUser, text, token);
+
+            if (!token.equals(slackToken)) {
+                logger.warn("Received invalid slack token: [{}] in command getDirectionKeepers for user: [{}]", token,
+                        fromSlackUser);
+                sendQuickResponse(httpServletResponse, SORRY_MESSAGE);
+            } else if (!slackCommandExecutor.isAccepting()) {
+                sendQuickResponse(httpServletResponse, messageTemplates.render(Message.SERVICE_BUSY));
+            } else {
+                sendQuickResponse(httpServletResponse, IN_PROGRESS);
+                executeCommand("GetDirectionKeepers", DrainableExecutor.Priority.NORMAL,
+                        fromSlackUser, text, responseUrl, () -> {
+                    String response = keeperService.getDirectionKeepers(fromSlackUser, text);
+                    logger.info("GetDirectionKeepers command processed : user: [{}] text: [{}] and sent response to slack: [{}]",
+                            fromSlackUser, text, response);
+                    return response;
+                });
             }
         } catch (BaseBotException bex) {
             sendBaseBotExceptionMessage(responseUrl, bex);
@@ -161,9 +235,31 @@ public class KeepersSlackCommandController {
         logger.info("Sent a quick response with message '{}'", message);
     }
 
+    private void executeCommand(String command, DrainableExecutor.Priority priority, String fromSlackUser,
+                                String text, String responseUrl, Supplier<String> processing) {
+        String description = String.format("%s from [%s] text [%s] responseUrl [%s]", command, fromSlackUser, text,
+                responseUrl);
+        long deadline = Deadline.after(commandTimeBudget);
+        slackCommandExecutor.execute(description, priority, () -> {
+            try {
+                sendDelayedResponse(responseUrl, Deadline.callBefore(deadline, processing));
+            } catch (BaseBotException bex) {
+                sendBaseBotExceptionMessage(responseUrl, bex);
+            } catch (Exception ex) {
+                sendExceptionMessage(responseUrl, ex);
+            }
+        });
+    }
+
     private void sendDelayedResponse(String responseUrl, String response) {
-        String slackAnswer = restTemplate.postForObject(responseUrl, new RichMessage(response), String.class);
-        logger.info("Slack answered: [{}]", slackAnswer == null ? "null" : slackAnswer);
+        slackDeliveryExecutor.execute(String.format("reply [%s] to [%s]", response, responseUrl), () -> {
+            try {
+                String slackAnswer = restTemplate.postForObject(responseUrl, new RichMessage(response), String.class);
+                logger.info("Slack answered: [{}]", slackAnswer == null ? "null" : slackAnswer);
+            } catch (Exception e) {
+                logger.warn("Delivery of the reply to Slack failed: [{}]", e.getMessage());
+            }
+        });
     }
 
     private void sendBaseBotExceptionMessage(String responseUrl, BaseBotException bex) {
@@ -173,22 +269,27 @@ public class KeepersSlackCommandController {
             if (bex instanceof UserExchangeException) {
                 message = bex.getExceptionMessage();
             }
-            String slackAnswer = restTemplate.postForObject(responseUrl, new RichMessage(message), String.class);
-            logger.warn("Slack answered: [{}]", slackAnswer == null ? "null" : slackAnswer);
+            sendDelayedResponse(responseUrl, message);
         } catch (Exception e) {
             logger.warn("Nested exception: [{}]", e.getMessage());
         }
     }
 
     private void sendExceptionMessage(String responseUrl, Exception ex) {
-        logger.warn("There was an exceptional situation: [{}]", ex.getMessage());
+        if (ExpectedExceptions.isExpected(ex) || ex instanceof ResourceAccessException
+                || ex instanceof RejectedExecutionException || ex instanceof LimitExceededException) {
+            logger.warn("There was an exceptional situation: [{}]", ex.getMessage());
+        } else {
+            logger.error("There was an unexpected exceptional situation: [{}]", ex.getMessage(), ex);
+        }
         try {
             String message = ex.getMessage();
             if (ex instanceof ResourceAccessException) {
-                message = "Some service unavailable";
+                message = messageTemplates.render(Message.SERVICE_UNAVAILABLE);
+            } else if (ex instanceof RejectedExecutionException || ex instanceof LimitExceededException) {
+                message = messageTemplates.render(Message.SERVICE_BUSY);
             }
-            String slackAnswer = restTemplate.postForObject(responseUrl, new RichMessage(message), String.class);
-            logger.warn("Slack answered: [{}]", slackAnswer == null ? "null" : slackAnswer);
+            sendDelayedResponse(responseUrl, message);
         } catch (Exception e) {
             logger.warn("Nested exception: [{}]", e.getMessage());
         }
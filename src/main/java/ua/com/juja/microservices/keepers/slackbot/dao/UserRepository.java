@@ -3,6 +3,7 @@ package ua.com.juja.microservices.keepers.slackbot.dao;
 import ua.com.juja.microservices.keepers.slackbot.model.dto.UserDTO;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Nikolay Horushko
@@ -10,4 +11,9 @@ import java.util.List;
  */
 public interface UserRepository {
     List<UserDTO> findUsersBySlackUsers(List<String> slackUsers);
+
+    /**
+     * Puts found users into the given map keyed by slack user as they are read; the first user wins on duplicates
+     */
+    void collectUsersBySlackUsers(List<String> slackUsers, Map<String, UserDTO> users);
 }
@@ -1,10 +1,13 @@
 package ua.com.juja.microservices.keepers.slackbot.dao.impl;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RequestCallback;
 import ua.com.juja.microservices.keepers.slackbot.exception.ApiError;
+import ua.com.juja.microservices.keepers.slackbot.json.JsonPayloads;
 
 import java.io.IOException;
 import java.util.Collections;
@@ -13,16 +16,34 @@ import java.util.Collections;
  * @author Nikolay Horushko
  */
 public class AbstractRestRepository {
-    protected HttpHeaders setupBaseHttpHeaders() {
+    private static final HttpHeaders BASE_HTTP_HEADERS = createBaseHttpHeaders();
+
+    protected final JsonPayloads jsonPayloads;
+
+    protected AbstractRestRepository(JsonPayloads jsonPayloads) {
+        this.jsonPayloads = jsonPayloads;
+    }
+
+    private static HttpHeaders createBaseHttpHeaders() {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON_UTF8);
-        return headers;
+        return HttpHeaders.readOnlyHttpHeaders(headers);
+    }
+
+    /**
+     * Writes the base headers and the body serialized by the prepared writer straight into the request
+     */
+    protected RequestCallback jsonRequestCallback(Object body, Class<?> bodyType) {
+        ObjectWriter writer = jsonPayloads.writer(bodyType);
+        return request -> {
+            request.getHeaders().putAll(BASE_HTTP_HEADERS);
+            writer.writeValue(StreamUtils.nonClosing(request.getBody()), body);
+        };
     }
 
     protected ApiError convertToApiError(HttpClientErrorException httpClientErrorException) {
-        ObjectMapper mapper = new ObjectMapper();
         try {
-            return mapper.readValue(httpClientErrorException.getResponseBodyAsString(), ApiError.class);
+            return jsonPayloads.reader(ApiError.class).readValue(httpClientErrorException.getResponseBodyAsString());
         } catch (IOException e) {
             return new ApiError(
                     500, "BotInternalError",
@@ -3,19 +3,29 @@ package ua.com.juja.microservices.keepers.slackbot.dao.impl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Repository;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpMessageConverterExtractor;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriTemplate;
+import ua.com.juja.microservices.keepers.slackbot.balancer.Hedger;
+import ua.com.juja.microservices.keepers.slackbot.balancer.LoadBalancer;
+import ua.com.juja.microservices.keepers.slackbot.balancer.Retrier;
+import ua.com.juja.microservices.keepers.slackbot.balancer.ServiceInstance;
 import ua.com.juja.microservices.keepers.slackbot.dao.KeeperRepository;
 import ua.com.juja.microservices.keepers.slackbot.exception.ApiError;
 import ua.com.juja.microservices.keepers.slackbot.exception.KeeperExchangeException;
+import ua.com.juja.microservices.keepers.slackbot.json.JsonPayloads;
 import ua.com.juja.microservices.keepers.slackbot.model.request.KeeperRequest;
 
+import javax.annotation.PostConstruct;
 import javax.inject.Inject;
+import javax.inject.Named;
+import java.net.URI;
 import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
 
 /**
  * @author Nikolay Horushko
@@ -25,47 +35,77 @@ import java.util.Arrays;
 @Repository
 public class RestKeeperRepository extends AbstractRestRepository implements KeeperRepository {
     private RestTemplate restTemplate;
+    private LoadBalancer keepersBalancer;
+    private Hedger keepersHedger;
+    private Retrier keepersRetrier;
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
-    @Value("${keepers.baseURL}")
-    private String urlBaseKeeper;
     @Value("${keepers.rest.api.version}")
     private String version;
     @Value("${keepers.endpoint.keepers}")
     private String urlKeepers;
 
+    private URI[] keepersUris;
+    private UriTemplate[] keeperDirectionsUriTemplates;
+    private HttpMessageConverterExtractor<String[]> responseExtractor;
+
     @Inject
-    public RestKeeperRepository(RestTemplate restTemplate) {
+    public RestKeeperRepository(RestTemplate restTemplate, JsonPayloads jsonPayloads,
+                                @Named("keepersBalancer") LoadBalancer keepersBalancer,
+                                @Named("keepersHedger") Hedger keepersHedger,
+                                @Named("keepersRetrier") Retrier keepersRetrier) {
+        super(jsonPayloads);
         this.restTemplate = restTemplate;
+        this.keepersBalancer = keepersBalancer;
+        this.keepersHedger = keepersHedger;
+        this.keepersRetrier = keepersRetrier;
+    }
+
+    @PostConstruct
+    void resolveUris() {
+        List<ServiceInstance> instances = keepersBalancer.getInstances();
+        keepersUris = new URI[instances.size()];
+        keeperDirectionsUriTemplates = new UriTemplate[instances.size()];
+        for (ServiceInstance instance : instances) {
+            keepersUris[instance.getIndex()] = URI.create(instance.getBaseUrl() + version + urlKeepers);
+            keeperDirectionsUriTemplates[instance.getIndex()] =
+                    new UriTemplate(instance.getBaseUrl() + version + urlKeepers + "/{uuid}");
+        }
+        responseExtractor = new HttpMessageConverterExtractor<>(String[].class, restTemplate.getMessageConverters());
+        logger.debug("Resolved Keepers service uris: {}", Arrays.toString(keepersUris));
     }
 
     @Override
     public String[] addKeeper(KeeperRequest keeperRequest) {
-        return getCommonResponse(keeperRequest, urlBaseKeeper + version + urlKeepers, HttpMethod.POST);
+        return getCommonResponse(keeperRequest, instance -> keepersUris[instance.getIndex()], HttpMethod.POST);
     }
 
     @Override
     public String[] deactivateKeeper(KeeperRequest keeperRequest) {
-        return getCommonResponse(keeperRequest, urlBaseKeeper + version + urlKeepers, HttpMethod.PUT);
+        return getCommonResponse(keeperRequest, instance -> keepersUris[instance.getIndex()], HttpMethod.PUT);
     }
 
     @Override
     public String[] getKeeperDirections(KeeperRequest keeperRequest) {
-        return getCommonResponse(keeperRequest,urlBaseKeeper +  version + urlKeepers + "/" +
-                keeperRequest.getUuid(), HttpMethod.GET);
+        return getCommonResponse(keeperRequest,
+                instance -> keeperDirectionsUriTemplates[instance.getIndex()].expand(keeperRequest.getUuid()),
+                HttpMethod.GET);
     }
 
-    private String[] getCommonResponse(KeeperRequest keeperRequest, String url, HttpMethod method) {
-        logger.debug("Received KeeperRequest: [{}], url: [{}], HttpMethod: [{}] ", keeperRequest.toString(), url, method.name());
+    private String[] getCommonResponse(KeeperRequest keeperRequest, Function<ServiceInstance, URI> uri,
+                                       HttpMethod method) {
+        logger.debug("Received KeeperRequest: [{}], HttpMethod: [{}] ", keeperRequest, method);
 
-        HttpEntity<KeeperRequest> request = new HttpEntity<>(keeperRequest, setupBaseHttpHeaders());
         String[] result;
 
         try {
-            logger.debug("Started request to Keepers service. Request is : [{}]", request.toString());
-            ResponseEntity<String[]> response = restTemplate.exchange(url, method, request, String[].class);
-            result = response.getBody();
-            logger.debug("Finished request to Keepers service. Response is: [{}]", response.toString());
+            logger.debug("Started request to Keepers service. Request is : [{}]", keeperRequest);
+            Function<ServiceInstance, String[]> request = instance -> restTemplate.execute(uri.apply(instance),
+                    method, jsonRequestCallback(keeperRequest, KeeperRequest.class), responseExtractor);
+            result = method == HttpMethod.GET ?
+                    keepersRetrier.execute(() -> keepersHedger.execute(request), true) :
+                    keepersRetrier.execute(() -> keepersBalancer.execute(request), false);
+            logger.debug("Finished request to Keepers service. Response is: [{}]", (Object) result);
         } catch (HttpClientErrorException ex) {
             ApiError error = convertToApiError(ex);
             logger.warn("Keepers service returned an error: [{}]", error);
@@ -1,24 +1,40 @@
 package ua.com.juja.microservices.keepers.slackbot.dao.impl;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
-import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.stereotype.Repository;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
+import ua.com.juja.microservices.keepers.slackbot.balancer.Hedger;
+import ua.com.juja.microservices.keepers.slackbot.balancer.LoadBalancer;
+import ua.com.juja.microservices.keepers.slackbot.balancer.Retrier;
+import ua.com.juja.microservices.keepers.slackbot.balancer.ServiceInstance;
 import ua.com.juja.microservices.keepers.slackbot.dao.UserRepository;
 import ua.com.juja.microservices.keepers.slackbot.exception.ApiError;
 import ua.com.juja.microservices.keepers.slackbot.exception.UserExchangeException;
+import ua.com.juja.microservices.keepers.slackbot.json.JsonPayloads;
 import ua.com.juja.microservices.keepers.slackbot.model.dto.SlackUserRequest;
 import ua.com.juja.microservices.keepers.slackbot.model.dto.UserDTO;
 
+import javax.annotation.PostConstruct;
 import javax.inject.Inject;
+import javax.inject.Named;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * @author Nikolay Horushko
@@ -29,41 +45,122 @@ import java.util.List;
 public class RestUserRepository extends AbstractRestRepository implements UserRepository {
 
     private final RestTemplate restTemplate;
+    private final LoadBalancer usersBalancer;
+    private final Hedger usersHedger;
+    private final Retrier usersRetrier;
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
-    @Value("${users.baseURL}")
-    private String urlBase;
     @Value("${users.rest.api.version}")
     private String version;
     @Value("${users.endpoint.usersBySlackUsers}")
     private String urlGetUsers;
 
+    private URI[] usersBySlackUsersUris;
+
     @Inject
-    public RestUserRepository(RestTemplate restTemplate) {
+    public RestUserRepository(RestTemplate restTemplate, JsonPayloads jsonPayloads,
+                              @Named("usersBalancer") LoadBalancer usersBalancer,
+                              @Named("usersHedger") Hedger usersHedger,
+                              @Named("usersRetrier") Retrier usersRetrier) {
+        super(jsonPayloads);
         this.restTemplate = restTemplate;
+        this.usersBalancer = usersBalancer;
+        this.usersHedger = usersHedger;
+        this.usersRetrier = usersRetrier;
+    }
+
+    @PostConstruct
+    void resolveUris() {
+        List<ServiceInstance> instances = usersBalancer.getInstances();
+        usersBySlackUsersUris = new URI[instances.size()];
+        for (ServiceInstance instance : instances) {
+            usersBySlackUsersUris[instance.getIndex()] = URI.create(instance.getBaseUrl() + version + urlGetUsers);
+        }
+        logger.debug("Resolved Users service uris: {}", Arrays.toString(usersBySlackUsersUris));
     }
 
     @Override
     public List<UserDTO> findUsersBySlackUsers(List<String> slackUsers) {
+        List<UserDTO> result = new ArrayList<>(slackUsers.size());
+        readUsersBySlackUsers(slackUsers, result::add, result::clear);
+        logger.info("Got UserDTO:{} by users: {}", result, slackUsers);
+        return result;
+    }
+
+    @Override
+    public void collectUsersBySlackUsers(List<String> slackUsers, Map<String, UserDTO> users) {
+        List<String> added = new ArrayList<>();
+        int count = readUsersBySlackUsers(slackUsers, user -> {
+            if (users.putIfAbsent(user.getSlackUser(), user) == null) {
+                added.add(user.getSlackUser());
+            }
+        }, () -> {
+            added.forEach(users::remove);
+            added.clear();
+        });
+        logger.info("Got {} UserDTO by {} users", count, slackUsers.size());
+    }
+
+    /**
+     * Sends slack users to the Users service and parses the response array token by token, handing every
+     * {@link UserDTO} to the consumer as soon as it is read, so the whole response is never held in memory.
+     * A retried attempt streams into the consumer too, after {@code restart} has dropped what a failed attempt
+     * handed over. Hedged attempts run at the same time and the winner is known only when one of them has
+     * finished, so then each attempt reads into its own list and the one that wins is handed to the consumer.
+     *
+     * @return count of the users read from the response
+     */
+    private int readUsersBySlackUsers(List<String> slackUsers, Consumer<UserDTO> consumer, Runnable restart) {
         logger.debug("Received SlackUsers : [{}]", slackUsers);
 
         SlackUserRequest slackUserRequest = new SlackUserRequest(slackUsers);
-        HttpEntity<SlackUserRequest> request = new HttpEntity<>(slackUserRequest, setupBaseHttpHeaders());
-
-        List<UserDTO> result;
         try {
-            logger.debug("Started request to Users service. Request is : [{}]", request.toString());
-            ResponseEntity<UserDTO[]> response = restTemplate.exchange(urlBase + version + urlGetUsers,
-                    HttpMethod.POST, request, UserDTO[].class);
-            logger.debug("Finished request to Users service. Response is: [{}]", response.toString());
-            result = Arrays.asList(response.getBody());
+            logger.debug("Started request to Users service. Request is : [{}]", slackUserRequest);
+            int count;
+            if (usersHedger.isEnabled()) {
+                List<UserDTO> users = usersRetrier.execute(() -> usersHedger.execute(instance -> {
+                    List<UserDTO> read = new ArrayList<>();
+                    requestUsers(instance, slackUserRequest, read::add);
+                    return read;
+                }), true);
+                users.forEach(consumer);
+                count = users.size();
+            } else {
+                count = usersRetrier.execute(() -> usersBalancer.execute(instance -> {
+                    restart.run();
+                    return requestUsers(instance, slackUserRequest, consumer);
+                }), true);
+            }
+            logger.debug("Finished request to Users service. Read {} users", count);
+            return count;
         } catch (HttpClientErrorException ex) {
             ApiError error = convertToApiError(ex);
             logger.warn("Users service returned an error: [{}]", error);
             throw new UserExchangeException(error, ex);
         }
+    }
 
-        logger.info("Got UserDTO:{} by users: {}", result, slackUsers);
-        return result;
+    private int requestUsers(ServiceInstance instance, SlackUserRequest slackUserRequest,
+                             Consumer<UserDTO> consumer) {
+        return restTemplate.execute(usersBySlackUsersUris[instance.getIndex()], HttpMethod.POST,
+                jsonRequestCallback(slackUserRequest, SlackUserRequest.class),
+                response -> readUsers(response.getBody(), consumer));
+    }
+
+    private int readUsers(InputStream body, Consumer<UserDTO> consumer) throws IOException {
+        ObjectReader reader = jsonPayloads.reader(UserDTO.class);
+        try (JsonParser parser = reader.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new HttpMessageNotReadableException("Users service response is not an array of users");
+            }
+            int count = 0;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                consumer.accept(reader.readValue(parser));
+                count++;
+            }
+            return count;
+        } catch (JsonProcessingException ex) {
+            throw new HttpMessageNotReadableException("Could not read users: " + ex.getMessage(), ex);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,28 @@
+package ua.com.juja.microservices.keepers.slackbot.endpoint;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ua.com.juja.microservices.keepers.slackbot.cache.UnknownSlackUsersCache;
+import ua.com.juja.microservices.keepers.slackbot.shutdown.DrainableExecutor;
+import ua.com.juja.microservices.keepers.slackbot.warmup.WarmUp;
+
+import javax.inject.Named;
+
+/**
+ * Management endpoints of the bot. They are declared here and not scanned as components, because MVC endpoints
+ * are web configurers and would be picked up by web slice tests.
+ */
+@Configuration
+public class EndpointsConfiguration {
+
+    @Bean
+    public UnknownSlackUsersEndpoint unknownSlackUsersEndpoint(UnknownSlackUsersCache unknownSlackUsersCache) {
+        return new UnknownSlackUsersEndpoint(unknownSlackUsersCache);
+    }
+
+    @Bean
+    public ReadinessEndpoint readinessEndpoint(WarmUp warmUp,
+                                               @Named("slackCommandExecutor") DrainableExecutor slackCommandExecutor) {
+        return new ReadinessEndpoint(warmUp, slackCommandExecutor);
+    }
+}
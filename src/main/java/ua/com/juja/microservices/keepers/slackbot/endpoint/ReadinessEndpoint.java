@@ -0,0 +1,37 @@
+package ua.com.juja.microservices.keepers.slackbot.endpoint;
+
+import org.springframework.boot.actuate.endpoint.mvc.AbstractMvcEndpoint;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import ua.com.juja.microservices.keepers.slackbot.shutdown.DrainableExecutor;
+import ua.com.juja.microservices.keepers.slackbot.warmup.WarmUp;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Readiness probe for the load balancer: 503 until the warm-up has finished and again when the graceful shutdown
+ * has started, 200 in between. It is not sensitive, so the load balancer doesn't need credentials.
+ */
+public class ReadinessEndpoint extends AbstractMvcEndpoint {
+    private WarmUp warmUp;
+    private DrainableExecutor slackCommandExecutor;
+
+    public ReadinessEndpoint(WarmUp warmUp, DrainableExecutor slackCommandExecutor) {
+        super("/ready", false);
+        this.warmUp = warmUp;
+        this.slackCommandExecutor = slackCommandExecutor;
+    }
+
+    @GetMapping
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> ready() {
+        if (warmUp.isFinished() && slackCommandExecutor.isAccepting()) {
+            return ResponseEntity.ok(Collections.singletonMap("status", "UP"));
+        }
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Collections.singletonMap("status", "OUT_OF_SERVICE"));
+    }
+}
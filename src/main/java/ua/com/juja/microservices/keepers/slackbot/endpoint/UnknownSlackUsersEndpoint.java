@@ -0,0 +1,46 @@
+package ua.com.juja.microservices.keepers.slackbot.endpoint;
+
+import org.springframework.boot.actuate.endpoint.mvc.AbstractMvcEndpoint;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.ResponseBody;
+import ua.com.juja.microservices.keepers.slackbot.cache.UnknownSlackUsersCache;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Management endpoint to look at the negative cache of unknown slack ids and to purge it manually,
+ * e.g. after a user is registered in the Users service. It is sensitive as the other actuator endpoints.
+ */
+public class UnknownSlackUsersEndpoint extends AbstractMvcEndpoint {
+    private UnknownSlackUsersCache unknownSlackUsersCache;
+
+    public UnknownSlackUsersEndpoint(UnknownSlackUsersCache unknownSlackUsersCache) {
+        super("/unknownSlackUsers", true);
+        this.unknownSlackUsersCache = unknownSlackUsersCache;
+    }
+
+    @GetMapping
+    @ResponseBody
+    public Map<String, Object> unknownSlackUsers() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", unknownSlackUsersCache.isEnabled());
+        result.put("slackUsers", unknownSlackUsersCache.unknownSlackUsers());
+        return result;
+    }
+
+    @DeleteMapping
+    @ResponseBody
+    public Map<String, Object> purge() {
+        return Collections.singletonMap("purged", unknownSlackUsersCache.purge());
+    }
+
+    @DeleteMapping("/{slackUser}")
+    @ResponseBody
+    public Map<String, Object> purge(@PathVariable("slackUser") String slackUser) {
+        return Collections.singletonMap("purged", unknownSlackUsersCache.purge(slackUser) ? 1 : 0);
+    }
+}
@@ -7,7 +7,7 @@ public class BaseBotException extends RuntimeException {
     private final ApiError error;
 
     public BaseBotException(ApiError error, Exception ex) {
-        super(error.getClientMessage(), ex);
+        super(error.getClientMessage(), ex, false, ExpectedExceptions.WRITABLE_STACK_TRACE);
         this.error = error;
     }
 
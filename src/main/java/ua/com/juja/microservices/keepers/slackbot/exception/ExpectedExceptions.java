@@ -0,0 +1,18 @@
+package ua.com.juja.microservices.keepers.slackbot.exception;
+
+/**
+ * Settings of exceptions that are an expected part of the command flow: typos in commands and errors returned by
+ * remote services. They are created without a stack trace, because the trace is never used for them and capturing
+ * it is the most expensive part of throwing. Set the system property
+ * {@code keepers.slackBot.exceptions.stackTraces=true} to capture traces while debugging.
+ */
+public final class ExpectedExceptions {
+    static final boolean WRITABLE_STACK_TRACE = Boolean.getBoolean("keepers.slackBot.exceptions.stackTraces");
+
+    private ExpectedExceptions() {
+    }
+
+    public static boolean isExpected(Throwable ex) {
+        return ex instanceof WrongCommandFormatException || ex instanceof BaseBotException;
+    }
+}
@@ -5,6 +5,6 @@ package ua.com.juja.microservices.keepers.slackbot.exception;
  */
 public class WrongCommandFormatException extends RuntimeException {
     public WrongCommandFormatException(String message) {
-        super(message);
+        super(message, null, false, ExpectedExceptions.WRITABLE_STACK_TRACE);
     }
 }
\ No newline at end of file
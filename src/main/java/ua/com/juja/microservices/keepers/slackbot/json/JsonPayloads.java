@@ -0,0 +1,71 @@
+package ua.com.juja.microservices.keepers.slackbot.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import me.ramswaroop.jbot.core.slack.models.RichMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+import ua.com.juja.microservices.keepers.slackbot.exception.ApiError;
+import ua.com.juja.microservices.keepers.slackbot.model.dto.SlackUserRequest;
+import ua.com.juja.microservices.keepers.slackbot.model.dto.UserDTO;
+import ua.com.juja.microservices.keepers.slackbot.model.request.KeeperRequest;
+
+import javax.inject.Inject;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The single place where JSON payloads of the bot are (de)serialized. It holds one tuned {@link ObjectMapper}
+ * and thread-safe readers and writers for all payload types, built once at startup.
+ */
+@Component
+public class JsonPayloads {
+    private static final Class<?>[] PAYLOAD_TYPES = {
+            KeeperRequest.class, SlackUserRequest.class, UserDTO.class, UserDTO[].class,
+            String[].class, ApiError.class, RichMessage.class};
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final ObjectMapper objectMapper;
+    private final Map<Class<?>, ObjectReader> readers;
+    private final Map<Class<?>, ObjectWriter> writers;
+
+    @Inject
+    public JsonPayloads(@Value("${keepers.slackBot.json.afterburner:false}") boolean afterburner) {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        if (afterburner) {
+            builder.modulesToInstall(new AfterburnerModule());
+        }
+        objectMapper = builder.build();
+
+        Map<Class<?>, ObjectReader> readers = new HashMap<>();
+        Map<Class<?>, ObjectWriter> writers = new HashMap<>();
+        for (Class<?> type : PAYLOAD_TYPES) {
+            readers.put(type, objectMapper.readerFor(type));
+            writers.put(type, objectMapper.writerFor(type));
+        }
+        this.readers = Collections.unmodifiableMap(readers);
+        this.writers = Collections.unmodifiableMap(writers);
+        logger.info("Prepared JSON readers and writers for {} payload types, afterburner: {}", PAYLOAD_TYPES.length,
+                afterburner);
+    }
+
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    public ObjectReader reader(Class<?> type) {
+        ObjectReader reader = readers.get(type);
+        return reader != null ? reader : objectMapper.readerFor(type);
+    }
+
+    public ObjectWriter writer(Class<?> type) {
+        ObjectWriter writer = writers.get(type);
+        return writer != null ? writer : objectMapper.writerFor(type);
+    }
+}
@@ -6,6 +6,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ua.com.juja.microservices.keepers.slackbot.exception.WrongCommandFormatException;
 import ua.com.juja.microservices.keepers.slackbot.model.dto.UserDTO;
+import ua.com.juja.microservices.keepers.slackbot.template.MessageTemplate;
 
 import java.util.List;
 
@@ -18,8 +19,8 @@ import java.util.List;
 public class SlackParsedCommand {
     public static final String SLACK_USER_PATTERN = "\\<@(.*?)(\\||\\>)";
     public static final String SLACK_USER_FULL_PATTERN = "\\<@(.*?)(\\>)";
-    public static final String SLACK_USER_WRAPPER_FULL_PATTERN = "<@%s>";
-    public static final String SLACK_USER_WRAPPER_PARTIAL_PATTERN = "<@%1$s|%1$s>";
+    private static final MessageTemplate SLACK_USER_WRAPPER_FULL = MessageTemplate.compile("<@{0}>");
+    private static final MessageTemplate SLACK_USER_WRAPPER_PARTIAL = MessageTemplate.compile("<@{0}|{0}>");
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
     private UserDTO fromUser;
@@ -35,11 +36,11 @@ public class SlackParsedCommand {
     }
 
     public static String wrapSlackUserInFullPattern(String slackUser) {
-        return String.format(SLACK_USER_WRAPPER_FULL_PATTERN, slackUser);
+        return SLACK_USER_WRAPPER_FULL.render(slackUser);
     }
 
     public static String wrapSlackUserInPartialPattern(String slackUser) {
-        return String.format(SLACK_USER_WRAPPER_PARTIAL_PATTERN, slackUser);
+        return SLACK_USER_WRAPPER_PARTIAL.render(slackUser);
     }
 
     public List<UserDTO> getAllUsersFromText() {
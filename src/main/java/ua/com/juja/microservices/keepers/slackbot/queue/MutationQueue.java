@@ -0,0 +1,162 @@
+package ua.com.juja.microservices.keepers.slackbot.queue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import ua.com.juja.microservices.keepers.slackbot.json.JsonPayloads;
+import ua.com.juja.microservices.keepers.slackbot.model.dto.UserDTO;
+import ua.com.juja.microservices.keepers.slackbot.model.request.KeeperRequest;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Durable local queue of keeper mutations accepted while the Keepers service was unavailable. It is an
+ * append-only file of lines: {@code +<mutation json>} when a mutation is queued and {@code -<sequence>} when it
+ * is done, each forced to disk before the call returns. Pending mutations are rebuilt from the file at startup.
+ * The file is truncated when nothing is pending and it has grown over {@code keepers.mutations.queue.compactSize}.
+ * Disabled when no file is configured.
+ */
+@Component
+public class MutationQueue {
+    private static final char QUEUED = '+';
+    private static final char DONE = '-';
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final Map<Long, QueuedMutation> pending = new LinkedHashMap<>();
+
+    @Value("${keepers.mutations.queue.file}")
+    private String file;
+    @Value("${keepers.mutations.queue.compactSize}")
+    private long compactSize;
+
+    private JsonPayloads jsonPayloads;
+    private FileChannel channel;
+    private long nextSequence = 1;
+
+    @Inject
+    public MutationQueue(JsonPayloads jsonPayloads) {
+        this.jsonPayloads = jsonPayloads;
+    }
+
+    public boolean isEnabled() {
+        return StringUtils.hasText(file);
+    }
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        Path path = Paths.get(file);
+        if (Files.exists(path)) {
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                load(line);
+            }
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        logger.info("Opened mutation queue [{}] with {} pending mutations", file, pending.size());
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * @throws UncheckedIOException if the mutation cannot be written to disk; it isn't queued then
+     */
+    public synchronized QueuedMutation enqueue(QueuedMutation.Action action, KeeperRequest keeperRequest,
+                                               UserDTO keeper, String responseUrl) {
+        QueuedMutation mutation = new QueuedMutation(nextSequence, action, keeperRequest.getFrom(),
+                keeperRequest.getUuid(), keeper.getSlackUser(), keeperRequest.getDirection(), responseUrl,
+                System.currentTimeMillis());
+        try {
+            append(QUEUED + jsonPayloads.getObjectMapper().writeValueAsString(mutation));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        nextSequence++;
+        pending.put(mutation.getSequence(), mutation);
+        logger.info("Queued mutation: [{}]", mutation);
+        return mutation;
+    }
+
+    public synchronized void markDone(long sequence) {
+        if (pending.remove(sequence) == null) {
+            return;
+        }
+        try {
+            append(DONE + Long.toString(sequence));
+            if (pending.isEmpty() && channel.size() > compactSize) {
+                channel.truncate(0);
+                channel.force(true);
+                logger.info("Compacted mutation queue [{}]", file);
+            }
+        } catch (IOException ex) {
+            logger.warn("Cannot mark mutation [{}] as done, it will be replayed again after restart: [{}]",
+                    sequence, ex.getMessage());
+        }
+    }
+
+    public synchronized List<QueuedMutation> pending() {
+        return new ArrayList<>(pending.values());
+    }
+
+    public synchronized boolean hasPending(String key) {
+        for (QueuedMutation mutation : pending.values()) {
+            if (mutation.getKey().equals(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void append(String line) throws IOException {
+        if (channel == null) {
+            throw new IOException(String.format("Mutation queue [%s] is not open", file));
+        }
+        ByteBuffer buffer = ByteBuffer.wrap((line + '\n').getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+    }
+
+    private void load(String line) {
+        if (line.isEmpty()) {
+            return;
+        }
+        try {
+            if (line.charAt(0) == QUEUED) {
+                QueuedMutation mutation = jsonPayloads.reader(QueuedMutation.class).readValue(line.substring(1));
+                pending.put(mutation.getSequence(), mutation);
+                nextSequence = Math.max(nextSequence, mutation.getSequence() + 1);
+            } else if (line.charAt(0) == DONE) {
+                pending.remove(Long.parseLong(line.substring(1)));
+            }
+        } catch (IOException | NumberFormatException ex) {
+            logger.warn("Skipped unreadable line of mutation queue [{}]: [{}]", file, ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package ua.com.juja.microservices.keepers.slackbot.queue;
+
+import me.ramswaroop.jbot.core.slack.models.RichMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+import ua.com.juja.microservices.keepers.slackbot.concurrent.KeyedSerialExecutor;
+import ua.com.juja.microservices.keepers.slackbot.concurrent.LimitExceededException;
+import ua.com.juja.microservices.keepers.slackbot.shutdown.DrainableExecutor;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Replays the {@link MutationQueue} against the Keepers service on the background executor. The mutations of one
+ * keeper and direction are applied in queue order, up to {@code keepers.mutations.queue.replayParallelism} keys
+ * at a time, and each outcome is reported to the Slack response url of the command. The round stops at the first
+ * mutation that still cannot reach the Keepers service, or is rejected by its concurrency limiter; it is tried
+ * again in the next round.
+ */
+@Component
+public class MutationReplayer {
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Value("${keepers.mutations.queue.replayParallelism}")
+    private int parallelism;
+
+    private MutationQueue mutationQueue;
+    private QueuedMutationHandler mutationHandler;
+    private KeyedSerialExecutor keeperMutationExecutor;
+    private ExecutorService backgroundExecutor;
+    private RestTemplate restTemplate;
+    private DrainableExecutor slackDeliveryExecutor;
+
+    @Inject
+    public MutationReplayer(MutationQueue mutationQueue, QueuedMutationHandler mutationHandler,
+                            KeyedSerialExecutor keeperMutationExecutor,
+                            @Named("keepersBackgroundExecutor") ExecutorService backgroundExecutor,
+                            RestTemplate restTemplate,
+                            @Named("slackDeliveryExecutor") DrainableExecutor slackDeliveryExecutor) {
+        this.mutationQueue = mutationQueue;
+        this.mutationHandler = mutationHandler;
+        this.keeperMutationExecutor = keeperMutationExecutor;
+        this.backgroundExecutor = backgroundExecutor;
+        this.restTemplate = restTemplate;
+        this.slackDeliveryExecutor = slackDeliveryExecutor;
+    }
+
+    @Scheduled(initialDelayString = "${keepers.mutations.queue.replayPeriod}",
+            fixedDelayString = "${keepers.mutations.queue.replayPeriod}")
+    public void replay() throws InterruptedException {
+        if (!mutationQueue.isEnabled()) {
+            return;
+        }
+        List<QueuedMutation> mutations = mutationQueue.pending();
+        if (mutations.isEmpty()) {
+            return;
+        }
+        logger.info("Started replay of {} queued mutations", mutations.size());
+        Map<String, List<QueuedMutation>> mutationsByKey = new LinkedHashMap<>();
+        for (QueuedMutation mutation : mutations) {
+            mutationsByKey.computeIfAbsent(mutation.getKey(), key -> new ArrayList<>()).add(mutation);
+        }
+
+        Semaphore permits = new Semaphore(Math.max(1, parallelism));
+        AtomicBoolean unavailable = new AtomicBoolean();
+        List<CompletableFuture<Void>> replays = new ArrayList<>();
+        for (Map.Entry<String, List<QueuedMutation>> entry : mutationsByKey.entrySet()) {
+            permits.acquire();
+            if (unavailable.get()) {
+                permits.release();
+                break;
+            }
+            replays.add(keeperMutationExecutor
+                    .submit(entry.getKey(), () -> replay(entry.getValue(), unavailable), backgroundExecutor)
+                    .whenComplete((result, ex) -> permits.release()));
+        }
+        CompletableFuture.allOf(replays.toArray(new CompletableFuture<?>[0])).handle((result, ex) -> null).join();
+        logger.info("Finished replay, {} mutations are still queued", mutationQueue.pending().size());
+    }
+
+    private Void replay(List<QueuedMutation> mutations, AtomicBoolean unavailable) {
+        for (QueuedMutation mutation : mutations) {
+            if (unavailable.get()) {
+                return null;
+            }
+            String report;
+            try {
+                report = mutationHandler.applyQueuedMutation(mutation);
+            } catch (ResourceAccessException ex) {
+                logger.info("Keepers service is still unavailable: [{}]", ex.getMessage());
+                unavailable.set(true);
+                return null;
+            } catch (LimitExceededException ex) {
+                logger.info("Keepers service is busy: [{}]", ex.getMessage());
+                unavailable.set(true);
+                return null;
+            }
+            mutationQueue.markDone(mutation.getSequence());
+            logger.info("Replayed queued mutation [{}]: [{}]", mutation, report);
+            sendReport(mutation.getResponseUrl(), report);
+        }
+        return null;
+    }
+
+    private void sendReport(String responseUrl, String report) {
+        if (responseUrl == null) {
+            return;
+        }
+        try {
+            slackDeliveryExecutor.execute(String.format("report [%s] to [%s]", report, responseUrl), () -> {
+                try {
+                    restTemplate.postForObject(responseUrl, new RichMessage(report), String.class);
+                } catch (Exception ex) {
+                    logger.warn("Delivery of the report to Slack failed: [{}]", ex.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            logger.warn("Report [{}] to [{}] was not delivered: [{}]", report, responseUrl, ex.getMessage());
+        }
+    }
+}
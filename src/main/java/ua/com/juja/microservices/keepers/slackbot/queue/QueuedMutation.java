@@ -0,0 +1,57 @@
+package ua.com.juja.microservices.keepers.slackbot.queue;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import ua.com.juja.microservices.keepers.slackbot.cache.DirectionRegistry;
+
+/**
+ * Keeper mutation accepted while the Keepers service was unavailable, as it is stored in the {@link MutationQueue}
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class QueuedMutation {
+    public enum Action {
+        ADD, DEACTIVATE
+    }
+
+    private final long sequence;
+    private final Action action;
+    private final String from;
+    private final String uuid;
+    private final String slackUser;
+    private final String direction;
+    private final String responseUrl;
+    private final long queuedAt;
+
+    @JsonCreator
+    public QueuedMutation(@JsonProperty("sequence") long sequence, @JsonProperty("action") Action action,
+                          @JsonProperty("from") String from, @JsonProperty("uuid") String uuid,
+                          @JsonProperty("slackUser") String slackUser, @JsonProperty("direction") String direction,
+                          @JsonProperty("responseUrl") String responseUrl, @JsonProperty("queuedAt") long queuedAt) {
+        this.sequence = sequence;
+        this.action = action;
+        this.from = from;
+        this.uuid = uuid;
+        this.slackUser = slackUser;
+        this.direction = direction;
+        this.responseUrl = responseUrl;
+        this.queuedAt = queuedAt;
+    }
+
+    /**
+     * Mutations with the same key have to be applied in order
+     */
+    public static String key(String keeperUuid, String direction) {
+        return keeperUuid + '/' + DirectionRegistry.normalize(direction);
+    }
+
+    @JsonIgnore
+    public String getKey() {
+        return key(uuid, direction);
+    }
+}
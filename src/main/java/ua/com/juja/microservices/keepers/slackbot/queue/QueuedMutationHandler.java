@@ -0,0 +1,16 @@
+package ua.com.juja.microservices.keepers.slackbot.queue;
+
+/**
+ * Applies the mutations replayed from the {@link MutationQueue}
+ */
+public interface QueuedMutationHandler {
+
+    /**
+     * Throws {@link org.springframework.web.client.ResourceAccessException} while the Keepers service is still
+     * unavailable and {@link ua.com.juja.microservices.keepers.slackbot.concurrent.LimitExceededException} while
+     * it is too busy.
+     *
+     * @return the report for the user
+     */
+    String applyQueuedMutation(QueuedMutation mutation);
+}
@@ -7,11 +7,13 @@ package ua.com.juja.microservices.keepers.slackbot.service;
  * @author Oleksii Skachkov
  */
 public interface KeeperService {
-    String sendKeeperAddRequest(String fromSlackUser, String text);
+    String sendKeeperAddRequest(String fromSlackUser, String text, String responseUrl);
 
-    String sendKeeperDeactivateRequest(String fromSlackUser, String text);
+    String sendKeeperDeactivateRequest(String fromSlackUser, String text, String responseUrl);
 
     String getKeeperDirections(String fromSlackUser, String text);
 
     String getMyDirections(String fromSlackUser);
+
+    String getDirectionKeepers(String fromSlackUser, String text);
 }
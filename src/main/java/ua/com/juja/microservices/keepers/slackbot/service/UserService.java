@@ -3,6 +3,7 @@ package ua.com.juja.microservices.keepers.slackbot.service;
 import ua.com.juja.microservices.keepers.slackbot.model.dto.UserDTO;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Nikolay Horushko
@@ -10,4 +11,6 @@ import java.util.List;
  */
 public interface UserService {
     List<UserDTO> findUsersBySlackUsers(List<String> slackUsers);
+
+    void collectUsersBySlackUsers(List<String> slackUsers, Map<String, UserDTO> users);
 }
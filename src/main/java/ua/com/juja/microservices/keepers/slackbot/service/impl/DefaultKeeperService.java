@@ -3,15 +3,38 @@ package ua.com.juja.microservices.keepers.slackbot.service.impl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.ResourceAccessException;
+import ua.com.juja.microservices.keepers.slackbot.cache.KeeperDirections;
+import ua.com.juja.microservices.keepers.slackbot.cache.KeeperDirectionsCache;
+import ua.com.juja.microservices.keepers.slackbot.cache.KeepersByDirectionIndex;
+import ua.com.juja.microservices.keepers.slackbot.cache.RecentMutationsOverlay;
+import ua.com.juja.microservices.keepers.slackbot.concurrent.Deadline;
+import ua.com.juja.microservices.keepers.slackbot.concurrent.KeyedSerialExecutor;
+import ua.com.juja.microservices.keepers.slackbot.concurrent.LimitExceededException;
 import ua.com.juja.microservices.keepers.slackbot.dao.KeeperRepository;
+import ua.com.juja.microservices.keepers.slackbot.exception.BaseBotException;
 import ua.com.juja.microservices.keepers.slackbot.exception.WrongCommandFormatException;
 import ua.com.juja.microservices.keepers.slackbot.model.SlackParsedCommand;
 import ua.com.juja.microservices.keepers.slackbot.model.dto.UserDTO;
 import ua.com.juja.microservices.keepers.slackbot.model.request.KeeperRequest;
+import ua.com.juja.microservices.keepers.slackbot.queue.MutationQueue;
+import ua.com.juja.microservices.keepers.slackbot.queue.QueuedMutation;
+import ua.com.juja.microservices.keepers.slackbot.queue.QueuedMutationHandler;
 import ua.com.juja.microservices.keepers.slackbot.service.KeeperService;
+import ua.com.juja.microservices.keepers.slackbot.template.Message;
+import ua.com.juja.microservices.keepers.slackbot.template.MessageTemplates;
 
 import javax.inject.Inject;
+import javax.inject.Named;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
 
 /**
  * @author Nikolay Horushko
@@ -21,62 +44,98 @@ import java.util.Arrays;
  * @author Oleksii Skachkov
  */
 @Service
-public class DefaultKeeperService implements KeeperService {
+public class DefaultKeeperService implements KeeperService, QueuedMutationHandler {
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     private KeeperRepository keeperRepository;
     private SlackUserHandlerService slackUserHandlerService;
+    private KeeperDirectionsCache keeperDirectionsCache;
+    private KeepersByDirectionIndex keepersByDirectionIndex;
+    private RecentMutationsOverlay recentMutationsOverlay;
+    private ExecutorService keepersRequestExecutor;
+    private KeyedSerialExecutor keeperMutationExecutor;
+    private MutationQueue mutationQueue;
+    private MessageTemplates messageTemplates;
 
     @Inject
-    public DefaultKeeperService(KeeperRepository keeperRepository, SlackUserHandlerService slackUserHandlerService) {
+    public DefaultKeeperService(KeeperRepository keeperRepository, SlackUserHandlerService slackUserHandlerService,
+                                KeeperDirectionsCache keeperDirectionsCache,
+                                KeepersByDirectionIndex keepersByDirectionIndex,
+                                RecentMutationsOverlay recentMutationsOverlay,
+                                @Named("keepersRequestExecutor") ExecutorService keepersRequestExecutor,
+                                KeyedSerialExecutor keeperMutationExecutor, MutationQueue mutationQueue,
+                                MessageTemplates messageTemplates) {
         this.keeperRepository = keeperRepository;
         this.slackUserHandlerService = slackUserHandlerService;
+        this.keeperDirectionsCache = keeperDirectionsCache;
+        this.keepersByDirectionIndex = keepersByDirectionIndex;
+        this.recentMutationsOverlay = recentMutationsOverlay;
+        this.keepersRequestExecutor = keepersRequestExecutor;
+        this.keeperMutationExecutor = keeperMutationExecutor;
+        this.mutationQueue = mutationQueue;
+        this.messageTemplates = messageTemplates;
     }
 
     @Override
-    public String sendKeeperAddRequest(String fromSlackUser, String text) {
+    public String sendKeeperAddRequest(String fromSlackUser, String text, String responseUrl) {
         logger.debug("Started create slackParsedCommand and create keeper request");
         SlackParsedCommand slackParsedCommand = slackUserHandlerService.createSlackParsedCommand(fromSlackUser, text);
-        KeeperRequest keeperRequest = new KeeperRequest(slackParsedCommand.getFromUser().getUuid(),
-                receiveToUser(slackParsedCommand).getUuid(),
-                receiveToDirections(slackParsedCommand));
+        List<KeeperRequest> keeperRequests = createKeeperRequests(slackParsedCommand);
 
-        logger.debug("Received KeeperRequest: [{}]", keeperRequest.toString());
-        String[] ids = keeperRepository.addKeeper(keeperRequest);
-        logger.info("Added Keeper: [{}]", Arrays.toString(ids));
+        if (keeperRequests.size() > 1) {
+            return sendSeveralKeeperRequests(keeperRequests, slackParsedCommand, responseUrl,
+                    QueuedMutation.Action.ADD, this::addKeeper,
+                    Message.KEEPER_ADDED, Message.KEEPER_NOT_ADDED_WITH_REASON, Message.KEEPER_ADD_QUEUED);
+        }
+
+        KeeperRequest keeperRequest = keeperRequests.get(0);
+        UserDTO keeper = slackParsedCommand.getFirstUserFromText();
+        String[] ids = join(mutate(QueuedMutation.Action.ADD, keeperRequest, keeper, responseUrl,
+                this::addKeeper));
 
         String result;
 
-        if (ids.length > 0) {
-            result = String.format("Thanks, we added a new Keeper: %s in direction: %s",
+        if (ids == null) {
+            result = messageTemplates.render(Message.KEEPER_ADD_QUEUED,
+                    SlackParsedCommand.wrapSlackUserInFullPattern(keeper.getSlackUser()), keeperRequest.getDirection());
+        } else if (ids.length > 0) {
+            result = messageTemplates.render(Message.KEEPER_ADDED,
                     SlackParsedCommand.wrapSlackUserInFullPattern(slackParsedCommand.getFirstUserFromText().getSlackUser()),
                     keeperRequest.getDirection());
         } else {
-            result = "ERROR. Something went wrong. Keeper was not added :(";
+            result = messageTemplates.render(Message.KEEPER_NOT_ADDED);
         }
         return result;
     }
 
     @Override
-    public String sendKeeperDeactivateRequest(String fromSlackUser, String text) {
+    public String sendKeeperDeactivateRequest(String fromSlackUser, String text, String responseUrl) {
         logger.debug("Started create slackParsedCommand and create keeper request");
         SlackParsedCommand slackParsedCommand = slackUserHandlerService.createSlackParsedCommand(fromSlackUser, text);
-        KeeperRequest keeperRequest = new KeeperRequest(slackParsedCommand.getFromUser().getUuid(),
-                receiveToUser(slackParsedCommand).getUuid(),
-                receiveToDirections(slackParsedCommand));
+        List<KeeperRequest> keeperRequests = createKeeperRequests(slackParsedCommand);
 
-        logger.debug("Received KeeperRequest: [{}]", keeperRequest.toString());
-        String[] ids = keeperRepository.deactivateKeeper(keeperRequest);
-        logger.info("Deactivated Keeper: [{}]", Arrays.toString(ids));
+        if (keeperRequests.size() > 1) {
+            return sendSeveralKeeperRequests(keeperRequests, slackParsedCommand, responseUrl,
+                    QueuedMutation.Action.DEACTIVATE, this::deactivateKeeper,
+                    Message.KEEPER_DEACTIVATED, Message.KEEPER_NOT_DEACTIVATED_WITH_REASON, Message.KEEPER_DEACTIVATE_QUEUED);
+        }
+
+        KeeperRequest keeperRequest = keeperRequests.get(0);
+        UserDTO keeper = slackParsedCommand.getFirstUserFromText();
+        String[] ids = join(mutate(QueuedMutation.Action.DEACTIVATE, keeperRequest, keeper, responseUrl,
+                this::deactivateKeeper));
 
         String result;
 
-        if (ids.length > 0) {
-            result = String.format("Keeper: %s in direction: %s deactivated",
+        if (ids == null) {
+            result = messageTemplates.render(Message.KEEPER_DEACTIVATE_QUEUED,
+                    SlackParsedCommand.wrapSlackUserInFullPattern(keeper.getSlackUser()), keeperRequest.getDirection());
+        } else if (ids.length > 0) {
+            result = messageTemplates.render(Message.KEEPER_DEACTIVATED,
                     SlackParsedCommand.wrapSlackUserInFullPattern(slackParsedCommand.getFirstUserFromText().getSlackUser()),
                     keeperRequest.getDirection());
         } else {
-            result = "ERROR. Something went wrong. Keeper was not deactivated :(";
+            result = messageTemplates.render(Message.KEEPER_NOT_DEACTIVATED);
         }
         return result;
     }
@@ -85,15 +144,17 @@ public class DefaultKeeperService implements KeeperService {
     public String getKeeperDirections(String fromSlackUser, String text) {
         logger.debug("Started create slackParsedCommand and create keeper request");
         SlackParsedCommand slackParsedCommand = slackUserHandlerService.createSlackParsedCommand(fromSlackUser, text);
+        if (slackParsedCommand.getUserCountInText() > 1) {
+            return getSeveralKeepersDirections(slackParsedCommand);
+        }
         if (slackParsedCommand.getFromUser().equals(slackParsedCommand.getFirstUserFromText())) {
-            throw new WrongCommandFormatException("Your own slack in command. To get your " +
-                    "own directions use another command");
+            throw new WrongCommandFormatException(messageTemplates.render(Message.OWN_SLACK_IN_COMMAND));
         }
         KeeperRequest keeperRequest = new KeeperRequest(slackParsedCommand.getFromUser().getUuid(),
                 slackParsedCommand.getFirstUserFromText().getUuid(),
                 slackParsedCommand.getTextWithoutSlackUsers());
 
-        return getKeeperDirectionsFromRepository(keeperRequest, slackParsedCommand.getFirstUserFromText().getSlackUser());
+        return getKeeperDirectionsFromRepository(keeperRequest, slackParsedCommand.getFirstUserFromText());
     }
 
     @Override
@@ -104,57 +165,269 @@ public class DefaultKeeperService implements KeeperService {
                 slackParsedCommand.getFromUser().getUuid(),
                 slackParsedCommand.getTextWithoutSlackUsers());
 
-        return getKeeperDirectionsFromRepository(keeperRequest, slackParsedCommand.getFirstUserFromText().getSlackUser());
+        return getKeeperDirectionsFromRepository(keeperRequest, slackParsedCommand.getFromUser());
     }
 
-    private String getKeeperDirectionsFromRepository(KeeperRequest keeperRequest, String keeperSlackUser) {
-        logger.debug("Received request to get directions of keeper with uuid: [{}]", keeperRequest.toString());
-        String[] directions = keeperRepository.getKeeperDirections(keeperRequest);
-        logger.info("Received response from keeperRepository: [{}]", Arrays.toString(directions));
+    @Override
+    public String getDirectionKeepers(String fromSlackUser, String text) {
+        logger.debug("Started search of keepers in direction [{}] for user [{}]", text, fromSlackUser);
+        String textWithoutSpaces = text.replaceAll("\\s+", " ").trim();
 
-        String responseMessage = "The keeper " + SlackParsedCommand.wrapSlackUserInFullPattern(keeperSlackUser) +
-                " has no active directions.";
+        if (textWithoutSpaces.length() == 0) {
+            String[] directions = keepersByDirectionIndex.findDirectionsWithoutKeepers();
+            logger.info("Found directions without keepers: {}", Arrays.toString(directions));
+            if (directions.length == 0) {
+                return messageTemplates.render(Message.ALL_DIRECTIONS_HAVE_KEEPERS);
+            }
+            return messageTemplates.render(Message.DIRECTIONS_WITHOUT_KEEPERS, (Object) directions);
+        }
 
-        if (directions.length > 0) {
-            responseMessage = "The keeper " + SlackParsedCommand.wrapSlackUserInFullPattern(keeperSlackUser) +
-                    " has active directions: " + Arrays.toString(directions);
+        String[] directions = Arrays.stream(textWithoutSpaces.split(" "))
+                .map(keepersByDirectionIndex::knownName)
+                .distinct()
+                .toArray(String[]::new);
+        List<UserDTO> keepers = keepersByDirectionIndex.findKeepersOfAll(directions);
+        logger.info("Found keepers: [{}] in directions: {}", keepers, Arrays.toString(directions));
+
+        List<String> keeperSlackUsers = keepers.stream()
+                .map(keeper -> SlackParsedCommand.wrapSlackUserInFullPattern(keeper.getSlackUser()))
+                .collect(Collectors.toList());
+
+        if (directions.length > 1) {
+            if (keepers.isEmpty()) {
+                return messageTemplates.render(Message.DIRECTIONS_HAVE_NO_COMMON_KEEPERS, (Object) directions);
+            }
+            return messageTemplates.render(Message.DIRECTIONS_HAVE_COMMON_KEEPERS, directions, keeperSlackUsers);
+        }
+
+        if (keepers.isEmpty()) {
+            return messageTemplates.render(Message.DIRECTION_HAS_NO_KEEPERS, directions[0]);
+        }
+        return messageTemplates.render(Message.DIRECTION_HAS_KEEPERS, directions[0], keeperSlackUsers);
+    }
+
+    private String getSeveralKeepersDirections(SlackParsedCommand slackParsedCommand) {
+        List<UserDTO> keepers = slackParsedCommand.getAllUsersFromText();
+        logger.debug("Started parallel requests to get directions of {} keepers", keepers.size());
+
+        List<CompletableFuture<String>> responses = keepers.stream()
+                .map(keeper -> CompletableFuture
+                        .supplyAsync(Deadline.propagate(() -> getKeeperDirectionsFromRepository(
+                                new KeeperRequest(slackParsedCommand.getFromUser().getUuid(), keeper.getUuid(),
+                                        slackParsedCommand.getTextWithoutSlackUsers()),
+                                keeper)), keepersRequestExecutor)
+                        .exceptionally(ex -> messageTemplates.render(Message.CANNOT_GET_KEEPER_DIRECTIONS,
+                                SlackParsedCommand.wrapSlackUserInFullPattern(keeper.getSlackUser()),
+                                convertToFailureMessage(ex))))
+                .collect(Collectors.toList());
+
+        return responses.stream()
+                .map(CompletableFuture::join)
+                .collect(Collectors.joining("\n"));
+    }
+
+    private String[] addKeeper(KeeperRequest keeperRequest, UserDTO keeper) {
+        logger.debug("Received KeeperRequest: [{}]", keeperRequest.toString());
+        String[] ids = keeperRepository.addKeeper(keeperRequest);
+        keeperDirectionsCache.evict(keeperRequest.getUuid());
+        if (ids.length > 0) {
+            keepersByDirectionIndex.onKeeperAdded(keeper, keeperRequest.getDirection());
+            recentMutationsOverlay.onKeeperAdded(keeperRequest.getUuid(), keeperRequest.getDirection());
+        }
+        logger.info("Added Keeper: [{}]", Arrays.toString(ids));
+        return ids;
+    }
+
+    private String[] deactivateKeeper(KeeperRequest keeperRequest, UserDTO keeper) {
+        logger.debug("Received KeeperRequest: [{}]", keeperRequest.toString());
+        String[] ids = keeperRepository.deactivateKeeper(keeperRequest);
+        keeperDirectionsCache.evict(keeperRequest.getUuid());
+        if (ids.length > 0) {
+            keepersByDirectionIndex.onKeeperDeactivated(keeper, keeperRequest.getDirection());
+            recentMutationsOverlay.onKeeperDeactivated(keeperRequest.getUuid(), keeperRequest.getDirection());
+        }
+        logger.info("Deactivated Keeper: [{}]", Arrays.toString(ids));
+        return ids;
+    }
+
+    @Override
+    public String applyQueuedMutation(QueuedMutation mutation) {
+        KeeperRequest keeperRequest = new KeeperRequest(mutation.getFrom(), mutation.getUuid(), mutation.getDirection());
+        UserDTO keeper = new UserDTO(mutation.getUuid(), mutation.getSlackUser());
+        String slackUser = SlackParsedCommand.wrapSlackUserInFullPattern(mutation.getSlackUser());
+        boolean add = mutation.getAction() == QueuedMutation.Action.ADD;
+        Message failureMessage = add ? Message.KEEPER_NOT_ADDED_WITH_REASON : Message.KEEPER_NOT_DEACTIVATED_WITH_REASON;
+
+        String[] ids;
+        try {
+            ids = add ? addKeeper(keeperRequest, keeper) : deactivateKeeper(keeperRequest, keeper);
+        } catch (ResourceAccessException | LimitExceededException ex) {
+            throw ex;
+        } catch (RuntimeException ex) {
+            return messageTemplates.render(failureMessage, slackUser, mutation.getDirection(),
+                    convertToFailureMessage(ex));
+        }
+        if (ids.length == 0) {
+            return messageTemplates.render(failureMessage, slackUser, mutation.getDirection(),
+                    messageTemplates.render(Message.SOMETHING_WENT_WRONG));
         }
-        return responseMessage;
+        return messageTemplates.render(add ? Message.KEEPER_ADDED : Message.KEEPER_DEACTIVATED, slackUser,
+                mutation.getDirection());
     }
 
-    private UserDTO receiveToUser(SlackParsedCommand slackParsedCommand) {
+    private String sendSeveralKeeperRequests(List<KeeperRequest> keeperRequests, SlackParsedCommand slackParsedCommand,
+                                             String responseUrl, QueuedMutation.Action action,
+                                             BiFunction<KeeperRequest, UserDTO, String[]> keeperAction,
+                                             Message successMessage, Message failureMessage,
+                                             Message queuedMessage) {
+        logger.debug("Started parallel execution of {} keeper requests", keeperRequests.size());
+        Map<String, UserDTO> usersByUuid = slackParsedCommand.getAllUsersFromText().stream()
+                .collect(Collectors.toMap(UserDTO::getUuid, user -> user, (e1, e2) -> e1));
 
-        int userCount = slackParsedCommand.getUserCountInText();
+        List<CompletableFuture<String>> responses = keeperRequests.stream()
+                .map(keeperRequest -> {
+                    UserDTO user = usersByUuid.get(keeperRequest.getUuid());
+                    String keeper = SlackParsedCommand.wrapSlackUserInFullPattern(user.getSlackUser());
+                    return mutate(action, keeperRequest, user, responseUrl, keeperAction)
+                            .thenApply(ids -> ids == null ?
+                                    messageTemplates.render(queuedMessage, keeper, keeperRequest.getDirection()) :
+                                    ids.length > 0 ?
+                                    messageTemplates.render(successMessage, keeper, keeperRequest.getDirection()) :
+                                    messageTemplates.render(failureMessage, keeper, keeperRequest.getDirection(),
+                                            messageTemplates.render(Message.SOMETHING_WENT_WRONG)))
+                            .exceptionally(ex -> messageTemplates.render(failureMessage, keeper,
+                                    keeperRequest.getDirection(), convertToFailureMessage(ex)));
+                })
+                .collect(Collectors.toList());
 
-        if (userCount > 1) {
-            throw new WrongCommandFormatException(String.format("We found %d slack users in your command '%s'. " +
-                            "You can not perform actions with several slack users.",
-                    slackParsedCommand.getUserCountInText(), slackParsedCommand.getText()));
+        return responses.stream()
+                .map(CompletableFuture::join)
+                .collect(Collectors.joining("\n"));
+    }
+
+    /**
+     * Runs the mutation after the earlier ones for the same keeper and direction. When the mutation queue is
+     * enabled, a mutation that cannot reach the Keepers service, or has earlier ones still queued, is queued
+     * instead and completes with null.
+     */
+    private CompletableFuture<String[]> mutate(QueuedMutation.Action action, KeeperRequest keeperRequest,
+                                               UserDTO keeper, String responseUrl,
+                                               BiFunction<KeeperRequest, UserDTO, String[]> keeperAction) {
+        String key = QueuedMutation.key(keeperRequest.getUuid(), keeperRequest.getDirection());
+        return keeperMutationExecutor.submit(key, () -> {
+            if (mutationQueue.hasPending(key)) {
+                mutationQueue.enqueue(action, keeperRequest, keeper, responseUrl);
+                return null;
+            }
+            try {
+                return keeperAction.apply(keeperRequest, keeper);
+            } catch (ResourceAccessException ex) {
+                if (!mutationQueue.isEnabled()) {
+                    throw ex;
+                }
+                logger.warn("Keepers service is unavailable, queueing [{}]: [{}]", keeperRequest, ex.getMessage());
+                try {
+                    mutationQueue.enqueue(action, keeperRequest, keeper, responseUrl);
+                } catch (UncheckedIOException queueEx) {
+                    logger.error("Cannot queue [{}]: [{}]", keeperRequest, queueEx.getMessage());
+                    throw ex;
+                }
+                return null;
+            }
+        });
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
         }
+    }
 
-        if (userCount == 0) {
-            throw new WrongCommandFormatException(String.format("We didn't find any slack user in your command '%s'. " +
-                            "You must write the user's slack to perform the action with keepers.",
+    private String convertToFailureMessage(Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        logger.warn("Request to Keepers service failed: [{}]", cause.getMessage());
+        if (cause instanceof BaseBotException) {
+            return cause.getMessage();
+        }
+        if (cause instanceof ResourceAccessException) {
+            return messageTemplates.render(Message.SERVICE_UNAVAILABLE);
+        }
+        if (cause instanceof LimitExceededException) {
+            return messageTemplates.render(Message.SERVICE_BUSY);
+        }
+        return messageTemplates.render(Message.SOMETHING_WENT_WRONG);
+    }
+
+    private String getKeeperDirectionsFromRepository(KeeperRequest keeperRequest, UserDTO keeper) {
+        logger.debug("Received request to get directions of keeper with uuid: [{}]", keeperRequest.toString());
+        String keeperSlackUser = keeper.getSlackUser();
+        KeeperDirections keeperDirections = keeperDirectionsCache.getOrLoad(keeperRequest.getUuid(), () -> {
+            String[] directions = keeperRepository.getKeeperDirections(keeperRequest);
+            keepersByDirectionIndex.onKeeperDirections(keeper, directions);
+            logger.info("Received response from keeperRepository: [{}]", Arrays.toString(directions));
+            return directions;
+        });
+        String[] directions = recentMutationsOverlay.apply(keeperRequest.getUuid(),
+                keeperDirections.getDirections());
+
+        StringBuilder responseMessage = new StringBuilder(128);
+        if (directions.length > 0) {
+            messageTemplates.get(Message.KEEPER_HAS_DIRECTIONS).appendTo(responseMessage,
+                    SlackParsedCommand.wrapSlackUserInFullPattern(keeperSlackUser), directions);
+        } else {
+            messageTemplates.get(Message.KEEPER_HAS_NO_DIRECTIONS).appendTo(responseMessage,
+                    SlackParsedCommand.wrapSlackUserInFullPattern(keeperSlackUser));
+        }
+        if (keeperDirections.isRestored()) {
+            messageTemplates.get(Message.DIRECTIONS_RESTORED_POSSIBLY_OUTDATED).appendTo(responseMessage);
+        } else if (keeperDirections.isOutdated()) {
+            messageTemplates.get(Message.DIRECTIONS_POSSIBLY_OUTDATED).appendTo(responseMessage);
+        }
+        return responseMessage.toString();
+    }
+
+    private List<KeeperRequest> createKeeperRequests(SlackParsedCommand slackParsedCommand) {
+        List<UserDTO> keepers = receiveToUsers(slackParsedCommand);
+        List<String> directions = receiveToDirections(slackParsedCommand);
+
+        if (keepers.size() > 1 && directions.size() > 1) {
+            throw new WrongCommandFormatException(messageTemplates.render(Message.SEVERAL_USERS_AND_DIRECTIONS,
                     slackParsedCommand.getText()));
         }
 
-        return slackParsedCommand.getFirstUserFromText();
+        String fromUuid = slackParsedCommand.getFromUser().getUuid();
+        return keepers.stream()
+                .flatMap(keeper -> directions.stream()
+                        .map(direction -> new KeeperRequest(fromUuid, keeper.getUuid(), direction)))
+                .collect(Collectors.toList());
     }
 
-    private String receiveToDirections(SlackParsedCommand parsedCommand) {
+    private List<UserDTO> receiveToUsers(SlackParsedCommand slackParsedCommand) {
+
+        if (slackParsedCommand.getUserCountInText() == 0) {
+            throw new WrongCommandFormatException(messageTemplates.render(Message.NO_SLACK_USER,
+                    slackParsedCommand.getText()));
+        }
+
+        return slackParsedCommand.getAllUsersFromText();
+    }
+
+    private List<String> receiveToDirections(SlackParsedCommand parsedCommand) {
 
         String textWithoutSlackUsers = parsedCommand.getTextWithoutSlackUsers();
 
         if (textWithoutSlackUsers.length() == 0) {
-            throw new WrongCommandFormatException(String.format("We didn't find direction in your command '%s'. " +
-                    "You must write the direction to perform the action with keepers.", parsedCommand.getText()));
-        }
-
-        if (textWithoutSlackUsers.split(" ").length > 1) {
-            throw new WrongCommandFormatException(String.format("We found several directions in your command '%s'. " +
-                    "You can perform the action with keepers on one direction only.", parsedCommand.getTextWithoutSlackUsers()));
+            throw new WrongCommandFormatException(messageTemplates.render(Message.NO_DIRECTION,
+                    parsedCommand.getText()));
         }
 
-        return parsedCommand.getTextWithoutSlackUsers();
+        return Arrays.stream(textWithoutSlackUsers.split(" "))
+                .distinct()
+                .collect(Collectors.toList());
     }
 }
\ No newline at end of file
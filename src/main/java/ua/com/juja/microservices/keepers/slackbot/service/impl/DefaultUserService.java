@@ -2,13 +2,23 @@ package ua.com.juja.microservices.keepers.slackbot.service.impl;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import ua.com.juja.microservices.keepers.slackbot.cache.UnknownSlackUsersCache;
+import ua.com.juja.microservices.keepers.slackbot.cache.UserDirectory;
+import ua.com.juja.microservices.keepers.slackbot.cache.UserDirectoryLoader;
 import ua.com.juja.microservices.keepers.slackbot.dao.UserRepository;
 import ua.com.juja.microservices.keepers.slackbot.model.dto.UserDTO;
 import ua.com.juja.microservices.keepers.slackbot.service.UserService;
 
 import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * @author Nikolay Horushko
@@ -17,11 +27,22 @@ import java.util.List;
 @Service
 public class DefaultUserService implements UserService {
     private final UserRepository userRepository;
+    private final UserDirectory userDirectory;
+    private final UnknownSlackUsersCache unknownSlackUsersCache;
+    private final UserDirectoryLoader userDirectoryLoader;
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
+    @Value("${keepers.users.directory.enabled}")
+    private boolean directoryEnabled;
+
     @Inject
-    public DefaultUserService(UserRepository userRepository) {
+    public DefaultUserService(UserRepository userRepository, UserDirectory userDirectory,
+                              UnknownSlackUsersCache unknownSlackUsersCache,
+                              UserDirectoryLoader userDirectoryLoader) {
         this.userRepository = userRepository;
+        this.userDirectory = userDirectory;
+        this.unknownSlackUsersCache = unknownSlackUsersCache;
+        this.userDirectoryLoader = userDirectoryLoader;
     }
 
     @Override
@@ -31,4 +52,81 @@ public class DefaultUserService implements UserService {
         logger.info("Found users: [{}] by SlackUsers: [{}]", users.toString(), slackUsers.toString());
         return users;
     }
+
+    @Override
+    public void collectUsersBySlackUsers(List<String> slackUsers, Map<String, UserDTO> users) {
+        logger.debug("Received SlackUsers: [{}] for conversion", slackUsers.toString());
+        if (directoryEnabled) {
+            collectUsersWithDirectory(slackUsers, users);
+        } else {
+            requestUsers(slackUsers, users);
+        }
+        logger.info("Collected {} users by SlackUsers: [{}]", users.size(), slackUsers.toString());
+    }
+
+    private void collectUsersWithDirectory(List<String> slackUsers, Map<String, UserDTO> users) {
+        Map<String, UserDTO> foundUsers = new HashMap<>();
+        Map<String, UserDTO> staleUsers = new HashMap<>();
+        List<String> missingSlackUsers = new ArrayList<>();
+        boolean serveStale = userDirectoryLoader.canServeStale(false);
+        for (String slackUser : slackUsers) {
+            UserDTO user = userDirectory.find(slackUser);
+            if (user != null && !serveStale && userDirectoryLoader.isStale(slackUser)) {
+                staleUsers.put(slackUser, user);
+                missingSlackUsers.add(slackUser);
+            } else if (user != null) {
+                foundUsers.put(slackUser, user);
+            } else {
+                missingSlackUsers.add(slackUser);
+            }
+        }
+        if (!missingSlackUsers.isEmpty()) {
+            logger.debug("Slack users {} are not in the user directory or restored stale", missingSlackUsers);
+            foundUsers.putAll(loadMissingUsers(missingSlackUsers, staleUsers));
+        }
+        for (String slackUser : slackUsers) {
+            UserDTO user = foundUsers.get(slackUser);
+            if (user != null) {
+                users.putIfAbsent(slackUser, user);
+            }
+        }
+    }
+
+    private Map<String, UserDTO> loadMissingUsers(List<String> missingSlackUsers, Map<String, UserDTO> staleUsers) {
+        Map<String, UserDTO> loadedUsers = new HashMap<>();
+        try {
+            requestUsers(missingSlackUsers, loadedUsers);
+        } catch (ResourceAccessException | HttpServerErrorException ex) {
+            if (staleUsers.isEmpty() || !staleUsers.keySet().containsAll(missingSlackUsers)
+                    || !userDirectoryLoader.canServeStale(true)) {
+                throw ex;
+            }
+            logger.warn("Users service is unavailable: [{}]. Served possibly outdated users {} restored from a snapshot",
+                    ex.getMessage(), staleUsers.keySet());
+            return staleUsers;
+        }
+        loadedUsers.values().forEach(userDirectory::put);
+        staleUsers.keySet().forEach(slackUser -> {
+            if (!loadedUsers.containsKey(slackUser)) {
+                userDirectory.remove(slackUser);
+            }
+            userDirectoryLoader.onRevalidated(slackUser);
+        });
+        return loadedUsers;
+    }
+
+    private void requestUsers(List<String> slackUsers, Map<String, UserDTO> users) {
+        List<String> requestedSlackUsers = slackUsers;
+        if (unknownSlackUsersCache.isEnabled()) {
+            requestedSlackUsers = slackUsers.stream()
+                    .filter(slackUser -> !unknownSlackUsersCache.isUnknown(slackUser))
+                    .collect(Collectors.toList());
+            if (requestedSlackUsers.isEmpty()) {
+                logger.debug("All slack users {} are known to be unknown", slackUsers);
+                return;
+            }
+        }
+        userRepository.collectUsersBySlackUsers(requestedSlackUsers, users);
+        unknownSlackUsersCache.onResolved(requestedSlackUsers, users.keySet());
+    }
 }
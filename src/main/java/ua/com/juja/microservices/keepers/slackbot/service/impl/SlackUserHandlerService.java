@@ -14,7 +14,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 /**
  * @author Nikolay Horushko
@@ -48,11 +47,9 @@ public class SlackUserHandlerService {
         logger.debug("Added 'fromSlackUser' slack user to request: [{}]", fromSlackUser);
         slackUsers.add(fromSlackUser);
         logger.debug("Send slack users: {} to user service", slackUsers);
-        List<UserDTO> users = userService.findUsersBySlackUsers(slackUsers);
-        logger.debug("Receive users: {} from user service", users);
-        Map<String, UserDTO> usersMap = users.stream()
-                .collect(Collectors.toMap(UserDTO::getSlackUser, user -> user, (e1, e2) -> e1, LinkedHashMap::new));
-        logger.debug("Convert users to map '{}'", usersMap);
+        Map<String, UserDTO> usersMap = new LinkedHashMap<>();
+        userService.collectUsersBySlackUsers(slackUsers, usersMap);
+        logger.debug("Receive users map '{}' from user service", usersMap);
         return usersMap;
     }
 
@@ -0,0 +1,28 @@
+package ua.com.juja.microservices.keepers.slackbot.shutdown;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Executors of accepted slash commands and of the replies delivered to Slack. They are drained by
+ * {@link GracefulShutdown}. Queued add and deactivate commands go ahead of the reads which arrived less than
+ * {@code keepers.slackBot.commands.readAging} ms before them. A reply that doesn't fit into the delivery queue
+ * is delivered by the command thread, so a processed command doesn't lose its reply under load.
+ */
+@Configuration
+public class CommandExecutorsConfiguration {
+
+    @Bean
+    public DrainableExecutor slackCommandExecutor(@Value("${keepers.slackBot.commands.poolSize:4}") int poolSize,
+                                                  @Value("${keepers.slackBot.commands.queueCapacity:100}") int queueCapacity,
+                                                  @Value("${keepers.slackBot.commands.readAging:2000}") long readAging) {
+        return new DrainableExecutor("slack-command", poolSize, queueCapacity, readAging);
+    }
+
+    @Bean
+    public DrainableExecutor slackDeliveryExecutor(@Value("${keepers.slackBot.delivery.poolSize:2}") int poolSize,
+                                                   @Value("${keepers.slackBot.delivery.queueCapacity:100}") int queueCapacity) {
+        return new DrainableExecutor("slack-delivery", poolSize, queueCapacity, 0, true);
+    }
+}
@@ -0,0 +1,180 @@
+package ua.com.juja.microservices.keepers.slackbot.shutdown;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Executor which knows every task it has accepted and not finished yet, so it can be drained on shutdown and
+ * report what it had to abandon. With pool size 0 tasks run in the caller thread, but are still tracked.
+ * <p>
+ * Queued tasks are taken in order of arrival, except that a {@link Priority#HIGH} task goes ahead of the normal
+ * ones which arrived less than {@code priorityAging} ms before it. So a normal task waits for later high priority
+ * tasks at most that long and is never starved.
+ * <p>
+ * An executor created with {@code callerRunsWhenFull} runs a task in the caller thread when its queue is full,
+ * so such tasks are rejected only once draining has started.
+ */
+public class DrainableExecutor {
+    public enum Priority {
+        HIGH, NORMAL
+    }
+
+    private final String name;
+    private final int queueCapacity;
+    private final long priorityAging;
+    private final boolean callerRunsWhenFull;
+    private final AtomicLong sequence = new AtomicLong();
+    private final ThreadPoolExecutor executor;
+    private final Set<TrackedTask> inFlight = ConcurrentHashMap.newKeySet();
+    private final Object drainLock = new Object();
+    private volatile boolean accepting = true;
+
+    public DrainableExecutor(String name, int poolSize, int queueCapacity) {
+        this(name, poolSize, queueCapacity, 0);
+    }
+
+    public DrainableExecutor(String name, int poolSize, int queueCapacity, long priorityAging) {
+        this(name, poolSize, queueCapacity, priorityAging, false);
+    }
+
+    public DrainableExecutor(String name, int poolSize, int queueCapacity, long priorityAging,
+                             boolean callerRunsWhenFull) {
+        this.name = name;
+        this.queueCapacity = queueCapacity;
+        this.priorityAging = TimeUnit.MILLISECONDS.toNanos(priorityAging);
+        this.callerRunsWhenFull = callerRunsWhenFull;
+        if (poolSize > 0) {
+            executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                    new PriorityBlockingQueue<>(), new CustomizableThreadFactory(name + "-"));
+        } else {
+            executor = null;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isAccepting() {
+        return accepting;
+    }
+
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * @throws RejectedExecutionException if the executor is draining or its queue is full
+     */
+    public void execute(String description, Runnable task) {
+        execute(description, Priority.NORMAL, task);
+    }
+
+    /**
+     * @throws RejectedExecutionException if the executor is draining or its queue is full and the task may not
+     *                                    run in the caller thread
+     */
+    public void execute(String description, Priority priority, Runnable task) {
+        if (!accepting) {
+            throw new RejectedExecutionException(String.format("%s doesn't accept new tasks", name));
+        }
+        long order = System.nanoTime() - (priority == Priority.HIGH ? priorityAging : 0);
+        TrackedTask trackedTask = new TrackedTask(description, task, order, sequence.getAndIncrement());
+        inFlight.add(trackedTask);
+        if (executor == null) {
+            trackedTask.run();
+            return;
+        }
+        boolean full;
+        try {
+            synchronized (executor) {
+                full = executor.getQueue().size() >= queueCapacity;
+                if (full && !callerRunsWhenFull) {
+                    throw new RejectedExecutionException(String.format("Queue of %s is full", name));
+                }
+                if (!full) {
+                    executor.execute(trackedTask);
+                }
+            }
+        } catch (RejectedExecutionException ex) {
+            inFlight.remove(trackedTask);
+            throw ex;
+        }
+        if (full) {
+            trackedTask.run();
+        }
+    }
+
+    /**
+     * Stops accepting new tasks and waits for the accepted ones until the deadline.
+     *
+     * @return descriptions of the tasks not finished by the deadline; they are interrupted
+     */
+    public List<String> drain(long deadlineNanos) throws InterruptedException {
+        accepting = false;
+        if (executor != null) {
+            executor.shutdown();
+        }
+        synchronized (drainLock) {
+            long remaining;
+            while (!inFlight.isEmpty() && (remaining = deadlineNanos - System.nanoTime()) > 0) {
+                TimeUnit.NANOSECONDS.timedWait(drainLock, remaining);
+            }
+        }
+        List<String> abandoned = inFlight.stream()
+                .map(trackedTask -> trackedTask.description)
+                .collect(Collectors.toList());
+        shutdown();
+        return abandoned;
+    }
+
+    public void shutdown() {
+        accepting = false;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private class TrackedTask implements Runnable, Comparable<TrackedTask> {
+        private final String description;
+        private final Runnable task;
+        private final long order;
+        private final long sequence;
+
+        TrackedTask(String description, Runnable task, long order, long sequence) {
+            this.description = description;
+            this.task = task;
+            this.order = order;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(TrackedTask other) {
+            int byOrder = Long.signum(order - other.order);
+            return byOrder != 0 ? byOrder : Long.compare(sequence, other.sequence);
+        }
+
+        @Override
+        public void run() {
+            try {
+                task.run();
+            } finally {
+                inFlight.remove(this);
+                if (inFlight.isEmpty()) {
+                    synchronized (drainLock) {
+                        drainLock.notifyAll();
+                    }
+                }
+            }
+        }
+    }
+}
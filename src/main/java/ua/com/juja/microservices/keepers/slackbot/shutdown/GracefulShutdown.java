@@ -0,0 +1,89 @@
+package ua.com.juja.microservices.keepers.slackbot.shutdown;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coordinated shutdown of command processing. It is stopped first of all lifecycle beans, while the web server
+ * and the other beans still work: the command executor stops accepting new slash commands, accepted commands are
+ * finished, then their replies are delivered to Slack. Both have to fit into {@code keepers.shutdown.drainTimeout}
+ * milliseconds; whatever is left after it is logged as abandoned.
+ */
+@Component
+public class GracefulShutdown implements SmartLifecycle {
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Value("${keepers.shutdown.drainTimeout}")
+    private long drainTimeout;
+
+    private DrainableExecutor slackCommandExecutor;
+    private DrainableExecutor slackDeliveryExecutor;
+    private volatile boolean running;
+
+    @Inject
+    public GracefulShutdown(@Named("slackCommandExecutor") DrainableExecutor slackCommandExecutor,
+                            @Named("slackDeliveryExecutor") DrainableExecutor slackDeliveryExecutor) {
+        this.slackCommandExecutor = slackCommandExecutor;
+        this.slackDeliveryExecutor = slackDeliveryExecutor;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(drainTimeout);
+        logger.info("Started graceful shutdown: {} commands and {} replies in flight",
+                slackCommandExecutor.inFlight(), slackDeliveryExecutor.inFlight());
+        try {
+            report(slackCommandExecutor, slackCommandExecutor.drain(deadline));
+            report(slackDeliveryExecutor, slackDeliveryExecutor.drain(deadline));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            logger.warn("Graceful shutdown was interrupted");
+            slackCommandExecutor.shutdown();
+            slackDeliveryExecutor.shutdown();
+        } finally {
+            running = false;
+        }
+        logger.info("Finished graceful shutdown");
+    }
+
+    @Override
+    public void stop(Runnable callback) {
+        stop();
+        callback.run();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return true;
+    }
+
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE;
+    }
+
+    private void report(DrainableExecutor executor, List<String> abandoned) {
+        if (!abandoned.isEmpty()) {
+            logger.warn("{} abandoned {} tasks after {} ms: {}", executor.getName(), abandoned.size(), drainTimeout,
+                    abandoned);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package ua.com.juja.microservices.keepers.slackbot.startup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import ua.com.juja.microservices.keepers.slackbot.KeeperSlackBotApplication;
+
+import java.util.Set;
+
+/**
+ * Marks the bot's own beans as lazy, so they are created on first use instead of during the context refresh.
+ * Beans with scheduled or event listener methods and the beans listed in {@code keepers.startup.eagerBeans}
+ * are left eager, because they do their work without being asked for.
+ */
+@Component
+@ConditionalOnProperty(name = "keepers.startup.lazyInit", havingValue = "true")
+public class LazyInitBeanFactoryPostProcessor implements BeanFactoryPostProcessor, EnvironmentAware {
+    private static final String APPLICATION_PACKAGE = KeeperSlackBotApplication.class.getPackage().getName() + ".";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private Set<String> eagerBeans;
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        eagerBeans = StringUtils.commaDelimitedListToSet(
+                StringUtils.trimAllWhitespace(environment.getProperty("keepers.startup.eagerBeans", "")));
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+        int lazyBeans = 0;
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            BeanDefinition definition = beanFactory.getBeanDefinition(beanName);
+            if (canBeLazy(beanName, definition)) {
+                definition.setLazyInit(true);
+                lazyBeans++;
+            }
+        }
+        logger.info("Lazy initialisation is enabled for {} application beans", lazyBeans);
+    }
+
+    private boolean canBeLazy(String beanName, BeanDefinition definition) {
+        if (eagerBeans.contains(beanName) || definition.isLazyInit() || !definition.isSingleton()
+                || definition.getRole() != BeanDefinition.ROLE_APPLICATION
+                || !(definition instanceof AnnotatedBeanDefinition)) {
+            return false;
+        }
+        AnnotatedBeanDefinition annotatedDefinition = (AnnotatedBeanDefinition) definition;
+        MethodMetadata factoryMethod = annotatedDefinition.getFactoryMethodMetadata();
+        if (factoryMethod != null) {
+            return factoryMethod.getDeclaringClassName().startsWith(APPLICATION_PACKAGE);
+        }
+        AnnotationMetadata metadata = annotatedDefinition.getMetadata();
+        return metadata.getClassName().startsWith(APPLICATION_PACKAGE)
+                && !metadata.isAnnotated(Configuration.class.getName())
+                && !metadata.hasAnnotatedMethods(Scheduled.class.getName())
+                && !metadata.hasAnnotatedMethods(EventListener.class.getName());
+    }
+}
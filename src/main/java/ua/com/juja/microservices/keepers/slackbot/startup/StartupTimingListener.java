@@ -0,0 +1,115 @@
+package ua.com.juja.microservices.keepers.slackbot.startup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.boot.context.embedded.EmbeddedServletContainerInitializedEvent;
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.boot.context.event.ApplicationPreparedEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.event.ApplicationStartingEvent;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long each startup phase takes and logs the report when the application is ready.
+ * The phases are published as {@code startup.*} metrics, in milliseconds.
+ * It has to be added to the {@link org.springframework.boot.SpringApplication} to see the early phases.
+ */
+public class StartupTimingListener implements ApplicationListener<ApplicationEvent>, PublicMetrics {
+    static final String BEAN_NAME = "startupTimingListener";
+    private static final String METRIC_PREFIX = "startup.";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private final long jvmStartedAt;
+    private long phaseStartedAt;
+    private int beans;
+    private int lazyBeans;
+
+    public StartupTimingListener() {
+        this(ManagementFactory.getRuntimeMXBean().getStartTime());
+    }
+
+    StartupTimingListener(long jvmStartedAt) {
+        this.jvmStartedAt = jvmStartedAt;
+    }
+
+    @Override
+    public synchronized void onApplicationEvent(ApplicationEvent event) {
+        if (event instanceof ApplicationStartingEvent) {
+            phases.put("jvm", Math.max(0, System.currentTimeMillis() - jvmStartedAt));
+            phaseStartedAt = System.nanoTime();
+        } else if (event instanceof ApplicationEnvironmentPreparedEvent) {
+            endPhase("environment");
+        } else if (event instanceof ApplicationPreparedEvent) {
+            endPhase("context");
+            ConfigurableApplicationContext context = ((ApplicationPreparedEvent) event).getApplicationContext();
+            if (!context.getBeanFactory().containsSingleton(BEAN_NAME)) {
+                context.getBeanFactory().registerSingleton(BEAN_NAME, this);
+            }
+        } else if (event instanceof ContextRefreshedEvent && isRoot(((ContextRefreshedEvent) event).getApplicationContext())) {
+            endPhase("refresh");
+            countBeans((ConfigurableApplicationContext) ((ContextRefreshedEvent) event).getApplicationContext());
+        } else if (event instanceof EmbeddedServletContainerInitializedEvent
+                && isRoot(((EmbeddedServletContainerInitializedEvent) event).getApplicationContext())) {
+            endPhase("container");
+        } else if (event instanceof ApplicationReadyEvent) {
+            endPhase("runners");
+            long total = 0;
+            for (long duration : phases.values()) {
+                total += duration;
+            }
+            phases.put("total", total);
+            logger.info("Startup timing in ms: {} ({} beans, {} of them lazy)", phases, beans, lazyBeans);
+        }
+    }
+
+    public synchronized Map<String, Long> getPhases() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(phases));
+    }
+
+    @Override
+    public synchronized Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>();
+        phases.forEach((phase, duration) -> metrics.add(new Metric<>(METRIC_PREFIX + phase, duration)));
+        return metrics;
+    }
+
+    private void endPhase(String phase) {
+        if (phaseStartedAt == 0 || phases.containsKey(phase)) {
+            return;
+        }
+        long now = System.nanoTime();
+        phases.put(phase, TimeUnit.NANOSECONDS.toMillis(now - phaseStartedAt));
+        phaseStartedAt = now;
+    }
+
+    private void countBeans(ConfigurableApplicationContext context) {
+        beans = 0;
+        lazyBeans = 0;
+        for (String beanName : context.getBeanFactory().getBeanDefinitionNames()) {
+            beans++;
+            if (context.getBeanFactory().getBeanDefinition(beanName).isLazyInit()) {
+                lazyBeans++;
+            }
+        }
+    }
+
+    private boolean isRoot(Object context) {
+        return context instanceof ConfigurableApplicationContext
+                && ((ConfigurableApplicationContext) context).getParent() == null;
+    }
+}
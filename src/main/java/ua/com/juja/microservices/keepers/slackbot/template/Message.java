@@ -0,0 +1,61 @@
+package ua.com.juja.microservices.keepers.slackbot.template;
+
+/**
+ * Messages of the bot with their default templates. Each template can be overridden with the property
+ * {@code keepers.slackBot.messages.<key>}.
+ */
+public enum Message {
+    KEEPER_ADDED("keeperAdded", "Thanks, we added a new Keeper: {0} in direction: {1}"),
+    KEEPER_NOT_ADDED("keeperNotAdded", "ERROR. Something went wrong. Keeper was not added :("),
+    KEEPER_NOT_ADDED_WITH_REASON("keeperNotAddedWithReason", "ERROR. Keeper: {0} in direction: {1} was not added. {2}"),
+    KEEPER_DEACTIVATED("keeperDeactivated", "Keeper: {0} in direction: {1} deactivated"),
+    KEEPER_NOT_DEACTIVATED("keeperNotDeactivated", "ERROR. Something went wrong. Keeper was not deactivated :("),
+    KEEPER_NOT_DEACTIVATED_WITH_REASON("keeperNotDeactivatedWithReason",
+            "ERROR. Keeper: {0} in direction: {1} was not deactivated. {2}"),
+    KEEPER_ADD_QUEUED("keeperAddQueued", "Keepers service is unavailable now, so adding of the keeper {0} "
+            + "in direction: {1} is queued. I will let you know when it is done."),
+    KEEPER_DEACTIVATE_QUEUED("keeperDeactivateQueued", "Keepers service is unavailable now, so deactivation "
+            + "of the keeper {0} in direction: {1} is queued. I will let you know when it is done."),
+    KEEPER_HAS_DIRECTIONS("keeperHasDirections", "The keeper {0} has active directions: {1}"),
+    KEEPER_HAS_NO_DIRECTIONS("keeperHasNoDirections", "The keeper {0} has no active directions."),
+    DIRECTIONS_POSSIBLY_OUTDATED("directionsPossiblyOutdated",
+            " (possibly outdated, Keepers service is unavailable now)"),
+    DIRECTIONS_RESTORED_POSSIBLY_OUTDATED("directionsRestoredPossiblyOutdated",
+            " (possibly outdated, restored after a restart and being checked now)"),
+    CANNOT_GET_KEEPER_DIRECTIONS("cannotGetKeeperDirections", "I cannot get directions of the keeper {0}: {1}"),
+    ALL_DIRECTIONS_HAVE_KEEPERS("allDirectionsHaveKeepers", "All known directions have active keepers."),
+    DIRECTIONS_WITHOUT_KEEPERS("directionsWithoutKeepers", "Directions without known active keepers: {0}"),
+    DIRECTIONS_HAVE_COMMON_KEEPERS("directionsHaveCommonKeepers", "The directions {0} have common active keepers: {1}"),
+    DIRECTIONS_HAVE_NO_COMMON_KEEPERS("directionsHaveNoCommonKeepers",
+            "The directions {0} have no known common active keepers."),
+    DIRECTION_HAS_KEEPERS("directionHasKeepers", "The direction {0} has active keepers: {1}"),
+    DIRECTION_HAS_NO_KEEPERS("directionHasNoKeepers", "The direction {0} has no known active keepers."),
+    OWN_SLACK_IN_COMMAND("ownSlackInCommand", "Your own slack in command. To get your own directions use another " +
+            "command"),
+    SEVERAL_USERS_AND_DIRECTIONS("severalUsersAndDirections", "We found several slack users and several directions " +
+            "in your command '{0}'. You can perform the action with several slack users in one direction or with " +
+            "one slack user in several directions."),
+    NO_SLACK_USER("noSlackUser", "We didn't find any slack user in your command '{0}'. You must write the user's " +
+            "slack to perform the action with keepers."),
+    NO_DIRECTION("noDirection", "We didn't find direction in your command '{0}'. You must write the direction to " +
+            "perform the action with keepers."),
+    SERVICE_UNAVAILABLE("serviceUnavailable", "Some service unavailable"),
+    SERVICE_BUSY("serviceBusy", "The bot is busy now, please repeat the command in a minute."),
+    SOMETHING_WENT_WRONG("somethingWentWrong", "Something went wrong");
+
+    private final String key;
+    private final String defaultTemplate;
+
+    Message(String key, String defaultTemplate) {
+        this.key = key;
+        this.defaultTemplate = defaultTemplate;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getDefaultTemplate() {
+        return defaultTemplate;
+    }
+}
@@ -0,0 +1,129 @@
+package ua.com.juja.microservices.keepers.slackbot.template;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Message template with positional placeholders like {@code {0}}, compiled once into literal parts and argument
+ * indexes. Rendering walks the compiled parts only, so no pattern is parsed per call. Arrays and collections are
+ * rendered as {@code [a, b]}. Any other brace that is not a placeholder is kept as a literal.
+ */
+public final class MessageTemplate {
+    private static final int MAX_REUSED_CAPACITY = 8192;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    private final String source;
+    private final String[] literals;
+    private final int[] arguments;
+    private final int argumentCount;
+
+    private MessageTemplate(String source, String[] literals, int[] arguments) {
+        this.source = source;
+        this.literals = literals;
+        this.arguments = arguments;
+        int max = -1;
+        for (int argument : arguments) {
+            max = Math.max(max, argument);
+        }
+        this.argumentCount = max + 1;
+    }
+
+    public static MessageTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> arguments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            int end = c == '{' ? source.indexOf('}', i + 1) : -1;
+            if (end > i + 1 && isDigits(source, i + 1, end)) {
+                literals.add(literal.toString());
+                literal.setLength(0);
+                arguments.add(Integer.parseInt(source.substring(i + 1, end)));
+                i = end + 1;
+            } else {
+                literal.append(c);
+                i++;
+            }
+        }
+        literals.add(literal.toString());
+        return new MessageTemplate(source, literals.toArray(new String[literals.size()]),
+                arguments.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public int getArgumentCount() {
+        return argumentCount;
+    }
+
+    /**
+     * Renders the template into a thread-local builder reused between calls
+     */
+    public String render(Object... args) {
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        appendTo(buffer, args);
+        String result = buffer.toString();
+        if (buffer.capacity() > MAX_REUSED_CAPACITY) {
+            BUFFER.remove();
+        }
+        return result;
+    }
+
+    public StringBuilder appendTo(StringBuilder builder, Object... args) {
+        if (args.length < argumentCount) {
+            throw new IllegalArgumentException(String.format("Template '%s' requires %d arguments, but got %d",
+                    source, argumentCount, args.length));
+        }
+        for (int i = 0; i < arguments.length; i++) {
+            builder.append(literals[i]);
+            appendArgument(builder, args[arguments[i]]);
+        }
+        return builder.append(literals[arguments.length]);
+    }
+
+    private static void appendArgument(StringBuilder builder, Object argument) {
+        if (argument instanceof Object[]) {
+            Object[] array = (Object[]) argument;
+            builder.append('[');
+            for (int i = 0; i < array.length; i++) {
+                if (i > 0) {
+                    builder.append(", ");
+                }
+                builder.append(array[i]);
+            }
+            builder.append(']');
+        } else if (argument instanceof Collection) {
+            Iterator<?> iterator = ((Collection<?>) argument).iterator();
+            builder.append('[');
+            while (iterator.hasNext()) {
+                builder.append(iterator.next());
+                if (iterator.hasNext()) {
+                    builder.append(", ");
+                }
+            }
+            builder.append(']');
+        } else {
+            builder.append(argument);
+        }
+    }
+
+    private static boolean isDigits(String source, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!Character.isDigit(source.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
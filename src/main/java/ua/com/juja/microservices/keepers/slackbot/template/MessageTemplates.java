@@ -0,0 +1,51 @@
+package ua.com.juja.microservices.keepers.slackbot.template;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Compiles all bot messages once at startup, taking overridden templates from the properties
+ * {@code keepers.slackBot.messages.<key>}, e.g. for localisation. The startup fails when an overridden template
+ * does not use the same arguments as the default one.
+ */
+@Component
+public class MessageTemplates {
+    public static final String PROPERTY_PREFIX = "keepers.slackBot.messages.";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final Map<Message, MessageTemplate> templates = new EnumMap<>(Message.class);
+
+    @Inject
+    public MessageTemplates(Environment environment) {
+        for (Message message : Message.values()) {
+            MessageTemplate defaultTemplate = MessageTemplate.compile(message.getDefaultTemplate());
+            String source = environment.getProperty(PROPERTY_PREFIX + message.getKey());
+            if (source == null) {
+                templates.put(message, defaultTemplate);
+                continue;
+            }
+            MessageTemplate template = MessageTemplate.compile(source);
+            if (template.getArgumentCount() != defaultTemplate.getArgumentCount()) {
+                throw new IllegalStateException(String.format(
+                        "Template of the property [%s%s] must have %d arguments, but has %d: [%s]", PROPERTY_PREFIX,
+                        message.getKey(), defaultTemplate.getArgumentCount(), template.getArgumentCount(), source));
+            }
+            templates.put(message, template);
+        }
+        logger.info("Compiled {} message templates", templates.size());
+    }
+
+    public MessageTemplate get(Message message) {
+        return templates.get(message);
+    }
+
+    public String render(Message message, Object... args) {
+        return templates.get(message).render(args);
+    }
+}
@@ -0,0 +1,47 @@
+package ua.com.juja.microservices.keepers.slackbot.warmup;
+
+import ua.com.juja.microservices.keepers.slackbot.dao.KeeperRepository;
+import ua.com.juja.microservices.keepers.slackbot.json.JsonPayloads;
+import ua.com.juja.microservices.keepers.slackbot.model.request.KeeperRequest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@link KeeperRepository} answering with canned responses. Requests and responses go through the same JSON
+ * readers and writers as the REST one, but nothing leaves the process.
+ */
+class InMemoryKeeperRepository implements KeeperRepository {
+    private static final byte[] IDS = "[\"1\"]".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DIRECTIONS = "[\"teams\",\"codenjoy\"]".getBytes(StandardCharsets.UTF_8);
+
+    private final JsonPayloads jsonPayloads;
+
+    InMemoryKeeperRepository(JsonPayloads jsonPayloads) {
+        this.jsonPayloads = jsonPayloads;
+    }
+
+    @Override
+    public String[] addKeeper(KeeperRequest keeperRequest) {
+        return exchange(keeperRequest, IDS);
+    }
+
+    @Override
+    public String[] deactivateKeeper(KeeperRequest keeperRequest) {
+        return exchange(keeperRequest, IDS);
+    }
+
+    @Override
+    public String[] getKeeperDirections(KeeperRequest keeperRequest) {
+        return exchange(keeperRequest, DIRECTIONS);
+    }
+
+    private String[] exchange(KeeperRequest keeperRequest, byte[] response) {
+        try {
+            jsonPayloads.writer(KeeperRequest.class).writeValueAsBytes(keeperRequest);
+            return jsonPayloads.reader(String[].class).readValue(response);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
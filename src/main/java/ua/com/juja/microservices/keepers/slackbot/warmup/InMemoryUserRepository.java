@@ -0,0 +1,55 @@
+package ua.com.juja.microservices.keepers.slackbot.warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import ua.com.juja.microservices.keepers.slackbot.dao.UserRepository;
+import ua.com.juja.microservices.keepers.slackbot.json.JsonPayloads;
+import ua.com.juja.microservices.keepers.slackbot.model.dto.SlackUserRequest;
+import ua.com.juja.microservices.keepers.slackbot.model.dto.UserDTO;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * {@link UserRepository} over a map of synthetic users. It serializes every request as the REST one does,
+ * but nothing leaves the process.
+ */
+class InMemoryUserRepository implements UserRepository {
+    private final Map<String, UserDTO> usersBySlackUser = new HashMap<>();
+    private final JsonPayloads jsonPayloads;
+
+    InMemoryUserRepository(JsonPayloads jsonPayloads, List<UserDTO> users) {
+        this.jsonPayloads = jsonPayloads;
+        users.forEach(user -> usersBySlackUser.put(user.getSlackUser(), user));
+    }
+
+    @Override
+    public List<UserDTO> findUsersBySlackUsers(List<String> slackUsers) {
+        writeRequest(slackUsers);
+        return slackUsers.stream()
+                .map(usersBySlackUser::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void collectUsersBySlackUsers(List<String> slackUsers, Map<String, UserDTO> users) {
+        writeRequest(slackUsers);
+        for (String slackUser : slackUsers) {
+            UserDTO user = usersBySlackUser.get(slackUser);
+            if (user != null) {
+                users.putIfAbsent(slackUser, user);
+            }
+        }
+    }
+
+    private void writeRequest(List<String> slackUsers) {
+        try {
+            jsonPayloads.writer(SlackUserRequest.class).writeValueAsBytes(new SlackUserRequest(slackUsers));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
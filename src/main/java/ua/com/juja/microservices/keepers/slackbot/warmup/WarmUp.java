@@ -0,0 +1,161 @@
+package ua.com.juja.microservices.keepers.slackbot.warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import me.ramswaroop.jbot.core.slack.models.RichMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RestController;
+import ua.com.juja.microservices.keepers.slackbot.cache.DirectionRegistry;
+import ua.com.juja.microservices.keepers.slackbot.cache.KeeperDirectionsCache;
+import ua.com.juja.microservices.keepers.slackbot.cache.KeepersByDirectionIndex;
+import ua.com.juja.microservices.keepers.slackbot.cache.MapUserDirectory;
+import ua.com.juja.microservices.keepers.slackbot.cache.RecentMutationsOverlay;
+import ua.com.juja.microservices.keepers.slackbot.cache.UnknownSlackUsersCache;
+import ua.com.juja.microservices.keepers.slackbot.cache.UserDirectory;
+import ua.com.juja.microservices.keepers.slackbot.cache.UserDirectoryLoader;
+import ua.com.juja.microservices.keepers.slackbot.concurrent.KeyedSerialExecutor;
+import ua.com.juja.microservices.keepers.slackbot.exception.WrongCommandFormatException;
+import ua.com.juja.microservices.keepers.slackbot.json.JsonPayloads;
+import ua.com.juja.microservices.keepers.slackbot.model.dto.UserDTO;
+import ua.com.juja.microservices.keepers.slackbot.queue.MutationQueue;
+import ua.com.juja.microservices.keepers.slackbot.service.KeeperService;
+import ua.com.juja.microservices.keepers.slackbot.service.impl.DefaultKeeperService;
+import ua.com.juja.microservices.keepers.slackbot.service.impl.DefaultUserService;
+import ua.com.juja.microservices.keepers.slackbot.service.impl.SlackUserHandlerService;
+import ua.com.juja.microservices.keepers.slackbot.template.MessageTemplates;
+
+import javax.inject.Inject;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs synthetic slack commands through the command services and the JSON payloads when the application is
+ * ready, so the JIT compiles the hot paths before real traffic comes. The services are separate instances over
+ * in-memory repositories and caches, so the warm-up neither calls the other services nor leaves any state.
+ * The services run their tasks on the warm-up's own threads. These threads are marked with the {@link #LOG_KEY} MDC
+ * key, which logback-spring.xml raises to WARN, so logging of the real traffic is not affected. The controllers
+ * are looked up first, so with keepers.startup.lazyInit they and the services behind them are created before the
+ * first real command. The instance is reported ready when the warm-up has finished.
+ */
+@Component
+public class WarmUp {
+    private static final String FROM_USER = "U0WARM0";
+    private static final UserDTO[] USERS = {
+            new UserDTO("warm-up-uuid-0", FROM_USER),
+            new UserDTO("warm-up-uuid-1", "U0WARM1"),
+            new UserDTO("warm-up-uuid-2", "U0WARM2")};
+    private static final int THREADS = 2;
+    static final String LOG_KEY = "warmUp";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Value("${keepers.warmUp.enabled}")
+    private boolean enabled;
+    @Value("${keepers.warmUp.iterations}")
+    private int iterations;
+
+    private ApplicationContext applicationContext;
+    private JsonPayloads jsonPayloads;
+    private MessageTemplates messageTemplates;
+    private volatile boolean finished;
+
+    @Inject
+    public WarmUp(ApplicationContext applicationContext, JsonPayloads jsonPayloads,
+                  MessageTemplates messageTemplates) {
+        this.applicationContext = applicationContext;
+        this.jsonPayloads = jsonPayloads;
+        this.messageTemplates = messageTemplates;
+    }
+
+    public boolean isFinished() {
+        return finished || !enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        Thread thread = new Thread(this::run, "warm-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void run() {
+        long startedAt = System.nanoTime();
+        logger.info("Started warm-up with {} iterations", iterations);
+        MDC.put(LOG_KEY, "true");
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS, this::newWarmUpThread);
+        try {
+            applicationContext.getBeansWithAnnotation(RestController.class);
+            KeeperService keeperService = createKeeperService(executor);
+            for (int i = 0; i < iterations; i++) {
+                runCommands(keeperService);
+            }
+        } catch (RuntimeException ex) {
+            logger.warn("Warm-up failed: [{}]", ex.getMessage(), ex);
+        } finally {
+            executor.shutdownNow();
+            MDC.remove(LOG_KEY);
+            finished = true;
+        }
+        logger.info("Finished warm-up in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+    }
+
+    private Thread newWarmUpThread(Runnable task) {
+        Thread thread = new Thread(() -> {
+            MDC.put(LOG_KEY, "true");
+            task.run();
+        }, "warm-up-worker");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private KeeperService createKeeperService(ExecutorService executor) {
+        DirectionRegistry directionRegistry = new DirectionRegistry();
+        InMemoryKeeperRepository keeperRepository = new InMemoryKeeperRepository(jsonPayloads);
+        InMemoryUserRepository userRepository = new InMemoryUserRepository(jsonPayloads, Arrays.asList(USERS));
+        UserDirectory userDirectory = new MapUserDirectory();
+        SlackUserHandlerService slackUserHandlerService = new SlackUserHandlerService(
+                new DefaultUserService(userRepository, userDirectory, new UnknownSlackUsersCache(),
+                        new UserDirectoryLoader(userRepository, userDirectory)));
+        return new DefaultKeeperService(keeperRepository, slackUserHandlerService,
+                new KeeperDirectionsCache(directionRegistry, executor),
+                new KeepersByDirectionIndex(keeperRepository, directionRegistry), new RecentMutationsOverlay(),
+                executor, new KeyedSerialExecutor(executor),
+                new MutationQueue(jsonPayloads), messageTemplates);
+    }
+
+    private void runCommands(KeeperService keeperService) {
+        reply(keeperService.sendKeeperAddRequest(FROM_USER, "<@U0WARM1> teams", null));
+        reply(keeperService.sendKeeperAddRequest(FROM_USER, "<@U0WARM1> <@U0WARM2|U0WARM2> teams", null));
+        reply(keeperService.sendKeeperDeactivateRequest(FROM_USER, "<@U0WARM1> teams codenjoy", null));
+        reply(keeperService.getKeeperDirections(FROM_USER, "<@U0WARM1>"));
+        reply(keeperService.getKeeperDirections(FROM_USER, "<@U0WARM1> <@U0WARM2>"));
+        reply(keeperService.getMyDirections(FROM_USER));
+        reply(keeperService.getDirectionKeepers(FROM_USER, "teams"));
+        reply(keeperService.getDirectionKeepers(FROM_USER, "teams codenjoy"));
+        reply(keeperService.getDirectionKeepers(FROM_USER, ""));
+        try {
+            keeperService.sendKeeperAddRequest(FROM_USER, "<@U0WARM1>", null);
+        } catch (WrongCommandFormatException ex) {
+            reply(ex.getMessage());
+        }
+    }
+
+    private void reply(String response) {
+        try {
+            jsonPayloads.writer(RichMessage.class).writeValueAsBytes(new RichMessage(response));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
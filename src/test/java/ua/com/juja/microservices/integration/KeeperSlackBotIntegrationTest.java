@@ -45,7 +45,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * @author Oleksii Skachkov
  */
 @RunWith(SpringRunner.class)
-@SpringBootTest(classes = {KeeperSlackBotApplication.class})
+@SpringBootTest(classes = {KeeperSlackBotApplication.class},
+        properties = {"keepers.slackBot.commands.poolSize=0", "keepers.slackBot.delivery.poolSize=0"})
 @AutoConfigureMockMvc
 public class KeeperSlackBotIntegrationTest {
 
@@ -141,23 +142,39 @@ public class KeeperSlackBotIntegrationTest {
     }
 
     @Test
-    public void returnErrorMessageIfKeeperAddCommandConsistsTwoOrMoreSlackUsers() throws Exception {
+    public void onReceiveSlashCommandKeeperAddWithSeveralSlackUsersReturnAggregatedRichMessage() throws Exception {
         //Given
+        mockServer = MockRestServiceServer.bindTo(restTemplate).ignoreExpectOrder(true).build();
         final String keeperAddCommandText = String.format("%s %s teams",
                 SlackParsedCommand.wrapSlackUserInFullPattern(user1.getSlackUser()),
                 SlackParsedCommand.wrapSlackUserInFullPattern(user2.getSlackUser()));
         final List<UserDTO> usersInCommand = Arrays.asList(user1, user2, userFrom);
+        final String expectedRequestToKeepers1 = "{" +
+                "\"from\":\"uuid-from\"," +
+                "\"uuid\":\"uuid1\"," +
+                "\"direction\":\"teams\"" +
+                "}";
+        final String expectedRequestToKeepers2 = "{" +
+                "\"from\":\"uuid-from\"," +
+                "\"uuid\":\"uuid2\"," +
+                "\"direction\":\"teams\"" +
+                "}";
         final String expectedRequestToSlack = String.format("{" +
                 "\"username\":null," +
                 "\"channel\":null," +
-                "\"text\":\"We found 2 slack users in your command '%s'. " +
-                "You can not perform actions with several slack users.\"," +
+                "\"text\":\"Thanks, we added a new Keeper: %s in direction: teams\\n" +
+                "Thanks, we added a new Keeper: %s in direction: teams\"," +
                 "\"attachments\":null," +
                 "\"icon_emoji\":null," +
                 "\"response_type\":null" +
-                "}", keeperAddCommandText);
+                "}", SlackParsedCommand.wrapSlackUserInFullPattern(user1.getSlackUser()),
+                SlackParsedCommand.wrapSlackUserInFullPattern(user2.getSlackUser()));
 
         mockSuccessUsersService(usersInCommand);
+        mockSuccessKeepersService(urlBaseKeepers + keepersVersion + urlKeepers, HttpMethod.POST,
+                expectedRequestToKeepers1, "[\"1001\"]");
+        mockSuccessKeepersService(urlBaseKeepers + keepersVersion + urlKeepers, HttpMethod.POST,
+                expectedRequestToKeepers2, "[\"1002\"]");
         mockSuccessSlack(EXAMPLE_URL, HttpMethod.POST, expectedRequestToSlack);
 
         //When
@@ -172,22 +189,38 @@ public class KeeperSlackBotIntegrationTest {
     }
 
     @Test
-    public void returnErrorMessageIfKeeperAddCommandConsistTwoOrMoreDirections() throws Exception {
+    public void onReceiveSlashCommandKeeperAddWithSeveralDirectionsReturnAggregatedRichMessage() throws Exception {
         //Given
+        mockServer = MockRestServiceServer.bindTo(restTemplate).ignoreExpectOrder(true).build();
         final String keeperAddCommandText = String.format("%s teams else",
                 SlackParsedCommand.wrapSlackUserInFullPattern(user1.getSlackUser()));
         final List<UserDTO> usersInCommand = Arrays.asList(user1, userFrom);
-        final String expectedRequestToSlack = "{" +
+        final String expectedRequestToKeepers1 = "{" +
+                "\"from\":\"uuid-from\"," +
+                "\"uuid\":\"uuid1\"," +
+                "\"direction\":\"teams\"" +
+                "}";
+        final String expectedRequestToKeepers2 = "{" +
+                "\"from\":\"uuid-from\"," +
+                "\"uuid\":\"uuid1\"," +
+                "\"direction\":\"else\"" +
+                "}";
+        final String expectedRequestToSlack = String.format("{" +
                 "\"username\":null," +
                 "\"channel\":null," +
-                "\"text\":\"We found several directions in your command 'teams else'. " +
-                "You can perform the action with keepers on one direction only.\"," +
+                "\"text\":\"Thanks, we added a new Keeper: %s in direction: teams\\n" +
+                "Thanks, we added a new Keeper: %s in direction: else\"," +
                 "\"attachments\":null," +
                 "\"icon_emoji\":null," +
                 "\"response_type\":null" +
-                "}";
+                "}", SlackParsedCommand.wrapSlackUserInFullPattern(user1.getSlackUser()),
+                SlackParsedCommand.wrapSlackUserInFullPattern(user1.getSlackUser()));
 
         mockSuccessUsersService(usersInCommand);
+        mockSuccessKeepersService(urlBaseKeepers + keepersVersion + urlKeepers, HttpMethod.POST,
+                expectedRequestToKeepers1, "[\"1001\"]");
+        mockSuccessKeepersService(urlBaseKeepers + keepersVersion + urlKeepers, HttpMethod.POST,
+                expectedRequestToKeepers2, "[\"1002\"]");
         mockSuccessSlack(EXAMPLE_URL, HttpMethod.POST, expectedRequestToSlack);
 
         //When
@@ -296,15 +329,16 @@ public class KeeperSlackBotIntegrationTest {
     @Test
     public void keeperAddWhenSlackAnsweredFail() throws Exception {
         //Given
-        final String keeperAddCommandText = String.format("%s %s teams",
+        final String keeperAddCommandText = String.format("%s %s teams else",
                 SlackParsedCommand.wrapSlackUserInFullPattern(user1.getSlackUser()),
                 SlackParsedCommand.wrapSlackUserInFullPattern(user2.getSlackUser()));
         final List<UserDTO> usersInCommand = Arrays.asList(user1, user2, userFrom);
         final String expectedRequestToSlack = String.format("{" +
                 "\"username\":null," +
                 "\"channel\":null," +
-                "\"text\":\"We found 2 slack users in your command '%s'. " +
-                "You can not perform actions with several slack users.\"," +
+                "\"text\":\"We found several slack users and several directions in your command '%s'. " +
+                "You can perform the action with several slack users in one direction " +
+                "or with one slack user in several directions.\"," +
                 "\"attachments\":null," +
                 "\"icon_emoji\":null," +
                 "\"response_type\":null" +
@@ -375,23 +409,39 @@ public class KeeperSlackBotIntegrationTest {
     }
 
     @Test
-    public void returnErrorMessageIfKeeperDeactivateCommandConsistTwoOrMoreSlackUsers() throws Exception {
+    public void onReceiveSlashCommandKeeperDeactivateWithSeveralSlackUsersReturnAggregatedRichMessage() throws Exception {
         //Given
+        mockServer = MockRestServiceServer.bindTo(restTemplate).ignoreExpectOrder(true).build();
         final String keeperDeactivateCommandText = String.format("%s %s teams",
                 SlackParsedCommand.wrapSlackUserInFullPattern(user1.getSlackUser()),
                 SlackParsedCommand.wrapSlackUserInFullPattern(user2.getSlackUser()));
         final List<UserDTO> usersInCommand = Arrays.asList(user1, user2, userFrom);
+        final String expectedRequestToKeepers1 = "{" +
+                "\"from\":\"uuid-from\"," +
+                "\"uuid\":\"uuid1\"," +
+                "\"direction\":\"teams\"" +
+                "}";
+        final String expectedRequestToKeepers2 = "{" +
+                "\"from\":\"uuid-from\"," +
+                "\"uuid\":\"uuid2\"," +
+                "\"direction\":\"teams\"" +
+                "}";
         final String expectedRequestToSlack = String.format("{" +
                 "\"username\":null," +
                 "\"channel\":null," +
-                "\"text\":\"We found 2 slack users in your command '%s'. " +
-                "You can not perform actions with several slack users.\"," +
+                "\"text\":\"Keeper: %s in direction: teams deactivated\\n" +
+                "Keeper: %s in direction: teams deactivated\"," +
                 "\"attachments\":null," +
                 "\"icon_emoji\":null," +
                 "\"response_type\":null" +
-                "}", keeperDeactivateCommandText);
+                "}", SlackParsedCommand.wrapSlackUserInFullPattern(user1.getSlackUser()),
+                SlackParsedCommand.wrapSlackUserInFullPattern(user2.getSlackUser()));
 
         mockSuccessUsersService(usersInCommand);
+        mockSuccessKeepersService(urlBaseKeepers + keepersVersion + urlKeepers, HttpMethod.PUT,
+                expectedRequestToKeepers1, "[\"1001\"]");
+        mockSuccessKeepersService(urlBaseKeepers + keepersVersion + urlKeepers, HttpMethod.PUT,
+                expectedRequestToKeepers2, "[\"1002\"]");
         mockSuccessSlack(EXAMPLE_URL, HttpMethod.POST, expectedRequestToSlack);
 
         //When
@@ -406,22 +456,38 @@ public class KeeperSlackBotIntegrationTest {
     }
 
     @Test
-    public void returnErrorMessageIfKeeperDeactivateCommandConsistTwoOrMoreDirections() throws Exception {
+    public void onReceiveSlashCommandKeeperDeactivateWithSeveralDirectionsReturnAggregatedRichMessage() throws Exception {
         //Given
+        mockServer = MockRestServiceServer.bindTo(restTemplate).ignoreExpectOrder(true).build();
         final String keeperDeactivateCommandText = String.format("%s teams else",
                 SlackParsedCommand.wrapSlackUserInFullPattern(user1.getSlackUser()));
         final List<UserDTO> usersInCommand = Arrays.asList(user1, userFrom);
-        final String expectedRequestToSlack = "{" +
+        final String expectedRequestToKeepers1 = "{" +
+                "\"from\":\"uuid-from\"," +
+                "\"uuid\":\"uuid1\"," +
+                "\"direction\":\"teams\"" +
+                "}";
+        final String expectedRequestToKeepers2 = "{" +
+                "\"from\":\"uuid-from\"," +
+                "\"uuid\":\"uuid1\"," +
+                "\"direction\":\"else\"" +
+                "}";
+        final String expectedRequestToSlack = String.format("{" +
                 "\"username\":null," +
                 "\"channel\":null," +
-                "\"text\":\"We found several directions in your command 'teams else'. " +
-                "You can perform the action with keepers on one direction only.\"," +
+                "\"text\":\"Keeper: %s in direction: teams deactivated\\n" +
+                "Keeper: %s in direction: else deactivated\"," +
                 "\"attachments\":null," +
                 "\"icon_emoji\":null," +
                 "\"response_type\":null" +
-                "}";
+                "}", SlackParsedCommand.wrapSlackUserInFullPattern(user1.getSlackUser()),
+                SlackParsedCommand.wrapSlackUserInFullPattern(user1.getSlackUser()));
 
         mockSuccessUsersService(usersInCommand);
+        mockSuccessKeepersService(urlBaseKeepers + keepersVersion + urlKeepers, HttpMethod.PUT,
+                expectedRequestToKeepers1, "[\"1001\"]");
+        mockSuccessKeepersService(urlBaseKeepers + keepersVersion + urlKeepers, HttpMethod.PUT,
+                expectedRequestToKeepers2, "[\"1002\"]");
         mockSuccessSlack(EXAMPLE_URL, HttpMethod.POST, expectedRequestToSlack);
 
         //When
@@ -531,15 +597,16 @@ public class KeeperSlackBotIntegrationTest {
     @Test
     public void keeperDeactivateWhenSlackAnsweredFail() throws Exception {
         //Given
-        final String keeperDeactivateCommandText = String.format("%s %s teams",
+        final String keeperDeactivateCommandText = String.format("%s %s teams else",
                 SlackParsedCommand.wrapSlackUserInFullPattern(user1.getSlackUser()),
                 SlackParsedCommand.wrapSlackUserInFullPattern(user2.getSlackUser()));
         final List<UserDTO> usersInCommand = Arrays.asList(user1, user2, userFrom);
         final String expectedRequestToSlack = String.format("{" +
                 "\"username\":null," +
                 "\"channel\":null," +
-                "\"text\":\"We found 2 slack users in your command '%s'. " +
-                "You can not perform actions with several slack users.\"," +
+                "\"text\":\"We found several slack users and several directions in your command '%s'. " +
+                "You can perform the action with several slack users in one direction " +
+                "or with one slack user in several directions.\"," +
                 "\"attachments\":null," +
                 "\"icon_emoji\":null," +
                 "\"response_type\":null" +
@@ -595,6 +662,53 @@ public class KeeperSlackBotIntegrationTest {
         mockServer.verify();
     }
 
+    @Test
+    public void onReceiveSlashCommandKeeperGetDirectionsForSeveralKeepersReturnCombinedRichMessage() throws Exception {
+        //Given
+        mockServer = MockRestServiceServer.bindTo(restTemplate).ignoreExpectOrder(true).build();
+        final String getDirectionsCommand = String.format("%s %s",
+                SlackParsedCommand.wrapSlackUserInFullPattern(user1.getSlackUser()),
+                SlackParsedCommand.wrapSlackUserInFullPattern(user2.getSlackUser()));
+        final List<UserDTO> usersInCommand = Arrays.asList(user1, user2, userFrom);
+        final String expectedRequestToKeepers1 = "{" +
+                "\"from\":\"uuid-from\"," +
+                "\"uuid\":\"uuid1\"," +
+                "\"direction\":\"\"" +
+                "}";
+        final String expectedRequestToKeepers2 = "{" +
+                "\"from\":\"uuid-from\"," +
+                "\"uuid\":\"uuid2\"," +
+                "\"direction\":\"\"" +
+                "}";
+        final String expectedRequestToSlack = String.format("{" +
+                "\"username\":null," +
+                "\"channel\":null," +
+                "\"text\":\"The keeper %s has active directions: [direction1]\\n" +
+                "The keeper %s has no active directions.\"," +
+                "\"attachments\":null," +
+                "\"icon_emoji\":null," +
+                "\"response_type\":null" +
+                "}", SlackParsedCommand.wrapSlackUserInFullPattern(user1.getSlackUser()),
+                SlackParsedCommand.wrapSlackUserInFullPattern(user2.getSlackUser()));
+
+        mockSuccessUsersService(usersInCommand);
+        mockSuccessKeepersService(urlBaseKeepers + keepersVersion + urlKeepers + "/" + user1.getUuid(), HttpMethod.GET,
+                expectedRequestToKeepers1, "[\"direction1\"]");
+        mockSuccessKeepersService(urlBaseKeepers + keepersVersion + urlKeepers + "/" + user2.getUuid(), HttpMethod.GET,
+                expectedRequestToKeepers2, "[]");
+        mockSuccessSlack(EXAMPLE_URL, HttpMethod.POST, expectedRequestToSlack);
+
+        //When
+        mvc.perform(MockMvcRequestBuilders.post(SlackUrlUtils.getUrlTemplate(slackBotVersion + "/commands/keeper"),
+                SlackUrlUtils.getUriVars(tokenCorrect, "/keeper", getDirectionsCommand))
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.content().string(IN_PROGRESS));
+
+        //Then
+        mockServer.verify();
+    }
+
     @Test
     public void onReceiveSlashCommandKeeperGetDirectionsWhenFromUserInTextReturnErrorRichMessage() throws Exception {
         //Given
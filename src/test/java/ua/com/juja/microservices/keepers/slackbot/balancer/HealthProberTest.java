@@ -0,0 +1,52 @@
+package ua.com.juja.microservices.keepers.slackbot.balancer;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+public class HealthProberTest {
+    private RestTemplate restTemplate;
+    private MockRestServiceServer mockServer;
+    private LoadBalancer keepersBalancer;
+    private HealthProber prober;
+
+    @Before
+    public void setup() {
+        restTemplate = new RestTemplate();
+        mockServer = MockRestServiceServer.bindTo(restTemplate).build();
+        keepersBalancer = new LoadBalancer("Keepers", "http://keepers1,http://keepers2", 1, 60000);
+        prober = new HealthProber(restTemplate, keepersBalancer, new LoadBalancer("Users", "http://users", 1, 60000));
+        ReflectionTestUtils.setField(prober, "keepersHealthPath", "/health");
+        ReflectionTestUtils.setField(prober, "usersHealthPath", "/health");
+    }
+
+    @Test
+    public void shouldEjectUnhealthyAndBringBackHealthyInstances() {
+        //given
+        ServiceInstance healthy = keepersBalancer.getInstances().get(0);
+        ServiceInstance unhealthy = keepersBalancer.getInstances().get(1);
+        keepersBalancer.onFailure(healthy, new IllegalStateException("timeout"));
+        mockServer.expect(requestTo("http://keepers1/health")).andExpect(method(HttpMethod.GET))
+                .andRespond(withSuccess());
+        mockServer.expect(requestTo("http://keepers2/health")).andExpect(method(HttpMethod.GET))
+                .andRespond(withServerError());
+
+        //when
+        prober.probe();
+
+        //then
+        mockServer.verify();
+        assertFalse(healthy.isEjected(System.currentTimeMillis()));
+        assertTrue(unhealthy.isEjected(System.currentTimeMillis()));
+    }
+}
@@ -0,0 +1,190 @@
+package ua.com.juja.microservices.keepers.slackbot.balancer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HedgerTest {
+    private ExecutorService executor;
+    private LoadBalancer balancer;
+    private AtomicInteger attempts;
+
+    @Before
+    public void setup() {
+        executor = Executors.newCachedThreadPool();
+        balancer = new LoadBalancer("Keepers", "http://slow,http://fast", 3, 60000);
+        attempts = new AtomicInteger();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldTakeHedgeWhenFirstAttemptIsSlow() {
+        //given
+        Hedger hedger = primed(new Hedger(balancer, executor, true, 1, 1));
+        CountDownLatch release = new CountDownLatch(1);
+
+        //when
+        String result = hedger.execute(instance -> await(release));
+
+        //then
+        release.countDown();
+        assertEquals("hedged", result);
+        assertEquals(1, hedger.getHedges());
+        assertEquals(1, hedger.getWins());
+    }
+
+    @Test
+    public void shouldAbortSlowerAttemptWithoutEjectingItsInstance() throws Exception {
+        //given
+        balancer = new LoadBalancer("Keepers", "http://slow,http://fast", 1, 60000);
+        Hedger hedger = primed(new Hedger(balancer, executor, true, 1, 1));
+        CountDownLatch aborted = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+
+        //when
+        String result = hedger.execute(instance -> {
+            if (attempts.getAndIncrement() > 0) {
+                return "hedged";
+            }
+            try {
+                AttemptCancellation.register(aborted::countDown);
+                aborted.await(5, TimeUnit.SECONDS);
+                throw new ResourceAccessException("aborted");
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return "first";
+            } finally {
+                finished.countDown();
+            }
+        });
+
+        //then
+        assertEquals("hedged", result);
+        assertTrue(aborted.await(1, TimeUnit.SECONDS));
+        assertTrue(finished.await(1, TimeUnit.SECONDS));
+        Thread.sleep(20);
+        long now = System.currentTimeMillis();
+        for (ServiceInstance instance : balancer.getInstances()) {
+            assertFalse(instance.isEjected(now));
+        }
+    }
+
+    @Test
+    public void shouldRunInCallerThreadWhenExecutorRejects() {
+        //given
+        executor.shutdown();
+        Hedger hedger = primed(new Hedger(balancer, executor, true, 1, 1));
+        String caller = Thread.currentThread().getName();
+
+        //when
+        String thread = hedger.execute(instance -> Thread.currentThread().getName());
+
+        //then
+        assertEquals(caller, thread);
+        assertEquals(0, hedger.getHedges());
+    }
+
+    @Test
+    public void shouldNotHedgeOverMaxRate() {
+        //given
+        Hedger hedger = primed(new Hedger(balancer, executor, true, 0.01, 1));
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> sleepAndRelease(release));
+
+        //when
+        String result = hedger.execute(instance -> await(release));
+
+        //then
+        assertEquals("first", result);
+        assertEquals(0, hedger.getHedges());
+    }
+
+    @Test
+    public void shouldFailWhenBothAttemptsFail() {
+        //given
+        Hedger hedger = primed(new Hedger(balancer, executor, true, 1, 1));
+
+        //when
+        try {
+            hedger.execute(instance -> {
+                sleep(50);
+                throw new ResourceAccessException("timeout");
+            });
+            fail();
+        } catch (ResourceAccessException ex) {
+            //then
+            assertEquals(1, hedger.getHedges());
+            assertEquals(0, hedger.getWins());
+        }
+    }
+
+    @Test
+    public void shouldCallBalancerDirectlyWhenDisabled() {
+        //given
+        Hedger hedger = new Hedger(balancer, executor, false, 1, 1);
+        String caller = Thread.currentThread().getName();
+
+        //when
+        String thread = hedger.execute(instance -> Thread.currentThread().getName());
+
+        //then
+        assertEquals(caller, thread);
+        for (Metric<?> metric : hedger.metrics()) {
+            if (metric.getName().equals("hedging.keepers.requests")) {
+                assertEquals(0L, metric.getValue());
+            }
+        }
+    }
+
+    private static Hedger primed(Hedger hedger) {
+        for (int i = 0; i < 32; i++) {
+            hedger.recordLatency(1);
+        }
+        return hedger;
+    }
+
+    /**
+     * The first attempt waits for the release, the hedge answers at once
+     */
+    private String await(CountDownLatch release) {
+        if (attempts.getAndIncrement() == 0) {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return "first";
+        }
+        return "hedged";
+    }
+
+    private static void sleepAndRelease(CountDownLatch release) {
+        sleep(50);
+        release.countDown();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package ua.com.juja.microservices.keepers.slackbot.balancer;
+
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LoadBalancerTest {
+
+    @Test
+    public void shouldParseCommaSeparatedBaseUrls() {
+        //when
+        LoadBalancer balancer = new LoadBalancer("Keepers", " http://keepers1, http://keepers2 ,,", 3, 1000);
+
+        //then
+        assertEquals(2, balancer.getInstances().size());
+        assertEquals("http://keepers1", balancer.getInstances().get(0).getBaseUrl());
+        assertEquals(1, balancer.getInstances().get(1).getIndex());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRequireBaseUrl() {
+        //when
+        new LoadBalancer("Keepers", " , ", 3, 1000);
+    }
+
+    @Test
+    public void shouldSpreadRequestsOverInstances() {
+        //given
+        LoadBalancer balancer = new LoadBalancer("Keepers", "http://keepers1,http://keepers2,http://keepers3", 3, 1000);
+        Set<String> used = new HashSet<>();
+
+        //when
+        for (int i = 0; i < 100; i++) {
+            used.add(balancer.execute(ServiceInstance::getBaseUrl));
+        }
+
+        //then
+        assertEquals(new HashSet<>(Arrays.asList("http://keepers1", "http://keepers2", "http://keepers3")), used);
+    }
+
+    @Test
+    public void shouldPreferInstanceWithFewerOutstandingRequests() {
+        //given
+        LoadBalancer balancer = new LoadBalancer("Keepers", "http://keepers1,http://keepers2", 3, 1000);
+        ServiceInstance busy = balancer.getInstances().get(0);
+        busy.requestStarted();
+
+        //when
+        for (int i = 0; i < 20; i++) {
+            //then
+            assertSame(balancer.getInstances().get(1), balancer.choose());
+        }
+    }
+
+    @Test
+    public void shouldEjectInstanceAfterConsecutiveFailures() {
+        //given
+        LoadBalancer balancer = new LoadBalancer("Keepers", "http://keepers1,http://keepers2", 2, 60000);
+        ServiceInstance failing = balancer.getInstances().get(0);
+
+        //when
+        balancer.onFailure(failing, new ResourceAccessException("timeout"));
+        boolean ejectedAfterOneFailure = failing.isEjected(System.currentTimeMillis());
+        balancer.onFailure(failing, new ResourceAccessException("timeout"));
+
+        //then
+        assertFalse(ejectedAfterOneFailure);
+        assertTrue(failing.isEjected(System.currentTimeMillis()));
+        for (int i = 0; i < 20; i++) {
+            assertSame(balancer.getInstances().get(1), balancer.choose());
+        }
+    }
+
+    @Test
+    public void shouldBringInstanceBackAfterSuccess() {
+        //given
+        LoadBalancer balancer = new LoadBalancer("Keepers", "http://keepers1,http://keepers2", 1, 60000);
+        ServiceInstance instance = balancer.getInstances().get(0);
+        balancer.onFailure(instance, new ResourceAccessException("timeout"));
+
+        //when
+        balancer.onSuccess(instance);
+
+        //then
+        assertFalse(instance.isEjected(System.currentTimeMillis()));
+    }
+
+    @Test
+    public void shouldUseInstanceWhoseEjectionEndsFirstWhenAllAreEjected() throws InterruptedException {
+        //given
+        LoadBalancer balancer = new LoadBalancer("Keepers", "http://keepers1,http://keepers2", 1, 60000);
+        balancer.onFailure(balancer.getInstances().get(0), new ResourceAccessException("timeout"));
+        Thread.sleep(5);
+        balancer.onFailure(balancer.getInstances().get(1), new ResourceAccessException("timeout"));
+
+        //when
+        ServiceInstance chosen = balancer.choose();
+
+        //then
+        assertSame(balancer.getInstances().get(0), chosen);
+    }
+
+    @Test
+    public void shouldCountOnlyServerSideErrorsAsFailures() {
+        //given
+        LoadBalancer balancer = new LoadBalancer("Keepers", "http://keepers1", 1, 60000);
+        ServiceInstance instance = balancer.getInstances().get(0);
+
+        //when
+        execute(balancer, new HttpClientErrorException(HttpStatus.BAD_REQUEST));
+        boolean ejectedAfterClientError = instance.isEjected(System.currentTimeMillis());
+        execute(balancer, new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE));
+
+        //then
+        assertFalse(ejectedAfterClientError);
+        assertTrue(instance.isEjected(System.currentTimeMillis()));
+        assertEquals(0, instance.getOutstanding());
+    }
+
+    private static void execute(LoadBalancer balancer, RuntimeException exception) {
+        try {
+            balancer.execute(instance -> {
+                throw exception;
+            });
+            fail();
+        } catch (RuntimeException ex) {
+            assertSame(exception, ex);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package ua.com.juja.microservices.keepers.slackbot.balancer;
+
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import ua.com.juja.microservices.keepers.slackbot.concurrent.Deadline;
+import ua.com.juja.microservices.keepers.slackbot.concurrent.LimitExceededException;
+
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RetrierTest {
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    @Test
+    public void shouldRetryIdempotentRequestAfterConnectionReset() {
+        //given
+        Retrier retrier = new Retrier("Keepers", true, 3, 1, 5, 10);
+
+        //when
+        String result = retrier.execute(() -> failTimes(2, connectionReset()), true);
+
+        //then
+        assertEquals("answer", result);
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    public void shouldGiveUpAfterMaxAttempts() {
+        //given
+        Retrier retrier = new Retrier("Keepers", true, 2, 1, 5, 10);
+
+        //when
+        execute(retrier, connectionReset(), true);
+
+        //then
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    public void shouldRetryOtherRequestsOnlyWhenConnectionWasNotEstablished() {
+        //given
+        Retrier retrier = new Retrier("Keepers", true, 3, 1, 5, 10);
+
+        //when
+        execute(retrier, connectionReset(), false);
+        int attemptsAfterReset = attempts.getAndSet(0);
+        String result = retrier.execute(
+                () -> failTimes(1, new ResourceAccessException("refused", new ConnectException("refused"))), false);
+
+        //then
+        assertEquals(1, attemptsAfterReset);
+        assertEquals("answer", result);
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    public void shouldNotRetryMoreThanBudgetAllows() {
+        //given
+        Retrier retrier = new Retrier("Keepers", true, 3, 1, 5, 0.5);
+
+        //when
+        execute(retrier, connectionReset(), true);
+        int firstAttempts = attempts.getAndSet(0);
+        execute(retrier, connectionReset(), true);
+
+        //then
+        assertEquals(1, firstAttempts);
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    public void shouldNotRetryWhenBackoffDoesNotFitIntoDeadline() {
+        //given
+        Retrier retrier = new Retrier("Keepers", true, 3, 1000, 1000, 10);
+
+        //when
+        Deadline.callBefore(Deadline.after(0), () -> execute(retrier, connectionReset(), true));
+
+        //then
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    public void shouldClassifyRetryableFailures() {
+        //then
+        assertTrue(Retrier.isRetryable(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE), true));
+        assertFalse(Retrier.isRetryable(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE), false));
+        assertFalse(Retrier.isRetryable(new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR), true));
+        assertFalse(Retrier.isRetryable(new HttpClientErrorException(HttpStatus.BAD_REQUEST), true));
+        assertFalse(Retrier.isRetryable(new LimitExceededException("limit"), true));
+    }
+
+    private String failTimes(int failures, RuntimeException failure) {
+        if (attempts.incrementAndGet() <= failures) {
+            throw failure;
+        }
+        return "answer";
+    }
+
+    private Void execute(Retrier retrier, RuntimeException failure, boolean idempotent) {
+        try {
+            retrier.execute(() -> failTimes(Integer.MAX_VALUE, failure), idempotent);
+            fail();
+        } catch (RuntimeException ex) {
+            assertEquals(failure, ex);
+        }
+        return null;
+    }
+
+    private static ResourceAccessException connectionReset() {
+        return new ResourceAccessException("reset", new SocketException("Connection reset"));
+    }
+}
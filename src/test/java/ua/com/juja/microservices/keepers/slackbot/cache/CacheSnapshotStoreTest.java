@@ -0,0 +1,124 @@
+package ua.com.juja.microservices.keepers.slackbot.cache;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import ua.com.juja.microservices.keepers.slackbot.dao.UserRepository;
+import ua.com.juja.microservices.keepers.slackbot.model.dto.UserDTO;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+public class CacheSnapshotStoreTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File snapshotFile;
+    private ExecutorService executor;
+
+    @Before
+    public void setup() {
+        snapshotFile = new File(folder.getRoot(), "cache.snapshot");
+        executor = mock(ExecutorService.class);
+    }
+
+    @Test
+    public void writtenSnapshotShouldBeRestoredAsStaleEntries() {
+        //given
+        Caches written = new Caches();
+        written.userDirectory.put(new UserDTO("uuid1", "slack1"));
+        written.userDirectory.put(new UserDTO(null, "slack2"));
+        written.directionsCache.put("uuid1", new String[]{"teams", "codenjoy"});
+        written.snapshotStore.write();
+        Caches restored = new Caches();
+
+        //when
+        restored.snapshotStore.restore();
+
+        //then
+        assertTrue(snapshotFile.isFile());
+        assertFalse(new File(snapshotFile.getPath() + ".tmp").exists());
+        assertEquals(new UserDTO("uuid1", "slack1"), restored.userDirectory.find("slack1"));
+        assertEquals(new UserDTO(null, "slack2"), restored.userDirectory.find("slack2"));
+        KeeperDirections directions = restored.directionsCache.getOrLoad("uuid1", () -> new String[]{"new"});
+        assertArrayEquals(new String[]{"teams", "codenjoy"}, directions.getDirections());
+        assertTrue(directions.isOutdated());
+        verify(executor).execute(any(Runnable.class));
+    }
+
+    @Test
+    public void snapshotWithOtherVersionShouldBeIgnored() throws Exception {
+        //given
+        Files.write(snapshotFile.toPath(), ByteBuffer.allocate(20)
+                .putInt(CacheSnapshotStore.MAGIC).putInt(CacheSnapshotStore.VERSION + 1).putLong(0).putInt(0)
+                .array());
+        Caches restored = new Caches();
+
+        //when
+        restored.snapshotStore.restore();
+
+        //then
+        assertEquals(0, restored.userDirectory.size());
+    }
+
+    @Test
+    public void brokenSnapshotShouldBeIgnored() throws Exception {
+        //given
+        Files.write(snapshotFile.toPath(), ByteBuffer.allocate(24)
+                .putInt(CacheSnapshotStore.MAGIC).putInt(CacheSnapshotStore.VERSION).putLong(0).putInt(1).putInt(100)
+                .array());
+        Caches restored = new Caches();
+
+        //when
+        restored.snapshotStore.restore();
+
+        //then
+        assertNull(restored.userDirectory.find("slack1"));
+    }
+
+    @Test
+    public void disabledStoreShouldNotWriteSnapshot() {
+        //given
+        Caches caches = new Caches();
+        ReflectionTestUtils.setField(caches.snapshotStore, "file", "");
+        caches.userDirectory.put(new UserDTO("uuid1", "slack1"));
+
+        //when
+        caches.snapshotStore.write();
+        caches.snapshotStore.restoreInBackground();
+
+        //then
+        assertFalse(snapshotFile.exists());
+        verifyZeroInteractions(executor);
+    }
+
+    private class Caches {
+        private UserDirectory userDirectory = new MapUserDirectory();
+        private KeeperDirectionsCache directionsCache = new KeeperDirectionsCache(new DirectionRegistry(), executor);
+        private CacheSnapshotStore snapshotStore;
+
+        private Caches() {
+            UserDirectoryLoader loader = new UserDirectoryLoader(mock(UserRepository.class), userDirectory);
+            ReflectionTestUtils.setField(loader, "enabled", true);
+            ReflectionTestUtils.setField(loader, "staleWhileRevalidate", 3600000L);
+            ReflectionTestUtils.setField(directionsCache, "ttl", 60000L);
+            ReflectionTestUtils.setField(directionsCache, "staleWhileRevalidate", 3600000L);
+            snapshotStore = new CacheSnapshotStore(userDirectory, loader, directionsCache, executor);
+            ReflectionTestUtils.setField(snapshotStore, "file", snapshotFile.getPath());
+        }
+    }
+}
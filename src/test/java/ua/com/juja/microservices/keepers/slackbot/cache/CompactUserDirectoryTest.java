@@ -0,0 +1,125 @@
+package ua.com.juja.microservices.keepers.slackbot.cache;
+
+import org.junit.Test;
+import ua.com.juja.microservices.keepers.slackbot.model.dto.UserDTO;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CompactUserDirectoryTest {
+    private CompactUserDirectory directory = new CompactUserDirectory();
+
+    @Test
+    public void putAndFindUser() {
+        //when
+        directory.put(new UserDTO("uuid1", "slack1"));
+        directory.put(new UserDTO("uuid2", "slack2"));
+
+        //then
+        assertEquals(new UserDTO("uuid1", "slack1"), directory.find("slack1"));
+        assertEquals(new UserDTO("uuid2", "slack2"), directory.find("slack2"));
+        assertNull(directory.find("slack3"));
+        assertEquals(2, directory.size());
+    }
+
+    @Test
+    public void putShouldReplaceUuidOfKnownSlackUser() {
+        //given
+        directory.put(new UserDTO("uuid1", "slack1"));
+
+        //when
+        directory.put(new UserDTO("uuid", "slack1"));
+        directory.put(new UserDTO("much-longer-uuid", "slack1"));
+
+        //then
+        assertEquals(new UserDTO("much-longer-uuid", "slack1"), directory.find("slack1"));
+        assertEquals(1, directory.size());
+        assertEquals(Collections.singletonList("slack1"), directory.slackUsers());
+    }
+
+    @Test
+    public void removeShouldForgetUser() {
+        //given
+        directory.put(new UserDTO("uuid1", "slack1"));
+        directory.put(new UserDTO("uuid2", "slack2"));
+
+        //when
+        directory.remove("slack1");
+        directory.remove("unknown");
+
+        //then
+        assertNull(directory.find("slack1"));
+        assertEquals(new UserDTO("uuid2", "slack2"), directory.find("slack2"));
+        assertEquals(Collections.singletonList("slack2"), directory.slackUsers());
+    }
+
+    @Test
+    public void shouldKeepNonLatinTextsAndNullUuid() {
+        //when
+        directory.put(new UserDTO("\u0443\u0443\u0456\u0434", "\u0441\u043b\u0435\u043a"));
+        directory.put(new UserDTO(null, "slack-without-uuid"));
+
+        //then
+        assertEquals(new UserDTO("\u0443\u0443\u0456\u0434", "\u0441\u043b\u0435\u043a"), directory.find("\u0441\u043b\u0435\u043a"));
+        assertEquals(new UserDTO(null, "slack-without-uuid"), directory.find("slack-without-uuid"));
+    }
+
+    @Test
+    public void shouldBehaveLikeMapUnderRandomChanges() {
+        //given
+        Random random = new Random(42);
+        Map<String, UserDTO> expected = new HashMap<>();
+
+        //when
+        for (int i = 0; i < 100_000; i++) {
+            String slackUser = "U" + random.nextInt(5_000);
+            if (random.nextInt(4) == 0) {
+                directory.remove(slackUser);
+                expected.remove(slackUser);
+            } else {
+                UserDTO user = new UserDTO("uuid-" + random.nextInt(1_000_000), slackUser);
+                directory.put(user);
+                expected.put(slackUser, user);
+            }
+        }
+
+        //then
+        assertEquals(expected.size(), directory.size());
+        for (UserDTO user : expected.values()) {
+            assertEquals(user, directory.find(user.getSlackUser()));
+        }
+        List<String> slackUsers = new ArrayList<>(directory.slackUsers());
+        Collections.sort(slackUsers);
+        List<String> expectedSlackUsers = new ArrayList<>(expected.keySet());
+        Collections.sort(expectedSlackUsers);
+        assertEquals(expectedSlackUsers, slackUsers);
+    }
+
+    @Test
+    public void footprintShouldBeSmallerThanMapDirectory() {
+        //given
+        MapUserDirectory mapDirectory = new MapUserDirectory();
+        for (int i = 0; i < 10_000; i++) {
+            UserDTO user = new UserDTO(String.format("%08d-a7c2-4e1b-9f3d-5b6c7d8e9f00", i), "U0" + (1_000_000 + i));
+            directory.put(user);
+            mapDirectory.put(user);
+        }
+
+        //then
+        assertTrue(directory.footprintReport().startsWith("users: 10000,"));
+        assertTrue(directory.footprint() * 2 < bytesOf(mapDirectory.footprintReport()));
+    }
+
+    private static long bytesOf(String footprintReport) {
+        String total = footprintReport.substring(footprintReport.indexOf("total: ") + 7);
+        return Long.parseLong(total.substring(0, total.indexOf(' ')));
+    }
+}
@@ -0,0 +1,54 @@
+package ua.com.juja.microservices.keepers.slackbot.cache;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class DirectionRegistryTest {
+    private DirectionRegistry registry = new DirectionRegistry();
+
+    @Test
+    public void registerShouldReturnSameIdForNormalisedDirection() {
+        //when
+        int id = registry.register("Teams");
+
+        //then
+        assertEquals(id, registry.register(" teams "));
+        assertEquals(id, registry.find("TEAMS"));
+        assertEquals("Teams", registry.getName(id));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    public void findUnknownDirectionShouldReturnMinusOne() {
+        assertEquals(-1, registry.find("unknown"));
+    }
+
+    @Test
+    public void toBitSetAndBackShouldKeepDirections() {
+        //given
+        registry.register("codenjoy");
+
+        //when
+        BitSet directions = registry.toBitSet(new String[]{"teams", "codenjoy"});
+
+        //then
+        assertEquals(2, directions.cardinality());
+        assertArrayEquals(new String[]{"codenjoy", "teams"}, registry.toDirections(directions));
+    }
+
+    @Test
+    public void registerShouldGrowBeyondInitialCapacity() {
+        //when
+        for (int i = 0; i < 200; i++) {
+            registry.register("direction" + i);
+        }
+
+        //then
+        assertEquals(200, registry.size());
+        assertEquals("direction199", registry.getName(registry.find("direction199")));
+    }
+}
@@ -0,0 +1,194 @@
+package ua.com.juja.microservices.keepers.slackbot.cache;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+public class KeeperDirectionsCacheTest {
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    private ExecutorService executor;
+    private KeeperDirectionsCache cache;
+
+    @Before
+    public void setup() {
+        executor = mock(ExecutorService.class);
+        cache = new KeeperDirectionsCache(new DirectionRegistry(), executor);
+    }
+
+    @Test
+    public void disabledCacheShouldAlwaysLoadDirections() {
+        //when
+        cache.getOrLoad("uuid1", () -> new String[]{"teams"});
+        KeeperDirections actual = cache.getOrLoad("uuid1", () -> new String[]{"codenjoy"});
+
+        //then
+        assertArrayEquals(new String[]{"codenjoy"}, actual.getDirections());
+    }
+
+    @Test
+    public void freshEntryShouldBeServedFromCache() {
+        //given
+        configure(60000, 0, 0);
+        cache.getOrLoad("uuid1", () -> new String[]{"teams"});
+
+        //when
+        KeeperDirections actual = cache.getOrLoad("uuid1", () -> new String[]{"codenjoy"});
+
+        //then
+        assertArrayEquals(new String[]{"teams"}, actual.getDirections());
+        assertFalse(actual.isOutdated());
+    }
+
+    @Test
+    public void staleEntryShouldBeServedAndRevalidatedInBackground() throws Exception {
+        //given
+        configure(1, 60000, 0);
+        cache.getOrLoad("uuid1", () -> new String[]{"teams"});
+        Thread.sleep(5);
+        ArgumentCaptor<Runnable> refresh = ArgumentCaptor.forClass(Runnable.class);
+
+        //when
+        KeeperDirections stale = cache.getOrLoad("uuid1", () -> new String[]{"codenjoy"});
+        verify(executor).execute(refresh.capture());
+        refresh.getValue().run();
+        configure(60000, 60000, 0);
+        KeeperDirections revalidated = cache.getOrLoad("uuid1", () -> new String[]{"other"});
+
+        //then
+        assertArrayEquals(new String[]{"teams"}, stale.getDirections());
+        assertArrayEquals(new String[]{"codenjoy"}, revalidated.getDirections());
+    }
+
+    @Test
+    public void revalidationStartedBeforeEvictionShouldNotBeInstalled() throws Exception {
+        //given
+        configure(1, 60000, 0);
+        cache.getOrLoad("uuid1", () -> new String[]{"teams"});
+        Thread.sleep(5);
+        ArgumentCaptor<Runnable> refresh = ArgumentCaptor.forClass(Runnable.class);
+        cache.getOrLoad("uuid1", () -> new String[]{"teams"});
+        verify(executor).execute(refresh.capture());
+
+        //when
+        cache.evict("uuid1");
+        refresh.getValue().run();
+        configure(60000, 60000, 0);
+        KeeperDirections actual = cache.getOrLoad("uuid1", () -> new String[]{"codenjoy"});
+
+        //then
+        assertArrayEquals(new String[]{"codenjoy"}, actual.getDirections());
+    }
+
+    @Test
+    public void purgeShouldRemoveEntriesAfterStaleWindows() throws Exception {
+        //given
+        configure(1, 1, 1);
+        cache.getOrLoad("uuid1", () -> new String[]{"teams"});
+        Thread.sleep(5);
+
+        //when
+        cache.purgeExpired();
+
+        //then
+        assertTrue(cache.snapshot().isEmpty());
+    }
+
+    @Test
+    public void expiredEntryShouldBeServedAsOutdatedWhenServiceIsUnavailable() throws Exception {
+        //given
+        configure(1, 0, 60000);
+        cache.getOrLoad("uuid1", () -> new String[]{"teams"});
+        Thread.sleep(5);
+
+        //when
+        KeeperDirections actual = cache.getOrLoad("uuid1", () -> {
+            throw new ResourceAccessException("Connection refused");
+        });
+
+        //then
+        assertArrayEquals(new String[]{"teams"}, actual.getDirections());
+        assertTrue(actual.isOutdated());
+        verifyZeroInteractions(executor);
+    }
+
+    @Test
+    public void missingEntryShouldRethrowWhenServiceIsUnavailable() {
+        //given
+        configure(60000, 60000, 60000);
+        thrown.expect(ResourceAccessException.class);
+
+        //when
+        cache.getOrLoad("uuid1", () -> {
+            throw new ResourceAccessException("Connection refused");
+        });
+    }
+
+    @Test
+    public void restoredEntryShouldBeServedAsOutdatedAndRevalidated() {
+        //given
+        configure(60000, 60000, 0);
+        cache.restore("uuid1", new String[]{"teams"}, System.currentTimeMillis());
+
+        //when
+        KeeperDirections actual = cache.getOrLoad("uuid1", () -> new String[]{"codenjoy"});
+
+        //then
+        assertArrayEquals(new String[]{"teams"}, actual.getDirections());
+        assertTrue(actual.isOutdated());
+        assertTrue(actual.isRestored());
+        verify(executor).execute(any(Runnable.class));
+    }
+
+    @Test
+    public void restoredEntryShouldNotBeServedWithoutStaleWhileRevalidate() {
+        //given
+        configure(60000, 0, 60000);
+        cache.restore("uuid1", new String[]{"teams"}, System.currentTimeMillis());
+
+        //when
+        KeeperDirections actual = cache.getOrLoad("uuid1", () -> new String[]{"codenjoy"});
+
+        //then
+        assertArrayEquals(new String[]{"codenjoy"}, actual.getDirections());
+        assertFalse(actual.isOutdated());
+        verifyZeroInteractions(executor);
+    }
+
+    @Test
+    public void restoredEntryShouldBeServedAsOutdatedWhenServiceIsUnavailable() {
+        //given
+        configure(60000, 0, 60000);
+        cache.restore("uuid1", new String[]{"teams"}, System.currentTimeMillis());
+
+        //when
+        KeeperDirections actual = cache.getOrLoad("uuid1", () -> {
+            throw new ResourceAccessException("Connection refused");
+        });
+
+        //then
+        assertArrayEquals(new String[]{"teams"}, actual.getDirections());
+        assertTrue(actual.isOutdated());
+    }
+
+    private void configure(long ttl, long staleWhileRevalidate, long staleIfError) {
+        ReflectionTestUtils.setField(cache, "ttl", ttl);
+        ReflectionTestUtils.setField(cache, "staleWhileRevalidate", staleWhileRevalidate);
+        ReflectionTestUtils.setField(cache, "staleIfError", staleIfError);
+    }
+}
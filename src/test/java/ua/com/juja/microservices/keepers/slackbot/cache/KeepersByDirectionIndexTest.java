@@ -0,0 +1,111 @@
+package ua.com.juja.microservices.keepers.slackbot.cache;
+
+import org.junit.Before;
+import org.junit.Test;
+import ua.com.juja.microservices.keepers.slackbot.dao.KeeperRepository;
+import ua.com.juja.microservices.keepers.slackbot.model.dto.UserDTO;
+import ua.com.juja.microservices.keepers.slackbot.model.request.KeeperRequest;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class KeepersByDirectionIndexTest {
+    private KeeperRepository keeperRepository;
+    private KeepersByDirectionIndex index;
+    private UserDTO user1 = new UserDTO("uuid1", "slack1");
+    private UserDTO user2 = new UserDTO("uuid2", "slack2");
+
+    @Before
+    public void setup() {
+        keeperRepository = mock(KeeperRepository.class);
+        index = new KeepersByDirectionIndex(keeperRepository, new DirectionRegistry());
+    }
+
+    @Test
+    public void findKeepersShouldReturnKeepersFromDirectionsResponses() {
+        //given
+        index.onKeeperDirections(user1, new String[]{"teams", "Codenjoy"});
+        index.onKeeperDirections(user2, new String[]{"teams"});
+
+        //then
+        assertEquals(new HashSet<>(Arrays.asList(user1, user2)), new HashSet<>(index.findKeepers("teams")));
+        assertEquals(Collections.singletonList(user1), index.findKeepers("codenjoy"));
+    }
+
+    @Test
+    public void knownNameShouldReturnFirstSeenSpelling() {
+        //given
+        index.onKeeperDirections(user1, new String[]{"Codenjoy"});
+
+        //then
+        assertEquals("Codenjoy", index.knownName(" codenjoy"));
+        assertEquals("teams", index.knownName("teams "));
+    }
+
+    @Test
+    public void newDirectionsResponseShouldReplacePreviousDirectionsOfKeeper() {
+        //given
+        index.onKeeperDirections(user1, new String[]{"teams"});
+
+        //when
+        index.onKeeperDirections(user1, new String[]{"codenjoy"});
+
+        //then
+        assertEquals(Collections.emptyList(), index.findKeepers("teams"));
+        assertEquals(Collections.singletonList(user1), index.findKeepers("codenjoy"));
+    }
+
+    @Test
+    public void addAndDeactivateResultsShouldUpdateIndex() {
+        //when
+        index.onKeeperAdded(user1, "teams");
+        index.onKeeperAdded(user2, "teams");
+        index.onKeeperDeactivated(user1, "teams");
+
+        //then
+        assertEquals(Collections.singletonList(user2), index.findKeepers("teams"));
+    }
+
+    @Test
+    public void refreshShouldReloadDirectionsOfKnownKeepers() {
+        //given
+        index.onKeeperAdded(user1, "teams");
+        when(keeperRepository.getKeeperDirections(new KeeperRequest("uuid1", "uuid1", "")))
+                .thenReturn(new String[]{"codenjoy"});
+
+        //when
+        index.refresh();
+
+        //then
+        assertEquals(Collections.emptyList(), index.findKeepers("teams"));
+        assertEquals(Collections.singletonList(user1), index.findKeepers("codenjoy"));
+    }
+
+    @Test
+    public void findKeepersOfAllShouldReturnKeepersOfEveryDirection() {
+        //given
+        index.onKeeperDirections(user1, new String[]{"teams", "codenjoy"});
+        index.onKeeperDirections(user2, new String[]{"teams"});
+
+        //then
+        assertEquals(Collections.singletonList(user1), index.findKeepersOfAll(new String[]{"teams", "codenjoy"}));
+        assertEquals(Collections.emptyList(), index.findKeepersOfAll(new String[]{"teams", "unknown"}));
+    }
+
+    @Test
+    public void findDirectionsWithoutKeepersShouldReturnDeactivatedDirections() {
+        //given
+        index.onKeeperAdded(user1, "teams");
+        index.onKeeperAdded(user1, "codenjoy");
+        index.onKeeperDeactivated(user1, "teams");
+
+        //then
+        assertArrayEquals(new String[]{"teams"}, index.findDirectionsWithoutKeepers());
+    }
+}
@@ -0,0 +1,97 @@
+package ua.com.juja.microservices.keepers.slackbot.cache;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class RecentMutationsOverlayTest {
+    private RecentMutationsOverlay overlay;
+
+    @Before
+    public void setup() {
+        overlay = new RecentMutationsOverlay();
+        ReflectionTestUtils.setField(overlay, "ttl", 60000L);
+    }
+
+    @Test
+    public void disabledOverlayShouldReturnDirectionsAsIs() {
+        //given
+        ReflectionTestUtils.setField(overlay, "ttl", 0L);
+        String[] directions = {"teams"};
+
+        //when
+        overlay.onKeeperDeactivated("uuid", "teams");
+
+        //then
+        assertSame(directions, overlay.apply("uuid", directions));
+    }
+
+    @Test
+    public void shouldAppendAddedAndRemoveDeactivatedDirections() {
+        //given
+        overlay.onKeeperAdded("uuid", "codenjoy");
+        overlay.onKeeperDeactivated("uuid", "Teams");
+
+        //when
+        String[] directions = overlay.apply("uuid", new String[]{"teams", "interview"});
+
+        //then
+        assertArrayEquals(new String[]{"interview", "codenjoy"}, directions);
+    }
+
+    @Test
+    public void shouldNotDuplicateDirectionAlreadyReturned() {
+        //given
+        overlay.onKeeperAdded("uuid", "teams");
+
+        //when
+        String[] directions = overlay.apply("uuid", new String[]{"Teams"});
+
+        //then
+        assertArrayEquals(new String[]{"Teams"}, directions);
+    }
+
+    @Test
+    public void lastMutationOfDirectionShouldWin() {
+        //given
+        overlay.onKeeperAdded("uuid", "teams");
+        overlay.onKeeperDeactivated("uuid", "teams");
+
+        //when
+        String[] directions = overlay.apply("uuid", new String[]{"teams"});
+
+        //then
+        assertArrayEquals(new String[0], directions);
+    }
+
+    @Test
+    public void shouldNotApplyMutationsOfOtherKeeper() {
+        //given
+        overlay.onKeeperAdded("other-uuid", "teams");
+
+        //when
+        String[] directions = overlay.apply("uuid", new String[0]);
+
+        //then
+        assertArrayEquals(new String[0], directions);
+    }
+
+    @Test
+    public void shouldForgetExpiredMutations() throws InterruptedException {
+        //given
+        ReflectionTestUtils.setField(overlay, "ttl", 1L);
+        overlay.onKeeperAdded("uuid", "teams");
+        Thread.sleep(5);
+
+        //when
+        String[] directions = overlay.apply("uuid", new String[0]);
+
+        //then
+        assertArrayEquals(new String[0], directions);
+        assertEquals(0, overlay.size());
+    }
+}
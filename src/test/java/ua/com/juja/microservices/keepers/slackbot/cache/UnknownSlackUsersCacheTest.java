@@ -0,0 +1,134 @@
+package ua.com.juja.microservices.keepers.slackbot.cache;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class UnknownSlackUsersCacheTest {
+    private UnknownSlackUsersCache cache;
+
+    @Before
+    public void setup() {
+        cache = new UnknownSlackUsersCache();
+        ReflectionTestUtils.setField(cache, "ttl", 60000L);
+        ReflectionTestUtils.setField(cache, "maxSize", 100);
+    }
+
+    @Test
+    public void disabledCacheShouldNotRememberSlackUsers() {
+        //given
+        ReflectionTestUtils.setField(cache, "ttl", 0L);
+
+        //when
+        cache.onResolved(Collections.singletonList("unknown"), Collections.emptyList());
+
+        //then
+        assertFalse(cache.isUnknown("unknown"));
+    }
+
+    @Test
+    public void shouldRememberOnlySlackUsersAbsentInResponse() {
+        //when
+        cache.onResolved(Arrays.asList("slack1", "unknown"), Collections.singletonList("slack1"));
+
+        //then
+        assertTrue(cache.isUnknown("unknown"));
+        assertFalse(cache.isUnknown("slack1"));
+        Map<String, Number> metrics = cache.metrics().stream()
+                .collect(Collectors.toMap(Metric::getName, Metric::getValue));
+        assertEquals(1, metrics.get("cache.unknownSlackUsers.size").intValue());
+        assertEquals(1L, metrics.get("cache.unknownSlackUsers.hits"));
+        assertEquals(1L, metrics.get("cache.unknownSlackUsers.misses"));
+        assertEquals(1L, metrics.get("cache.unknownSlackUsers.additions"));
+    }
+
+    @Test
+    public void expiredSlackUserShouldBeRequestedAgain() {
+        //given
+        ReflectionTestUtils.setField(cache, "ttl", 1L);
+        cache.onResolved(Collections.singletonList("unknown"), Collections.emptyList());
+
+        //when
+        ReflectionTestUtils.setField(cache, "ttl", -1L);
+
+        //then
+        assertFalse(cache.isUnknown("unknown"));
+    }
+
+    @Test
+    public void purgeShouldForgetSlackUsers() {
+        //given
+        cache.onResolved(Arrays.asList("unknown1", "unknown2", "unknown3"), Collections.emptyList());
+
+        //when
+        boolean purged = cache.purge("unknown1");
+        int purgedCount = cache.purge();
+
+        //then
+        assertTrue(purged);
+        assertEquals(2, purgedCount);
+        assertFalse(cache.isUnknown("unknown2"));
+    }
+
+    @Test
+    public void fullCacheShouldNotRememberNewSlackUsers() {
+        //given
+        ReflectionTestUtils.setField(cache, "maxSize", 2);
+        cache.onResolved(Arrays.asList("unknown1", "unknown2"), Collections.emptyList());
+
+        //when
+        cache.onResolved(Collections.singletonList("unknown3"), Collections.emptyList());
+
+        //then
+        assertFalse(cache.isUnknown("unknown3"));
+        assertTrue(cache.isUnknown("unknown1"));
+        Map<String, Number> metrics = cache.metrics().stream()
+                .collect(Collectors.toMap(Metric::getName, Metric::getValue));
+        assertEquals(2, metrics.get("cache.unknownSlackUsers.size").intValue());
+        assertEquals(1L, metrics.get("cache.unknownSlackUsers.overflows"));
+    }
+
+    @Test
+    public void fullCacheShouldMakeRoomByPurgingExpiredSlackUsers() {
+        //given
+        ReflectionTestUtils.setField(cache, "maxSize", 2);
+        ReflectionTestUtils.setField(cache, "ttl", -1L);
+        cache.onResolved(Arrays.asList("expired1", "expired2"), Collections.emptyList());
+        ReflectionTestUtils.setField(cache, "ttl", 60000L);
+
+        //when
+        cache.onResolved(Collections.singletonList("unknown"), Collections.emptyList());
+
+        //then
+        assertTrue(cache.isUnknown("unknown"));
+        assertEquals(Collections.singletonList("unknown"), cache.unknownSlackUsers());
+    }
+
+    @Test
+    public void purgeExpiredShouldRemoveOnlyExpiredSlackUsers() {
+        //given
+        cache.onResolved(Collections.singletonList("unknown"), Collections.emptyList());
+        ReflectionTestUtils.setField(cache, "ttl", -1L);
+        cache.onResolved(Collections.singletonList("expired"), Collections.emptyList());
+        ReflectionTestUtils.setField(cache, "ttl", 60000L);
+
+        //when
+        cache.purgeExpired();
+
+        //then
+        Map<String, Number> metrics = cache.metrics().stream()
+                .collect(Collectors.toMap(Metric::getName, Metric::getValue));
+        assertEquals(1, metrics.get("cache.unknownSlackUsers.size").intValue());
+        assertTrue(cache.isUnknown("unknown"));
+    }
+}
@@ -0,0 +1,47 @@
+package ua.com.juja.microservices.keepers.slackbot.cache;
+
+import ua.com.juja.microservices.keepers.slackbot.model.dto.UserDTO;
+
+import java.util.function.Supplier;
+
+/**
+ * Measures the heap taken by 50 000 users in {@link MapUserDirectory} and in {@link CompactUserDirectory}, together
+ * with their own footprint reports and lookup time. Run it with the main method, it is not a part of the test suite.
+ */
+public class UserDirectoryFootprintBenchmark {
+    private static final int USERS = 50_000;
+
+    public static void main(String[] args) {
+        report("map    ", MapUserDirectory::new);
+        report("compact", CompactUserDirectory::new);
+    }
+
+    private static void report(String name, Supplier<UserDirectory> directoryFactory) {
+        long usedBefore = usedHeap();
+        UserDirectory directory = directoryFactory.get();
+        for (int i = 0; i < USERS; i++) {
+            directory.put(new UserDTO(String.format("%08x-a7c2-4e1b-9f3d-5b6c7d8e9f00", i), "U0" + (1_000_000 + i)));
+        }
+        long used = usedHeap() - usedBefore;
+
+        long found = 0;
+        long startedAt = System.nanoTime();
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < USERS; i++) {
+                found += directory.find("U0" + (1_000_000 + i)) != null ? 1 : 0;
+            }
+        }
+        long elapsed = System.nanoTime() - startedAt;
+
+        System.out.printf("%s: measured %d bytes per user, %d ns per lookup (%d found)%n        %s%n", name,
+                used / USERS, elapsed / (20L * USERS), found, directory.footprintReport());
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,187 @@
+package ua.com.juja.microservices.keepers.slackbot.cache;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+import ua.com.juja.microservices.keepers.slackbot.dao.UserRepository;
+import ua.com.juja.microservices.keepers.slackbot.model.dto.UserDTO;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+public class UserDirectoryLoaderTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private UserRepository userRepository;
+    private UserDirectory userDirectory;
+    private UserDirectoryLoader loader;
+
+    @Before
+    public void setup() {
+        userRepository = mock(UserRepository.class);
+        userDirectory = new MapUserDirectory();
+        loader = new UserDirectoryLoader(userRepository, userDirectory);
+        ReflectionTestUtils.setField(loader, "enabled", true);
+        ReflectionTestUtils.setField(loader, "preloadSlackUsers", "");
+        ReflectionTestUtils.setField(loader, "preloadFile", "");
+        ReflectionTestUtils.setField(loader, "batchSize", 2);
+        ReflectionTestUtils.setField(loader, "refreshSliceSize", 2);
+        ReflectionTestUtils.setField(loader, "staleWhileRevalidate", 60000L);
+    }
+
+    @Test
+    public void disabledLoaderShouldNotRequestUsers() {
+        //given
+        ReflectionTestUtils.setField(loader, "enabled", false);
+        ReflectionTestUtils.setField(loader, "preloadSlackUsers", "slack1");
+
+        //when
+        loader.preload();
+        loader.refreshSlice();
+
+        //then
+        verifyZeroInteractions(userRepository);
+    }
+
+    @Test
+    public void preloadShouldRequestUsersFromPropertyAndFileInBatches() throws Exception {
+        //given
+        File seedFile = folder.newFile("slack-users.txt");
+        Files.write(seedFile.toPath(), Arrays.asList("# seed", "slack2", "slack3", ""), StandardCharsets.UTF_8);
+        ReflectionTestUtils.setField(loader, "preloadSlackUsers", "slack1, slack2");
+        ReflectionTestUtils.setField(loader, "preloadFile", seedFile.getAbsolutePath());
+        when(userRepository.findUsersBySlackUsers(Arrays.asList("slack1", "slack2")))
+                .thenReturn(Arrays.asList(new UserDTO("uuid1", "slack1"), new UserDTO("uuid2", "slack2")));
+        when(userRepository.findUsersBySlackUsers(Collections.singletonList("slack3")))
+                .thenThrow(new ResourceAccessException("Users service is unavailable"));
+
+        //when
+        loader.preload();
+
+        //then
+        assertEquals(2, userDirectory.size());
+        assertEquals(new UserDTO("uuid1", "slack1"), userDirectory.find("slack1"));
+        verify(userRepository).findUsersBySlackUsers(Arrays.asList("slack1", "slack2"));
+        verify(userRepository).findUsersBySlackUsers(Collections.singletonList("slack3"));
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    public void refreshSliceShouldUpdateAndRemoveUsersSliceBySlice() {
+        //given
+        userDirectory.put(new UserDTO("uuid3", "slack3"));
+        userDirectory.put(new UserDTO("uuid1", "slack1"));
+        userDirectory.put(new UserDTO("uuid2", "slack2"));
+        List<String> firstSlice = Arrays.asList("slack1", "slack2");
+        List<String> secondSlice = Collections.singletonList("slack3");
+        when(userRepository.findUsersBySlackUsers(firstSlice)).thenReturn(Arrays.asList(
+                new UserDTO(firstSlice.get(0) + "-new", firstSlice.get(0)),
+                new UserDTO(firstSlice.get(1) + "-new", firstSlice.get(1))));
+        when(userRepository.findUsersBySlackUsers(secondSlice)).thenReturn(Collections.emptyList());
+
+        //when
+        loader.refreshSlice();
+
+        //then
+        verify(userRepository).findUsersBySlackUsers(firstSlice);
+        verifyNoMoreInteractions(userRepository);
+        assertEquals(firstSlice.get(0) + "-new", userDirectory.find(firstSlice.get(0)).getUuid());
+        assertEquals(3, userDirectory.size());
+
+        //when
+        loader.refreshSlice();
+
+        //then
+        verify(userRepository).findUsersBySlackUsers(secondSlice);
+        assertNull(userDirectory.find(secondSlice.get(0)));
+        assertEquals(2, userDirectory.size());
+    }
+
+    @Test
+    public void refreshSliceShouldNotSkipUsersWhenDirectoryChangesBetweenTicks() {
+        //given
+        userDirectory.put(new UserDTO("uuid2", "slack2"));
+        userDirectory.put(new UserDTO("uuid3", "slack3"));
+        userDirectory.put(new UserDTO("uuid4", "slack4"));
+        userDirectory.put(new UserDTO("uuid5", "slack5"));
+        when(userRepository.findUsersBySlackUsers(Arrays.asList("slack2", "slack3"))).thenReturn(Arrays.asList(
+                new UserDTO("uuid2", "slack2"), new UserDTO("uuid3", "slack3")));
+        loader.refreshSlice();
+        userDirectory.put(new UserDTO("uuid1", "slack1"));
+        userDirectory.remove("slack3");
+
+        //when
+        loader.refreshSlice();
+
+        //then
+        verify(userRepository).findUsersBySlackUsers(Arrays.asList("slack2", "slack3"));
+        verify(userRepository).findUsersBySlackUsers(Arrays.asList("slack4", "slack5"));
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    public void restoredStaleUsersShouldBeRevalidatedFirst() {
+        //given
+        userDirectory.put(new UserDTO("uuid1", "slack1"));
+        loader.restoreStale(Arrays.asList(new UserDTO("old-uuid1", "slack1"), new UserDTO("uuid2", "slack2")),
+                System.currentTimeMillis());
+        when(userRepository.findUsersBySlackUsers(Collections.singletonList("slack2")))
+                .thenReturn(Collections.singletonList(new UserDTO("uuid2-new", "slack2")));
+
+        //when
+        loader.refreshSlice();
+
+        //then
+        assertEquals(new UserDTO("uuid1", "slack1"), userDirectory.find("slack1"));
+        assertEquals(new UserDTO("uuid2-new", "slack2"), userDirectory.find("slack2"));
+        verify(userRepository).findUsersBySlackUsers(Collections.singletonList("slack2"));
+        verifyNoMoreInteractions(userRepository);
+        assertFalse(loader.isStale("slack2"));
+    }
+
+    @Test
+    public void restoredStaleUsersShouldStayStaleWhenRefreshFails() {
+        //given
+        loader.restoreStale(Collections.singletonList(new UserDTO("uuid1", "slack1")), System.currentTimeMillis());
+        when(userRepository.findUsersBySlackUsers(Collections.singletonList("slack1")))
+                .thenThrow(new ResourceAccessException("Connection refused"));
+
+        //when
+        loader.refreshSlice();
+
+        //then
+        assertTrue(loader.isStale("slack1"));
+        assertTrue(loader.canServeStale(false));
+    }
+
+    @Test
+    public void usersShouldNotBeRestoredWhenStaleUsersCannotBeServed() {
+        //given
+        ReflectionTestUtils.setField(loader, "staleWhileRevalidate", 0L);
+
+        //when
+        loader.restoreStale(Collections.singletonList(new UserDTO("uuid1", "slack1")), System.currentTimeMillis());
+
+        //then
+        assertNull(userDirectory.find("slack1"));
+        assertFalse(loader.isStale("slack1"));
+    }
+}
@@ -0,0 +1,150 @@
+package ua.com.juja.microservices.keepers.slackbot.concurrent;
+
+import org.junit.Test;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AdaptiveConcurrencyLimiterTest {
+    private static final long MILLISECOND = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void shouldGrowLimitWhileLatencyStaysLow() {
+        //given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("Keepers", true, 10, 2, 100);
+
+        //when
+        for (int i = 0; i < 10; i++) {
+            limiter.onSample(10 * MILLISECOND, limiter.getLimit(), false);
+        }
+
+        //then
+        assertTrue(limiter.getLimit() >= 20);
+    }
+
+    @Test
+    public void shouldShrinkLimitWhenLatencyGrows() {
+        //given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("Keepers", true, 50, 2, 100);
+        limiter.onSample(10 * MILLISECOND, 50, false);
+
+        //when
+        limiter.onSample(100 * MILLISECOND, 50, false);
+
+        //then
+        assertTrue(limiter.getLimit() < 50);
+    }
+
+    @Test
+    public void shouldBackOffOnTimeoutButNotBelowMinimum() {
+        //given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("Keepers", true, 10, 5, 100);
+
+        //when
+        limiter.onSample(10 * MILLISECOND, 1, true);
+        int afterOneTimeout = limiter.getLimit();
+        for (int i = 0; i < 20; i++) {
+            limiter.onSample(10 * MILLISECOND, 1, true);
+        }
+
+        //then
+        assertEquals(9, afterOneTimeout);
+        assertEquals(5, limiter.getLimit());
+    }
+
+    @Test
+    public void shouldNotGrowLimitWhenItIsNotReached() {
+        //given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("Keepers", true, 20, 2, 100);
+
+        //when
+        limiter.onSample(10 * MILLISECOND, 3, false);
+
+        //then
+        assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    public void shouldRejectRequestsOverLimit() throws InterruptedException {
+        //given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("Keepers", true, 2, 2, 2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 2; i++) {
+            executor.execute(() -> limiter.execute(() -> {
+                started.countDown();
+                try {
+                    return release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }));
+        }
+        started.await(5, TimeUnit.SECONDS);
+
+        //when
+        try {
+            limiter.execute(() -> "rejected");
+            fail();
+        } catch (LimitExceededException ex) {
+            //then
+            assertEquals(2, limiter.getInFlight());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void requestOverLimitShouldWaitForReleasedSlot() throws Exception {
+        //given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("Keepers", true, 1, 1, 1, 5000);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> limiter.execute(() -> {
+            started.countDown();
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }));
+        started.await(5, TimeUnit.SECONDS);
+
+        //when
+        executor.execute(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException ex) {
+                throw new IllegalStateException(ex);
+            }
+            release.countDown();
+        });
+        String result = limiter.execute(() -> "passed");
+
+        //then
+        assertEquals("passed", result);
+        assertEquals(0, limiter.getInFlight());
+        executor.shutdown();
+    }
+
+    @Test
+    public void disabledLimiterShouldPassEveryRequest() {
+        //given
+        AdaptiveConcurrencyLimiter limiter = AdaptiveConcurrencyLimiter.disabled("Keepers");
+
+        //when
+        String result = limiter.execute(() -> "passed");
+
+        //then
+        assertEquals("passed", result);
+        assertEquals(0, limiter.getInFlight());
+    }
+}
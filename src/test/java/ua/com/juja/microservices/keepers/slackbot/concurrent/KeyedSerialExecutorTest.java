@@ -0,0 +1,134 @@
+package ua.com.juja.microservices.keepers.slackbot.concurrent;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class KeyedSerialExecutorTest {
+    private ExecutorService pool;
+    private KeyedSerialExecutor executor;
+
+    @Before
+    public void setup() {
+        pool = Executors.newFixedThreadPool(4);
+        executor = new KeyedSerialExecutor(pool);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void tasksWithSameKeyShouldRunInSubmissionOrder() {
+        //given
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+
+        //when
+        for (int i = 0; i < 20; i++) {
+            int number = i;
+            futures.add(executor.submit("uuid1/teams", () -> {
+                sleep(number % 3);
+                order.add(number);
+                return number;
+            }));
+        }
+        futures.forEach(CompletableFuture::join);
+
+        //then
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            expected.add(i);
+        }
+        assertEquals(expected, order);
+    }
+
+    @Test
+    public void tasksWithDifferentKeysShouldRunInParallel() throws Exception {
+        //given
+        CyclicBarrier barrier = new CyclicBarrier(2);
+
+        //when
+        CompletableFuture<Integer> first = executor.submit("uuid1/teams", () -> await(barrier));
+        CompletableFuture<Integer> second = executor.submit("uuid2/teams", () -> await(barrier));
+
+        //then
+        assertEquals(Arrays.asList(0, 0), Arrays.asList(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS)));
+    }
+
+    @Test
+    public void failedTaskShouldNotStopFollowingTasks() throws Exception {
+        //given
+        CompletableFuture<String> failed = executor.submit("uuid1/teams", () -> {
+            throw new IllegalStateException("failed");
+        });
+
+        //when
+        CompletableFuture<String> next = executor.submit("uuid1/teams", () -> "done");
+
+        //then
+        assertEquals("done", next.get(5, TimeUnit.SECONDS));
+        assertTrue(failed.isCompletedExceptionally());
+    }
+
+    @Test
+    public void finishedKeysShouldBeForgotten() throws Exception {
+        //given
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> running = executor.submit("uuid1/teams", () -> awaitLatch(release));
+        executor.submit("uuid2/teams", () -> true).get(5, TimeUnit.SECONDS);
+
+        //when
+        int pendingWhileRunning = executor.pendingKeys();
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+
+        //then
+        assertEquals(1, pendingWhileRunning);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executor.pendingKeys() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(0, executor.pendingKeys());
+    }
+
+    private static int await(CyclicBarrier barrier) {
+        try {
+            barrier.await(5, TimeUnit.SECONDS);
+            return 0;
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static boolean awaitLatch(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package ua.com.juja.microservices.keepers.slackbot.controller;
+
+import ch.qos.logback.classic.Level;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.client.RestTemplate;
+import ua.com.juja.microservices.keepers.slackbot.exception.WrongCommandFormatException;
+import ua.com.juja.microservices.keepers.slackbot.service.KeeperService;
+import ua.com.juja.microservices.keepers.slackbot.shutdown.DrainableExecutor;
+import ua.com.juja.microservices.keepers.slackbot.template.MessageTemplates;
+import ua.com.juja.microservices.utils.SlackUrlUtils;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Measures the error path of {@link KeepersSlackCommandController} when a command has a typo: the stackless
+ * {@link WrongCommandFormatException} against an exception that captures the full stack trace of the request.
+ * Run it with the main method, it is not a part of the test suite.
+ */
+public class CommandErrorPathBenchmark {
+    private static final int WARM_UP = 20_000;
+    private static final int ITERATIONS = 100_000;
+    private static final String TOKEN = "slashCommandToken";
+
+    public static void main(String[] args) throws Exception {
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.OFF);
+
+        for (int round = 0; round < 3; round++) {
+            report("full trace", RuntimeException::new);
+            report("stackless ", WrongCommandFormatException::new);
+        }
+    }
+
+    private static void report(String name, Function<String, RuntimeException> exceptionFactory) throws Exception {
+        AtomicInteger commands = new AtomicInteger();
+        AtomicLong creationNanos = new AtomicLong();
+        KeeperService keeperService = mock(KeeperService.class, withSettings().stubOnly());
+        when(keeperService.getKeeperDirections(anyString(), anyString()))
+                .thenAnswer(invocation -> {
+                    commands.incrementAndGet();
+                    long createdAt = System.nanoTime();
+                    RuntimeException exception = exceptionFactory.apply("We didn't find any slack user in your command");
+                    creationNanos.addAndGet(System.nanoTime() - createdAt);
+                    throw exception;
+                });
+        RestTemplate restTemplate = new RestTemplate((uri, httpMethod) -> {
+            MockClientHttpRequest request = new MockClientHttpRequest(httpMethod, uri);
+            request.setResponse(new MockClientHttpResponse("ok".getBytes(), HttpStatus.OK));
+            return request;
+        });
+
+        KeepersSlackCommandController controller = new KeepersSlackCommandController(keeperService, restTemplate,
+                new DrainableExecutor("slack-command", 0, 0), new DrainableExecutor("slack-delivery", 0, 0),
+                new MessageTemplates(new MockEnvironment()));
+        ReflectionTestUtils.setField(controller, "slackToken", TOKEN);
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(controller)
+                .addPlaceholderValue("keepers.slackBot.rest.api.version", "/v1")
+                .addPlaceholderValue("keepers.slackBot.baseCommandsUrl", "/commands/keeper")
+                .addPlaceholderValue("keepers.slackBot.endpoint.keeperAdd", "/add")
+                .addPlaceholderValue("keepers.slackBot.endpoint.keeperDeactivate", "/deactivate")
+                .addPlaceholderValue("keepers.slackBot.endpoint.getMyDirections", "/myDirections")
+                .addPlaceholderValue("keepers.slackBot.endpoint.getDirectionKeepers", "/keeperOf")
+                .build();
+
+        for (int i = 0; i < WARM_UP; i++) {
+            perform(mvc);
+        }
+        creationNanos.set(0);
+        com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            perform(mvc);
+        }
+        long elapsed = System.nanoTime() - startedAt;
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        if (commands.get() != WARM_UP + ITERATIONS) {
+            throw new IllegalStateException("The command was not processed by the controller");
+        }
+        System.out.printf("%s: %6d ns/command, %6d bytes/command, %6d ns to create the exception%n", name,
+                elapsed / ITERATIONS, allocated / ITERATIONS, creationNanos.get() / ITERATIONS);
+    }
+
+    private static void perform(MockMvc mvc) throws Exception {
+        mvc.perform(MockMvcRequestBuilders.post(SlackUrlUtils.getUrlTemplate("/v1/commands/keeper"),
+                SlackUrlUtils.getUriVars(TOKEN, "/command", "typo in command"))
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED));
+    }
+}
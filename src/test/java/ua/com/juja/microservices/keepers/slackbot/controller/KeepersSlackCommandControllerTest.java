@@ -7,7 +7,9 @@ import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
@@ -15,6 +17,8 @@ import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 import ua.com.juja.microservices.keepers.slackbot.model.SlackParsedCommand;
 import ua.com.juja.microservices.keepers.slackbot.service.KeeperService;
+import ua.com.juja.microservices.keepers.slackbot.shutdown.CommandExecutorsConfiguration;
+import ua.com.juja.microservices.keepers.slackbot.template.MessageTemplates;
 import ua.com.juja.microservices.utils.SlackUrlUtils;
 
 import javax.inject.Inject;
@@ -40,6 +44,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  */
 @RunWith(SpringRunner.class)
 @WebMvcTest(KeepersSlackCommandController.class)
+@Import({CommandExecutorsConfiguration.class, MessageTemplates.class})
+@TestPropertySource(properties = {"keepers.slackBot.commands.poolSize=0", "keepers.slackBot.delivery.poolSize=0"})
 public class KeepersSlackCommandControllerTest {
 
     private static final String SORRY_MESSAGE = "Sorry! You're not lucky enough to use our slack command.";
@@ -86,7 +92,7 @@ public class KeepersSlackCommandControllerTest {
         ArgumentCaptor<RichMessage> richMessageCaptor = ArgumentCaptor.forClass(RichMessage.class);
 
 
-        when(keeperService.sendKeeperAddRequest("slack-from", keeperAddCommandText)).thenReturn(keeperResponse);
+        when(keeperService.sendKeeperAddRequest("slack-from", keeperAddCommandText, EXAMPLE_URL)).thenReturn(keeperResponse);
         when(restTemplate.postForObject(anyString(), any(RichMessage.class), anyObject())).thenReturn("[OK]");
 
         // when
@@ -97,7 +103,7 @@ public class KeepersSlackCommandControllerTest {
                 .andExpect(content().string(IN_PROGRESS));
 
         // then
-        verify(keeperService).sendKeeperAddRequest("slack-from", keeperAddCommandText);
+        verify(keeperService).sendKeeperAddRequest("slack-from", keeperAddCommandText, EXAMPLE_URL);
         verify(restTemplate).postForObject(eq(EXAMPLE_URL), richMessageCaptor.capture(), eq(String.class));
         verifyNoMoreInteractions(keeperService, restTemplate);
 
@@ -110,7 +116,7 @@ public class KeepersSlackCommandControllerTest {
         final String keeperAddCommandText = String.format("%s teams", SlackParsedCommand.wrapSlackUserInFullPattern("slack1"));
         ArgumentCaptor<RichMessage> richMessageCaptor = ArgumentCaptor.forClass(RichMessage.class);
 
-        when(keeperService.sendKeeperAddRequest(any(String.class), any(String.class)))
+        when(keeperService.sendKeeperAddRequest(any(String.class), any(String.class), any(String.class)))
                 .thenThrow(new RuntimeException(ERROR_MESSAGE));
         when(restTemplate.postForObject(anyString(), any(RichMessage.class), anyObject())).thenReturn("[OK]");
 
@@ -122,7 +128,7 @@ public class KeepersSlackCommandControllerTest {
                 .andExpect(content().string(IN_PROGRESS));
 
         // then
-        verify(keeperService).sendKeeperAddRequest("slack-from", keeperAddCommandText);
+        verify(keeperService).sendKeeperAddRequest("slack-from", keeperAddCommandText, EXAMPLE_URL);
         verify(restTemplate).postForObject(eq(EXAMPLE_URL), richMessageCaptor.capture(), eq(String.class));
         assertTrue(richMessageCaptor.getValue().getText().contains(ERROR_MESSAGE));
         verifyNoMoreInteractions(keeperService, restTemplate);
@@ -135,7 +141,7 @@ public class KeepersSlackCommandControllerTest {
         ResourceAccessException exception = new ResourceAccessException("Some service unavailable");
         ArgumentCaptor<RichMessage> richMessageCaptor = ArgumentCaptor.forClass(RichMessage.class);
 
-        when(keeperService.sendKeeperAddRequest(any(String.class), any(String.class))).thenThrow(exception);
+        when(keeperService.sendKeeperAddRequest(any(String.class), any(String.class), any(String.class))).thenThrow(exception);
         when(restTemplate.postForObject(anyString(), any(RichMessage.class), anyObject())).thenReturn("[OK]");
 
         // when
@@ -146,7 +152,7 @@ public class KeepersSlackCommandControllerTest {
                 .andExpect(content().string(IN_PROGRESS));
 
         // then
-        verify(keeperService).sendKeeperAddRequest("slack-from", keeperAddCommandText);
+        verify(keeperService).sendKeeperAddRequest("slack-from", keeperAddCommandText, EXAMPLE_URL);
         verify(restTemplate).postForObject(eq(EXAMPLE_URL), richMessageCaptor.capture(), eq(String.class));
         verifyNoMoreInteractions(keeperService, restTemplate);
 
@@ -177,7 +183,7 @@ public class KeepersSlackCommandControllerTest {
                 SlackParsedCommand.wrapSlackUserInFullPattern("slack1"));
         ArgumentCaptor<RichMessage> richMessageCaptor = ArgumentCaptor.forClass(RichMessage.class);
 
-        when(keeperService.sendKeeperDeactivateRequest("slack-from", keeperDeactivateCommandText))
+        when(keeperService.sendKeeperDeactivateRequest("slack-from", keeperDeactivateCommandText, EXAMPLE_URL))
                 .thenReturn(keeperResponse);
         when(restTemplate.postForObject(anyString(), any(RichMessage.class), anyObject())).thenReturn("[OK]");
 
@@ -189,7 +195,7 @@ public class KeepersSlackCommandControllerTest {
                 .andExpect(content().string(IN_PROGRESS));
 
         //then
-        verify(keeperService).sendKeeperDeactivateRequest("slack-from", keeperDeactivateCommandText);
+        verify(keeperService).sendKeeperDeactivateRequest("slack-from", keeperDeactivateCommandText, EXAMPLE_URL);
         verify(restTemplate).postForObject(eq(EXAMPLE_URL), richMessageCaptor.capture(), eq(String.class));
         assertTrue(richMessageCaptor.getValue().getText().contains(keeperResponse));
         verifyNoMoreInteractions(keeperService, restTemplate);
@@ -201,7 +207,7 @@ public class KeepersSlackCommandControllerTest {
         final String keeperDeactivateCommandText = String.format("%s teams", SlackParsedCommand.wrapSlackUserInFullPattern("slack1"));
         ArgumentCaptor<RichMessage> richMessageCaptor = ArgumentCaptor.forClass(RichMessage.class);
 
-        when(keeperService.sendKeeperDeactivateRequest(any(String.class), any(String.class)))
+        when(keeperService.sendKeeperDeactivateRequest(any(String.class), any(String.class), any(String.class)))
                 .thenThrow(new RuntimeException(ERROR_MESSAGE));
         when(restTemplate.postForObject(anyString(), any(RichMessage.class), anyObject())).thenReturn("[OK]");
 
@@ -213,7 +219,7 @@ public class KeepersSlackCommandControllerTest {
                 .andExpect(content().string(IN_PROGRESS));
 
         // then
-        verify(keeperService).sendKeeperDeactivateRequest("slack-from", keeperDeactivateCommandText);
+        verify(keeperService).sendKeeperDeactivateRequest("slack-from", keeperDeactivateCommandText, EXAMPLE_URL);
         verify(restTemplate).postForObject(eq(EXAMPLE_URL), richMessageCaptor.capture(), eq(String.class));
         assertTrue(richMessageCaptor.getValue().getText().contains(ERROR_MESSAGE));
         verifyNoMoreInteractions(keeperService, restTemplate);
@@ -332,4 +338,41 @@ public class KeepersSlackCommandControllerTest {
         assertTrue(richMessageCaptor.getValue().getText().contains(ERROR_MESSAGE));
         verifyNoMoreInteractions(keeperService, restTemplate);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void onReceiveSlashCommandGetDirectionKeepersIncorrectTokenShouldSendSorryRichMessage() throws Exception {
+        //when
+        mvc.perform(MockMvcRequestBuilders.post(SlackUrlUtils.getUrlTemplate(version + "/commands/keeper/keeperOf"),
+                SlackUrlUtils.getUriVars(TOKEN_WRONG, "/keeper-of", "teams"))
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED))
+                .andExpect(status().isOk())
+                .andExpect(content().string(SORRY_MESSAGE));
+
+        // then
+        verifyZeroInteractions(keeperService, restTemplate);
+    }
+
+    @Test
+    public void onReceiveSlashGetDirectionKeepersSendOkRichMessage() throws Exception {
+        // given
+        final String keeperResponse = String.format("The direction teams has active keepers: [%s]",
+                SlackParsedCommand.wrapSlackUserInFullPattern("slack1"));
+        ArgumentCaptor<RichMessage> richMessageCaptor = ArgumentCaptor.forClass(RichMessage.class);
+
+        when(keeperService.getDirectionKeepers("slack-from", "teams")).thenReturn(keeperResponse);
+        when(restTemplate.postForObject(anyString(), any(RichMessage.class), anyObject())).thenReturn("[OK]");
+
+        // when
+        mvc.perform(MockMvcRequestBuilders.post(SlackUrlUtils.getUrlTemplate(version + "/commands/keeper/keeperOf"),
+                SlackUrlUtils.getUriVars(tokenCorrect, "/keeper-of", "teams"))
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED))
+                .andExpect(status().isOk())
+                .andExpect(content().string(IN_PROGRESS));
+
+        // then
+        verify(keeperService).getDirectionKeepers("slack-from", "teams");
+        verify(restTemplate).postForObject(eq(EXAMPLE_URL), richMessageCaptor.capture(), eq(String.class));
+        assertTrue(richMessageCaptor.getValue().getText().contains(keeperResponse));
+        verifyNoMoreInteractions(keeperService, restTemplate);
+    }
+}
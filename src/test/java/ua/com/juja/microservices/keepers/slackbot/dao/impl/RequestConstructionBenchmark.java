@@ -0,0 +1,73 @@
+package ua.com.juja.microservices.keepers.slackbot.dao.impl;
+
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.util.DefaultUriTemplateHandler;
+import org.springframework.web.util.UriTemplate;
+import ua.com.juja.microservices.keepers.slackbot.model.request.KeeperRequest;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.util.function.IntFunction;
+
+/**
+ * Compares per-call allocation of building a Keepers service request the old way (new headers, url concatenation
+ * and template expansion by RestTemplate) and with the uris and headers resolved at startup.
+ * Run it with the main method, it is not a part of the test suite.
+ */
+public class RequestConstructionBenchmark {
+    private static final int WARM_UP = 200_000;
+    private static final int ITERATIONS = 1_000_000;
+
+    private static final String URL_BASE = "http://keepers";
+    private static final String VERSION = "/v1";
+    private static final String URL_KEEPERS = "/keepers";
+
+    public static void main(String[] args) {
+        DefaultUriTemplateHandler uriTemplateHandler = new DefaultUriTemplateHandler();
+        IntFunction<Object> perCall = i -> {
+            KeeperRequest request = new KeeperRequest("uuid-from", "uuid" + (i & 1023), "");
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON_UTF8);
+            String url = URL_BASE + VERSION + URL_KEEPERS + "/" + request.getUuid();
+            return new Object[]{new HttpEntity<>(request, headers), uriTemplateHandler.expand(url)};
+        };
+
+        HttpHeaders sharedHeaders = createBaseHeaders();
+        UriTemplate uriTemplate = new UriTemplate(URL_BASE + VERSION + URL_KEEPERS + "/{uuid}");
+        IntFunction<Object> resolvedOnce = i -> {
+            KeeperRequest request = new KeeperRequest("uuid-from", "uuid" + (i & 1023), "");
+            URI uri = uriTemplate.expand(request.getUuid());
+            return new Object[]{sharedHeaders, uri};
+        };
+
+        report("per call  ", perCall);
+        report("at startup", resolvedOnce);
+    }
+
+    private static HttpHeaders createBaseHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON_UTF8);
+        return HttpHeaders.readOnlyHttpHeaders(headers);
+    }
+
+    private static void report(String name, IntFunction<Object> requestBuilder) {
+        Object sink = null;
+        for (int i = 0; i < WARM_UP; i++) {
+            sink = requestBuilder.apply(i);
+        }
+        com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink = requestBuilder.apply(i);
+        }
+        long elapsed = System.nanoTime() - startedAt;
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        System.out.printf("%s: %6d bytes/call, %6d ns/call (%s)%n", name, allocated / ITERATIONS,
+                elapsed / ITERATIONS, sink != null ? "ok" : "");
+    }
+}
@@ -8,22 +8,40 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.mock.http.client.MockClientHttpResponse;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.web.client.RestTemplate;
+import ua.com.juja.microservices.keepers.slackbot.balancer.Hedger;
+import ua.com.juja.microservices.keepers.slackbot.balancer.LoadBalancer;
+import ua.com.juja.microservices.keepers.slackbot.balancer.Retrier;
 import ua.com.juja.microservices.keepers.slackbot.dao.UserRepository;
+import ua.com.juja.microservices.keepers.slackbot.exception.UserExchangeException;
+import ua.com.juja.microservices.keepers.slackbot.json.JsonPayloads;
 import ua.com.juja.microservices.keepers.slackbot.model.dto.UserDTO;
 
 import javax.inject.Inject;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.*;
 import static org.springframework.http.MediaType.APPLICATION_JSON_UTF8;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withBadRequest;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
 /**
@@ -78,4 +96,127 @@ public class RestUserRepositoryTest {
         assertEquals("[UserDTO(uuid=AAAA123, slackUser=slack1), UserDTO(uuid=AAAA321, slackUser=slack2)]",
                 result.toString());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void collectUsersBySlackUsersShouldPutUsersIntoMap() {
+        //given
+        List<String> slackUsers = Arrays.asList("slack1", "slack2");
+        mockServer.expect(requestTo(urlBaseUsers + version + urlGetUsers))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(content().contentType(APPLICATION_JSON_UTF8))
+                .andExpect(content().string("{\"slackIds\":[\"slack1\",\"slack2\"]}"))
+                .andRespond(withSuccess("[{\"uuid\":\"AAAA123\",\"slackId\":\"slack1\",\"unknown\":[1,{}]}, " +
+                        "{\"uuid\":\"AAAA321\",\"slackId\":\"slack2\"}, " +
+                        "{\"uuid\":\"AAAA999\",\"slackId\":\"slack2\"}]", MediaType.APPLICATION_JSON_UTF8));
+        Map<String, UserDTO> users = new LinkedHashMap<>();
+
+        //when
+        userRepository.collectUsersBySlackUsers(slackUsers, users);
+
+        // then
+        mockServer.verify();
+        assertEquals("{slack1=UserDTO(uuid=AAAA123, slackUser=slack1), slack2=UserDTO(uuid=AAAA321, slackUser=slack2)}",
+                users.toString());
+    }
+
+    @Test
+    public void collectUsersBySlackUsersWhenResponseIsNotArrayShouldThrowException() {
+        //given
+        mockServer.expect(requestTo(urlBaseUsers + version + urlGetUsers))
+                .andRespond(withSuccess("{\"uuid\":\"AAAA123\",\"slackId\":\"slack1\"}",
+                        MediaType.APPLICATION_JSON_UTF8));
+
+        //then
+        thrown.expect(HttpMessageNotReadableException.class);
+
+        //when
+        userRepository.collectUsersBySlackUsers(Arrays.asList("slack1"), new LinkedHashMap<>());
+    }
+
+    @Test
+    public void findUsersBySlackUsersWhenUserServiceReturnErrorShouldThrowException() {
+        //given
+        mockServer.expect(requestTo(urlBaseUsers + version + urlGetUsers))
+                .andRespond(withBadRequest().body("{\"httpStatus\":400,\"internalErrorCode\":\"TMF-F2-D2\"," +
+                        "\"clientMessage\":\"Oops something went wrong :(\",\"developerMessage\":\"message\"," +
+                        "\"exceptionMessage\":\"Wrong slack id\",\"detailErrors\":[]}"));
+
+        //then
+        thrown.expect(UserExchangeException.class);
+        thrown.expectMessage("Oops something went wrong :(");
+
+        //when
+        userRepository.findUsersBySlackUsers(Arrays.asList("slack1"));
+    }
+
+    @Test
+    public void retriedRequestShouldStreamOnlyUsersOfSucceededAttempt() {
+        //given
+        RestTemplate retriedRestTemplate = new RestTemplate();
+        MockRestServiceServer retriedServer = MockRestServiceServer.bindTo(retriedRestTemplate).build();
+        LoadBalancer balancer = new LoadBalancer("Users", urlBaseUsers, 3, 60000);
+        RestUserRepository repository = new RestUserRepository(retriedRestTemplate, new JsonPayloads(false),
+                balancer, new Hedger(balancer, null, false, 0, 0), new Retrier("Users", true, 2, 1, 1, 1));
+        ReflectionTestUtils.setField(repository, "version", version);
+        ReflectionTestUtils.setField(repository, "urlGetUsers", urlGetUsers);
+        repository.resolveUris();
+        byte[] firstUser = "[{\"uuid\":\"AAAA123\",\"slackId\":\"slack1\"},".getBytes(StandardCharsets.UTF_8);
+        InputStream brokenBody = new SequenceInputStream(new ByteArrayInputStream(firstUser),
+                new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("Connection reset");
+                    }
+                });
+        retriedServer.expect(requestTo(urlBaseUsers + version + urlGetUsers))
+                .andRespond(request -> new MockClientHttpResponse(brokenBody, HttpStatus.OK));
+        retriedServer.expect(requestTo(urlBaseUsers + version + urlGetUsers))
+                .andRespond(withSuccess("[{\"uuid\":\"AAAA123\",\"slackId\":\"slack1\"}, " +
+                        "{\"uuid\":\"AAAA321\",\"slackId\":\"slack2\"}]", MediaType.APPLICATION_JSON_UTF8));
+
+        //when
+        List<UserDTO> result = repository.findUsersBySlackUsers(Arrays.asList("slack1", "slack2"));
+
+        //then
+        retriedServer.verify();
+        assertEquals("[UserDTO(uuid=AAAA123, slackUser=slack1), UserDTO(uuid=AAAA321, slackUser=slack2)]",
+                result.toString());
+    }
+
+    @Test
+    public void retriedCollectShouldKeepOnlyUsersOfSucceededAttempt() {
+        //given
+        RestTemplate retriedRestTemplate = new RestTemplate();
+        MockRestServiceServer retriedServer = MockRestServiceServer.bindTo(retriedRestTemplate).build();
+        LoadBalancer balancer = new LoadBalancer("Users", urlBaseUsers, 3, 60000);
+        RestUserRepository repository = new RestUserRepository(retriedRestTemplate, new JsonPayloads(false),
+                balancer, new Hedger(balancer, null, false, 0, 0), new Retrier("Users", true, 2, 1, 1, 1));
+        ReflectionTestUtils.setField(repository, "version", version);
+        ReflectionTestUtils.setField(repository, "urlGetUsers", urlGetUsers);
+        repository.resolveUris();
+        byte[] firstUser = "[{\"uuid\":\"AAAA123\",\"slackId\":\"slack1\"},".getBytes(StandardCharsets.UTF_8);
+        InputStream brokenBody = new SequenceInputStream(new ByteArrayInputStream(firstUser),
+                new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("Connection reset");
+                    }
+                });
+        retriedServer.expect(requestTo(urlBaseUsers + version + urlGetUsers))
+                .andRespond(request -> new MockClientHttpResponse(brokenBody, HttpStatus.OK));
+        retriedServer.expect(requestTo(urlBaseUsers + version + urlGetUsers))
+                .andRespond(withSuccess("[{\"uuid\":\"BBBB123\",\"slackId\":\"slack1\"}, " +
+                        "{\"uuid\":\"AAAA321\",\"slackId\":\"slack2\"}]", MediaType.APPLICATION_JSON_UTF8));
+
+        Map<String, UserDTO> users = new LinkedHashMap<>();
+        users.put("slack0", new UserDTO("AAAA000", "slack0"));
+
+        //when
+        repository.collectUsersBySlackUsers(Arrays.asList("slack1", "slack2"), users);
+
+        //then
+        retriedServer.verify();
+        assertEquals("{slack0=UserDTO(uuid=AAAA000, slackUser=slack0), slack1=UserDTO(uuid=BBBB123, slackUser=slack1), "
+                + "slack2=UserDTO(uuid=AAAA321, slackUser=slack2)}", users.toString());
+    }
+}
@@ -0,0 +1,59 @@
+package ua.com.juja.microservices.keepers.slackbot.endpoint;
+
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import ua.com.juja.microservices.keepers.slackbot.shutdown.DrainableExecutor;
+import ua.com.juja.microservices.keepers.slackbot.warmup.WarmUp;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ReadinessEndpointTest {
+    private DrainableExecutor slackCommandExecutor = new DrainableExecutor("slack-command", 0, 0);
+
+    @Test
+    public void shouldBeOutOfServiceUntilWarmUpIsFinished() {
+        //given
+        WarmUp warmUp = mock(WarmUp.class);
+        when(warmUp.isFinished()).thenReturn(false);
+
+        //when
+        ResponseEntity<Map<String, Object>> result = new ReadinessEndpoint(warmUp, slackCommandExecutor).ready();
+
+        //then
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, result.getStatusCode());
+        assertEquals("OUT_OF_SERVICE", result.getBody().get("status"));
+    }
+
+    @Test
+    public void shouldBeUpWhenWarmUpIsFinished() {
+        //given
+        WarmUp warmUp = mock(WarmUp.class);
+        when(warmUp.isFinished()).thenReturn(true);
+
+        //when
+        ResponseEntity<Map<String, Object>> result = new ReadinessEndpoint(warmUp, slackCommandExecutor).ready();
+
+        //then
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals("UP", result.getBody().get("status"));
+    }
+
+    @Test
+    public void shouldBeOutOfServiceWhenCommandsAreDrained() throws Exception {
+        //given
+        WarmUp warmUp = mock(WarmUp.class);
+        when(warmUp.isFinished()).thenReturn(true);
+        slackCommandExecutor.drain(System.nanoTime());
+
+        //when
+        ResponseEntity<Map<String, Object>> result = new ReadinessEndpoint(warmUp, slackCommandExecutor).ready();
+
+        //then
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, result.getStatusCode());
+    }
+}
@@ -0,0 +1,68 @@
+package ua.com.juja.microservices.keepers.slackbot.endpoint;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import ua.com.juja.microservices.keepers.slackbot.cache.UnknownSlackUsersCache;
+
+import javax.inject.Inject;
+import java.util.Collections;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "management.security.enabled=false")
+@AutoConfigureMockMvc
+public class UnknownSlackUsersEndpointTest {
+
+    @Inject
+    private MockMvc mvc;
+
+    @MockBean
+    private UnknownSlackUsersCache unknownSlackUsersCache;
+
+    @Test
+    public void getShouldReturnUnknownSlackUsers() throws Exception {
+        //given
+        when(unknownSlackUsersCache.isEnabled()).thenReturn(true);
+        when(unknownSlackUsersCache.unknownSlackUsers()).thenReturn(Collections.singletonList("unknown"));
+
+        //then
+        mvc.perform(get("/unknownSlackUsers"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"enabled\":true,\"slackUsers\":[\"unknown\"]}"));
+    }
+
+    @Test
+    public void deleteShouldPurgeAllSlackUsers() throws Exception {
+        //given
+        when(unknownSlackUsersCache.purge()).thenReturn(3);
+
+        //then
+        mvc.perform(delete("/unknownSlackUsers"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"purged\":3}"));
+        verify(unknownSlackUsersCache).purge();
+    }
+
+    @Test
+    public void deleteWithSlackUserShouldPurgeOneSlackUser() throws Exception {
+        //given
+        when(unknownSlackUsersCache.purge("unknown")).thenReturn(true);
+
+        //then
+        mvc.perform(delete("/unknownSlackUsers/unknown"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"purged\":1}"));
+        verify(unknownSlackUsersCache).purge("unknown");
+    }
+}
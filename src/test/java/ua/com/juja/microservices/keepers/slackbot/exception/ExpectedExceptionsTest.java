@@ -0,0 +1,47 @@
+package ua.com.juja.microservices.keepers.slackbot.exception;
+
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ExpectedExceptionsTest {
+
+    @Test
+    public void wrongCommandFormatExceptionShouldNotCaptureStackTrace() {
+        //when
+        WrongCommandFormatException exception = new WrongCommandFormatException("Wrong command");
+
+        //then
+        assertEquals("Wrong command", exception.getMessage());
+        assertEquals(0, exception.getStackTrace().length);
+        assertTrue(ExpectedExceptions.isExpected(exception));
+    }
+
+    @Test
+    public void exchangeExceptionShouldNotCaptureStackTraceButKeepCause() {
+        //given
+        HttpClientErrorException cause = new HttpClientErrorException(HttpStatus.BAD_REQUEST);
+        ApiError error = new ApiError(400, "KMF-F1-D3", "Oops", "dev", "message", Collections.emptyList());
+
+        //when
+        KeeperExchangeException exception = new KeeperExchangeException(error, cause);
+
+        //then
+        assertEquals(0, exception.getStackTrace().length);
+        assertSame(cause, exception.getCause());
+        assertTrue(cause.getStackTrace().length > 0);
+        assertTrue(ExpectedExceptions.isExpected(exception));
+    }
+
+    @Test
+    public void unexpectedExceptionShouldNotBeExpected() {
+        assertFalse(ExpectedExceptions.isExpected(new IllegalStateException("Unexpected")));
+    }
+}
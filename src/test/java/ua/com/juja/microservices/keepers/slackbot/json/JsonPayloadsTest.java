@@ -0,0 +1,53 @@
+package ua.com.juja.microservices.keepers.slackbot.json;
+
+import org.junit.Test;
+import ua.com.juja.microservices.keepers.slackbot.exception.ApiError;
+import ua.com.juja.microservices.keepers.slackbot.model.request.KeeperRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class JsonPayloadsTest {
+
+    @Test
+    public void readerShouldBeReusedForPayloadType() {
+        //given
+        JsonPayloads jsonPayloads = new JsonPayloads(false);
+
+        //then
+        assertSame(jsonPayloads.reader(ApiError.class), jsonPayloads.reader(ApiError.class));
+        assertSame(jsonPayloads.writer(KeeperRequest.class), jsonPayloads.writer(KeeperRequest.class));
+    }
+
+    @Test
+    public void readApiErrorWithUnknownFieldsAndAfterburner() throws Exception {
+        //given
+        JsonPayloads jsonPayloads = new JsonPayloads(true);
+        String json = "{\"httpStatus\":400,\"internalErrorCode\":\"KMF-F1-D3\",\"clientMessage\":\"Oops\"," +
+                "\"developerMessage\":\"dev\",\"exceptionMessage\":\"message\",\"detailErrors\":[]," +
+                "\"unknownField\":\"value\"}";
+
+        //when
+        ApiError result = jsonPayloads.reader(ApiError.class).readValue(json);
+
+        //then
+        assertEquals(400, result.getHttpStatus());
+        assertEquals("KMF-F1-D3", result.getInternalErrorCode());
+        assertEquals("message", result.getExceptionMessage());
+    }
+
+    @Test
+    public void writeKeeperRequest() throws Exception {
+        //given
+        JsonPayloads jsonPayloads = new JsonPayloads(false);
+
+        //when
+        String result = jsonPayloads.writer(KeeperRequest.class)
+                .writeValueAsString(new KeeperRequest("uuid-from", "uuid", "teams"));
+
+        //then
+        assertTrue(result.contains("\"from\":\"uuid-from\""));
+        assertTrue(result.contains("\"direction\":\"teams\""));
+    }
+}
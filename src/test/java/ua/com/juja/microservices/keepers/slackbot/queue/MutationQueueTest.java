@@ -0,0 +1,128 @@
+package ua.com.juja.microservices.keepers.slackbot.queue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import ua.com.juja.microservices.keepers.slackbot.json.JsonPayloads;
+import ua.com.juja.microservices.keepers.slackbot.model.dto.UserDTO;
+import ua.com.juja.microservices.keepers.slackbot.model.request.KeeperRequest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MutationQueueTest {
+    private static final String RESPONSE_URL = "http://example.com";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File queueFile;
+    private MutationQueue queue;
+
+    @Before
+    public void setup() throws IOException {
+        queueFile = new File(folder.getRoot(), "keeper-mutations.log");
+        queue = open(1024);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        queue.close();
+    }
+
+    @Test
+    public void pendingMutationsShouldSurviveRestartInOrder() throws IOException {
+        //given
+        QueuedMutation first = queue.enqueue(QueuedMutation.Action.ADD, request("uuid1", "teams"),
+                new UserDTO("uuid1", "slack1"), RESPONSE_URL);
+        QueuedMutation second = queue.enqueue(QueuedMutation.Action.DEACTIVATE, request("uuid1", "teams"),
+                new UserDTO("uuid1", "slack1"), RESPONSE_URL);
+        QueuedMutation third = queue.enqueue(QueuedMutation.Action.ADD, request("uuid2", "codenjoy"),
+                new UserDTO("uuid2", "slack2"), null);
+        queue.markDone(first.getSequence());
+        queue.close();
+
+        //when
+        queue = open(1024);
+        QueuedMutation next = queue.enqueue(QueuedMutation.Action.ADD, request("uuid3", "teams"),
+                new UserDTO("uuid3", "slack3"), RESPONSE_URL);
+
+        //then
+        List<QueuedMutation> pending = queue.pending();
+        assertEquals(3, pending.size());
+        assertEquals(second, pending.get(0));
+        assertEquals(third, pending.get(1));
+        assertEquals(4, next.getSequence());
+        assertTrue(queue.hasPending(QueuedMutation.key("uuid1", "Teams")));
+        assertFalse(queue.hasPending(QueuedMutation.key("uuid2", "teams")));
+    }
+
+    @Test
+    public void shouldSkipTornLastLine() throws IOException {
+        //given
+        queue.enqueue(QueuedMutation.Action.ADD, request("uuid1", "teams"), new UserDTO("uuid1", "slack1"),
+                RESPONSE_URL);
+        queue.close();
+        Files.write(queueFile.toPath(), "+{\"sequence\":2,\"act".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        //when
+        queue = open(1024);
+
+        //then
+        assertEquals(1, queue.pending().size());
+    }
+
+    @Test
+    public void shouldCompactFileWhenNothingIsPending() throws IOException {
+        //given
+        queue.close();
+        queue = open(10);
+        QueuedMutation mutation = queue.enqueue(QueuedMutation.Action.ADD, request("uuid1", "teams"),
+                new UserDTO("uuid1", "slack1"), RESPONSE_URL);
+
+        //when
+        queue.markDone(mutation.getSequence());
+
+        //then
+        assertEquals(0, queueFile.length());
+        assertEquals(Collections.emptyList(), queue.pending());
+    }
+
+    @Test
+    public void shouldBeDisabledWithoutFile() throws IOException {
+        //given
+        MutationQueue disabled = new MutationQueue(new JsonPayloads(false));
+
+        //when
+        disabled.open();
+
+        //then
+        assertFalse(disabled.isEnabled());
+        assertFalse(disabled.hasPending(QueuedMutation.key("uuid1", "teams")));
+    }
+
+    private MutationQueue open(long compactSize) throws IOException {
+        MutationQueue mutationQueue = new MutationQueue(new JsonPayloads(false));
+        ReflectionTestUtils.setField(mutationQueue, "file", queueFile.getPath());
+        ReflectionTestUtils.setField(mutationQueue, "compactSize", compactSize);
+        mutationQueue.open();
+        return mutationQueue;
+    }
+
+    private static KeeperRequest request(String uuid, String direction) {
+        return new KeeperRequest("uuid-from", uuid, direction);
+    }
+}
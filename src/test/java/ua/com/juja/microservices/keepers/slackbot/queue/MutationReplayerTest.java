@@ -0,0 +1,98 @@
+package ua.com.juja.microservices.keepers.slackbot.queue;
+
+import me.ramswaroop.jbot.core.slack.models.RichMessage;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+import ua.com.juja.microservices.keepers.slackbot.concurrent.KeyedSerialExecutor;
+import ua.com.juja.microservices.keepers.slackbot.shutdown.DrainableExecutor;
+
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+public class MutationReplayerTest {
+    private static final String RESPONSE_URL = "http://example.com";
+
+    private MutationQueue mutationQueue;
+    private QueuedMutationHandler mutationHandler;
+    private RestTemplate restTemplate;
+    private MutationReplayer replayer;
+
+    @Before
+    public void setup() {
+        mutationQueue = mock(MutationQueue.class);
+        mutationHandler = mock(QueuedMutationHandler.class);
+        restTemplate = mock(RestTemplate.class);
+        when(mutationQueue.isEnabled()).thenReturn(true);
+        replayer = new MutationReplayer(mutationQueue, mutationHandler,
+                new KeyedSerialExecutor(Executors.newFixedThreadPool(2)), Executors.newFixedThreadPool(2), restTemplate,
+                new DrainableExecutor("delivery", 0, 10));
+        ReflectionTestUtils.setField(replayer, "parallelism", 2);
+    }
+
+    @Test
+    public void shouldApplyQueuedMutationsAndReportOutcome() throws InterruptedException {
+        //given
+        QueuedMutation mutation = mutation(1, "uuid1", RESPONSE_URL);
+        when(mutationQueue.pending()).thenReturn(Arrays.asList(mutation));
+        when(mutationHandler.applyQueuedMutation(mutation)).thenReturn("Keeper added");
+
+        //when
+        replayer.replay();
+
+        //then
+        verify(mutationQueue).markDone(1);
+        ArgumentCaptor<RichMessage> message = ArgumentCaptor.forClass(RichMessage.class);
+        verify(restTemplate).postForObject(eq(RESPONSE_URL), message.capture(), eq(String.class));
+        assertEquals("Keeper added", message.getValue().getText());
+    }
+
+    @Test
+    public void shouldKeepMutationsWhileServiceIsUnavailable() throws InterruptedException {
+        //given
+        QueuedMutation first = mutation(1, "uuid1", RESPONSE_URL);
+        QueuedMutation second = mutation(2, "uuid1", RESPONSE_URL);
+        when(mutationQueue.pending()).thenReturn(Arrays.asList(first, second));
+        when(mutationHandler.applyQueuedMutation(first)).thenThrow(new ResourceAccessException("unavailable"));
+
+        //when
+        replayer.replay();
+
+        //then
+        verify(mutationHandler, never()).applyQueuedMutation(second);
+        verify(mutationQueue, never()).markDone(any(Long.class));
+        verifyZeroInteractions(restTemplate);
+    }
+
+    @Test
+    public void shouldMarkDoneMutationWithoutResponseUrl() throws InterruptedException {
+        //given
+        QueuedMutation mutation = mutation(1, "uuid1", null);
+        when(mutationQueue.pending()).thenReturn(Arrays.asList(mutation));
+        when(mutationHandler.applyQueuedMutation(mutation)).thenReturn("Keeper added");
+
+        //when
+        replayer.replay();
+
+        //then
+        verify(mutationQueue).markDone(1);
+        verifyZeroInteractions(restTemplate);
+    }
+
+    private static QueuedMutation mutation(long sequence, String uuid, String responseUrl) {
+        return new QueuedMutation(sequence, QueuedMutation.Action.ADD, "uuid-from", uuid, "slack1", "teams",
+                responseUrl, 0);
+    }
+}
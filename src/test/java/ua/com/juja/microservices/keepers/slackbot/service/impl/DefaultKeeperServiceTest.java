@@ -9,6 +9,8 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.client.ResourceAccessException;
+import ua.com.juja.microservices.keepers.slackbot.concurrent.LimitExceededException;
 import ua.com.juja.microservices.keepers.slackbot.dao.KeeperRepository;
 import ua.com.juja.microservices.keepers.slackbot.exception.WrongCommandFormatException;
 import ua.com.juja.microservices.keepers.slackbot.model.SlackParsedCommand;
@@ -35,10 +37,12 @@ import static org.mockito.Mockito.when;
 @RunWith(SpringRunner.class)
 @SpringBootTest
 public class DefaultKeeperServiceTest {
+    private static final String RESPONSE_URL = "http://example.com";
     @Rule
     public ExpectedException thrown = ExpectedException.none();
     private UserDTO userFrom;
     private UserDTO user1;
+    private UserDTO user2;
     @MockBean
     private KeeperRepository keeperRepository;
     @MockBean
@@ -52,6 +56,7 @@ public class DefaultKeeperServiceTest {
         MockitoAnnotations.initMocks(this);
         userFrom = new UserDTO("uuid-from", "slack-from");
         user1 = new UserDTO("uuid1", "slack1");
+        user2 = new UserDTO("uuid2", "slack2");
         usersInText = new ArrayList<>();
     }
 
@@ -69,7 +74,7 @@ public class DefaultKeeperServiceTest {
                 SlackParsedCommand.wrapSlackUserInFullPattern(user1.getSlackUser()));
 
         //when
-        String actual = keeperService.sendKeeperAddRequest(userFrom.getSlackUser(), keeperAddCommandText);
+        String actual = keeperService.sendKeeperAddRequest(userFrom.getSlackUser(), keeperAddCommandText, RESPONSE_URL);
 
         //then
         assertEquals(expected, actual);
@@ -90,7 +95,7 @@ public class DefaultKeeperServiceTest {
                 .thenReturn(new SlackParsedCommand(userFrom, KEEPER_ADD_COMkeeperAddCommandTextAND_TEXT, usersInText));
 
         //when
-        String actual = keeperService.sendKeeperAddRequest(userFrom.getSlackUser(), KEEPER_ADD_COMkeeperAddCommandTextAND_TEXT);
+        String actual = keeperService.sendKeeperAddRequest(userFrom.getSlackUser(), KEEPER_ADD_COMkeeperAddCommandTextAND_TEXT, RESPONSE_URL);
 
         //then
         assertEquals("ERROR. Something went wrong. Keeper was not added :(", actual);
@@ -111,12 +116,84 @@ public class DefaultKeeperServiceTest {
                 "You must write the user's slack to perform the action with keepers."));
 
         //when
-        keeperService.sendKeeperAddRequest(userFrom.getSlackUser(), keeperAddCommandText);
+        keeperService.sendKeeperAddRequest(userFrom.getSlackUser(), keeperAddCommandText, RESPONSE_URL);
 
         //then
         verify(slackUserHandlerService).createSlackParsedCommand(userFrom.getSlackUser(), keeperAddCommandText);
     }
 
+    @Test
+    public void keeperAddWithSeveralSlackUsersShouldReturnResultForEachKeeper() {
+        //given
+        usersInText.add(user1);
+        usersInText.add(user2);
+        final String keeperAddCommandText = String.format("%s %s teams",
+                SlackParsedCommand.wrapSlackUserInFullPattern(user1.getSlackUser()),
+                SlackParsedCommand.wrapSlackUserInFullPattern(user2.getSlackUser()));
+        KeeperRequest keeperRequest1 = new KeeperRequest(userFrom.getUuid(), user1.getUuid(), "teams");
+        KeeperRequest keeperRequest2 = new KeeperRequest(userFrom.getUuid(), user2.getUuid(), "teams");
+        when(keeperRepository.addKeeper(keeperRequest1)).thenReturn(new String[]{"100"});
+        when(keeperRepository.addKeeper(keeperRequest2)).thenThrow(new ResourceAccessException("timeout"));
+        when(slackUserHandlerService.createSlackParsedCommand(userFrom.getSlackUser(), keeperAddCommandText))
+                .thenReturn(new SlackParsedCommand(userFrom, keeperAddCommandText, usersInText));
+        String expected = String.format("Thanks, we added a new Keeper: %s in direction: teams\n" +
+                        "ERROR. Keeper: %s in direction: teams was not added. Some service unavailable",
+                SlackParsedCommand.wrapSlackUserInFullPattern(user1.getSlackUser()),
+                SlackParsedCommand.wrapSlackUserInFullPattern(user2.getSlackUser()));
+
+        //when
+        String actual = keeperService.sendKeeperAddRequest(userFrom.getSlackUser(), keeperAddCommandText, RESPONSE_URL);
+
+        //then
+        assertEquals(expected, actual);
+        verify(keeperRepository).addKeeper(keeperRequest1);
+        verify(keeperRepository).addKeeper(keeperRequest2);
+    }
+
+    @Test
+    public void keeperDeactivateWithSeveralDirectionsShouldReturnResultForEachDirection() {
+        //given
+        usersInText.add(user1);
+        final String keeperDeactivateCommandText = String.format("%s teams else",
+                SlackParsedCommand.wrapSlackUserInFullPattern(user1.getSlackUser()));
+        KeeperRequest keeperRequest1 = new KeeperRequest(userFrom.getUuid(), user1.getUuid(), "teams");
+        KeeperRequest keeperRequest2 = new KeeperRequest(userFrom.getUuid(), user1.getUuid(), "else");
+        when(keeperRepository.deactivateKeeper(keeperRequest1)).thenReturn(new String[]{"100"});
+        when(keeperRepository.deactivateKeeper(keeperRequest2)).thenReturn(new String[]{});
+        when(slackUserHandlerService.createSlackParsedCommand(userFrom.getSlackUser(), keeperDeactivateCommandText))
+                .thenReturn(new SlackParsedCommand(userFrom, keeperDeactivateCommandText, usersInText));
+        String expected = String.format("Keeper: %s in direction: teams deactivated\n" +
+                        "ERROR. Keeper: %s in direction: else was not deactivated. Something went wrong",
+                SlackParsedCommand.wrapSlackUserInFullPattern(user1.getSlackUser()),
+                SlackParsedCommand.wrapSlackUserInFullPattern(user1.getSlackUser()));
+
+        //when
+        String actual = keeperService.sendKeeperDeactivateRequest(userFrom.getSlackUser(), keeperDeactivateCommandText, RESPONSE_URL);
+
+        //then
+        assertEquals(expected, actual);
+        verify(keeperRepository).deactivateKeeper(keeperRequest1);
+        verify(keeperRepository).deactivateKeeper(keeperRequest2);
+    }
+
+    @Test
+    public void keeperAddWithSeveralSlackUsersAndSeveralDirectionsShouldThrowException() {
+        //given
+        usersInText.add(user1);
+        usersInText.add(user2);
+        final String keeperAddCommandText = String.format("%s %s teams else",
+                SlackParsedCommand.wrapSlackUserInFullPattern(user1.getSlackUser()),
+                SlackParsedCommand.wrapSlackUserInFullPattern(user2.getSlackUser()));
+        when(slackUserHandlerService.createSlackParsedCommand(userFrom.getSlackUser(), keeperAddCommandText))
+                .thenReturn(new SlackParsedCommand(userFrom, keeperAddCommandText, usersInText));
+
+        thrown.expect(WrongCommandFormatException.class);
+        thrown.expectMessage(containsString("We found several slack users and several directions"));
+
+        //when
+        keeperService.sendKeeperAddRequest(userFrom.getSlackUser(), keeperAddCommandText, RESPONSE_URL);
+    }
+
     @Test
     public void shouldDeactivateKeeperAndReturnValidText() {
         //given
@@ -132,7 +209,7 @@ public class DefaultKeeperServiceTest {
                 SlackParsedCommand.wrapSlackUserInFullPattern(user1.getSlackUser()));
 
         //when
-        String actual = keeperService.sendKeeperDeactivateRequest(userFrom.getSlackUser(), keeperDeactivateCommandText);
+        String actual = keeperService.sendKeeperDeactivateRequest(userFrom.getSlackUser(), keeperDeactivateCommandText, RESPONSE_URL);
 
         //then
         assertEquals(expected, actual);
@@ -153,7 +230,7 @@ public class DefaultKeeperServiceTest {
                 .thenReturn(new SlackParsedCommand(userFrom, keeperDeactivateCommandText, usersInText));
 
         //when
-        String actual = keeperService.sendKeeperDeactivateRequest(userFrom.getSlackUser(), keeperDeactivateCommandText);
+        String actual = keeperService.sendKeeperDeactivateRequest(userFrom.getSlackUser(), keeperDeactivateCommandText, RESPONSE_URL);
 
         //then
         assertEquals("ERROR. Something went wrong. Keeper was not deactivated :(", actual);
@@ -182,6 +259,88 @@ public class DefaultKeeperServiceTest {
         verify(slackUserHandlerService).createSlackParsedCommand(userFrom.getSlackUser(), getKeeperDirectionsCommandText);
     }
 
+    @Test
+    public void getSeveralKeepersDirectionsShouldReturnCombinedText() {
+        //Given
+        usersInText.add(user1);
+        usersInText.add(user2);
+        final String getKeeperDirectionsCommandText = String.format("%s %s",
+                SlackParsedCommand.wrapSlackUserInFullPattern(user1.getSlackUser()),
+                SlackParsedCommand.wrapSlackUserInFullPattern(user2.getSlackUser()));
+        KeeperRequest keeperRequest1 = new KeeperRequest(userFrom.getUuid(), user1.getUuid(), "");
+        KeeperRequest keeperRequest2 = new KeeperRequest(userFrom.getUuid(), user2.getUuid(), "");
+        when(keeperRepository.getKeeperDirections(keeperRequest1)).thenReturn(new String[]{"direction1"});
+        when(keeperRepository.getKeeperDirections(keeperRequest2)).thenReturn(new String[]{});
+        when(slackUserHandlerService.createSlackParsedCommand(userFrom.getSlackUser(), getKeeperDirectionsCommandText))
+                .thenReturn(new SlackParsedCommand(userFrom, getKeeperDirectionsCommandText, usersInText));
+        String expected = String.format("The keeper %s has active directions: [direction1]\n" +
+                        "The keeper %s has no active directions.",
+                SlackParsedCommand.wrapSlackUserInFullPattern(user1.getSlackUser()),
+                SlackParsedCommand.wrapSlackUserInFullPattern(user2.getSlackUser()));
+
+        //When
+        String actual = keeperService.getKeeperDirections(userFrom.getSlackUser(), getKeeperDirectionsCommandText);
+
+        //Then
+        assertEquals(expected, actual);
+        verify(keeperRepository).getKeeperDirections(keeperRequest1);
+        verify(keeperRepository).getKeeperDirections(keeperRequest2);
+        verify(slackUserHandlerService).createSlackParsedCommand(userFrom.getSlackUser(), getKeeperDirectionsCommandText);
+    }
+
+    @Test
+    public void keeperAddRejectedByConcurrencyLimitShouldReturnBusyReason() {
+        //given
+        usersInText.add(user1);
+        usersInText.add(user2);
+        final String keeperAddCommandText = String.format("%s %s teams",
+                SlackParsedCommand.wrapSlackUserInFullPattern(user1.getSlackUser()),
+                SlackParsedCommand.wrapSlackUserInFullPattern(user2.getSlackUser()));
+        KeeperRequest keeperRequest1 = new KeeperRequest(userFrom.getUuid(), user1.getUuid(), "teams");
+        KeeperRequest keeperRequest2 = new KeeperRequest(userFrom.getUuid(), user2.getUuid(), "teams");
+        when(keeperRepository.addKeeper(keeperRequest1)).thenReturn(new String[]{"100"});
+        when(keeperRepository.addKeeper(keeperRequest2)).thenThrow(new LimitExceededException("limit"));
+        when(slackUserHandlerService.createSlackParsedCommand(userFrom.getSlackUser(), keeperAddCommandText))
+                .thenReturn(new SlackParsedCommand(userFrom, keeperAddCommandText, usersInText));
+        String expected = String.format("Thanks, we added a new Keeper: %s in direction: teams\n" +
+                        "ERROR. Keeper: %s in direction: teams was not added. " +
+                        "The bot is busy now, please repeat the command in a minute.",
+                SlackParsedCommand.wrapSlackUserInFullPattern(user1.getSlackUser()),
+                SlackParsedCommand.wrapSlackUserInFullPattern(user2.getSlackUser()));
+
+        //when
+        String actual = keeperService.sendKeeperAddRequest(userFrom.getSlackUser(), keeperAddCommandText, RESPONSE_URL);
+
+        //then
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void getSeveralKeepersDirectionsWhenOneRequestFailsShouldReturnFailureForThisKeeper() {
+        //Given
+        usersInText.add(user1);
+        usersInText.add(user2);
+        final String getKeeperDirectionsCommandText = String.format("%s %s",
+                SlackParsedCommand.wrapSlackUserInFullPattern(user1.getSlackUser()),
+                SlackParsedCommand.wrapSlackUserInFullPattern(user2.getSlackUser()));
+        KeeperRequest keeperRequest1 = new KeeperRequest(userFrom.getUuid(), user1.getUuid(), "");
+        KeeperRequest keeperRequest2 = new KeeperRequest(userFrom.getUuid(), user2.getUuid(), "");
+        when(keeperRepository.getKeeperDirections(keeperRequest1)).thenReturn(new String[]{"direction1"});
+        when(keeperRepository.getKeeperDirections(keeperRequest2)).thenThrow(new ResourceAccessException("timeout"));
+        when(slackUserHandlerService.createSlackParsedCommand(userFrom.getSlackUser(), getKeeperDirectionsCommandText))
+                .thenReturn(new SlackParsedCommand(userFrom, getKeeperDirectionsCommandText, usersInText));
+        String expected = String.format("The keeper %s has active directions: [direction1]\n" +
+                        "I cannot get directions of the keeper %s: Some service unavailable",
+                SlackParsedCommand.wrapSlackUserInFullPattern(user1.getSlackUser()),
+                SlackParsedCommand.wrapSlackUserInFullPattern(user2.getSlackUser()));
+
+        //When
+        String actual = keeperService.getKeeperDirections(userFrom.getSlackUser(), getKeeperDirectionsCommandText);
+
+        //Then
+        assertEquals(expected, actual);
+    }
+
     @Test
     public void getKeeperDirectionsWhenFromUserInTextShouldThrowException() {
         //Given
@@ -268,4 +427,59 @@ public class DefaultKeeperServiceTest {
         verify(keeperRepository).getKeeperDirections(keeperRequest);
         verify(slackUserHandlerService).createSlackParsedCommand(userFrom.getSlackUser(), "");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getDirectionKeepersShouldReturnKeepersAddedByBot() {
+        //given
+        usersInText.add(user2);
+        final String keeperAddCommandText = String.format("%s qa",
+                SlackParsedCommand.wrapSlackUserInFullPattern(user2.getSlackUser()));
+        KeeperRequest keeperRequest = new KeeperRequest(userFrom.getUuid(), user2.getUuid(), "qa");
+        when(keeperRepository.addKeeper(keeperRequest)).thenReturn(new String[]{"100"});
+        when(slackUserHandlerService.createSlackParsedCommand(userFrom.getSlackUser(), keeperAddCommandText))
+                .thenReturn(new SlackParsedCommand(userFrom, keeperAddCommandText, usersInText));
+        keeperService.sendKeeperAddRequest(userFrom.getSlackUser(), keeperAddCommandText, RESPONSE_URL);
+        String expected = String.format("The direction qa has active keepers: [%s]",
+                SlackParsedCommand.wrapSlackUserInFullPattern(user2.getSlackUser()));
+
+        //when
+        String actual = keeperService.getDirectionKeepers(userFrom.getSlackUser(), "qa");
+
+        //then
+        assertEquals(expected, actual);
+        verify(slackUserHandlerService).createSlackParsedCommand(userFrom.getSlackUser(), keeperAddCommandText);
+        verifyNoMoreInteractions(slackUserHandlerService);
+    }
+
+    @Test
+    public void getDirectionKeepersWithUnknownDirectionShouldReturnEmptyResult() {
+        //when
+        String actual = keeperService.getDirectionKeepers(userFrom.getSlackUser(), "unknown");
+
+        //then
+        assertEquals("The direction unknown has no known active keepers.", actual);
+    }
+
+    @Test
+    public void getDirectionKeepersWithSeveralDirectionsShouldReturnCommonKeepers() {
+        //given
+        usersInText.add(user2);
+        final String keeperAddCommandText = String.format("%s docs review",
+                SlackParsedCommand.wrapSlackUserInFullPattern(user2.getSlackUser()));
+        when(keeperRepository.addKeeper(new KeeperRequest(userFrom.getUuid(), user2.getUuid(), "docs")))
+                .thenReturn(new String[]{"100"});
+        when(keeperRepository.addKeeper(new KeeperRequest(userFrom.getUuid(), user2.getUuid(), "review")))
+                .thenReturn(new String[]{"101"});
+        when(slackUserHandlerService.createSlackParsedCommand(userFrom.getSlackUser(), keeperAddCommandText))
+                .thenReturn(new SlackParsedCommand(userFrom, keeperAddCommandText, usersInText));
+        keeperService.sendKeeperAddRequest(userFrom.getSlackUser(), keeperAddCommandText, RESPONSE_URL);
+        String expected = String.format("The directions [docs, review] have common active keepers: [%s]",
+                SlackParsedCommand.wrapSlackUserInFullPattern(user2.getSlackUser()));
+
+        //when
+        String actual = keeperService.getDirectionKeepers(userFrom.getSlackUser(), "docs Review");
+
+        //then
+        assertEquals(expected, actual);
+    }
+}
@@ -2,19 +2,36 @@ package ua.com.juja.microservices.keepers.slackbot.service.impl;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+import ua.com.juja.microservices.keepers.slackbot.cache.MapUserDirectory;
+import ua.com.juja.microservices.keepers.slackbot.cache.UnknownSlackUsersCache;
+import ua.com.juja.microservices.keepers.slackbot.cache.UserDirectory;
+import ua.com.juja.microservices.keepers.slackbot.cache.UserDirectoryLoader;
 import ua.com.juja.microservices.keepers.slackbot.dao.UserRepository;
 import ua.com.juja.microservices.keepers.slackbot.model.dto.UserDTO;
 import ua.com.juja.microservices.keepers.slackbot.service.UserService;
 
 import javax.inject.Inject;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
@@ -32,6 +49,9 @@ public class DefaultUserServiceTest {
     @MockBean
     private UserRepository userRepository;
 
+    @Captor
+    private ArgumentCaptor<Map<String, UserDTO>> usersCaptor;
+
     @Test
     public void returnUsersListBySlackUsers() throws Exception {
         //given
@@ -48,4 +68,102 @@ public class DefaultUserServiceTest {
         verify(userRepository).findUsersBySlackUsers(slackUsersRequest);
         verifyNoMoreInteractions(userRepository);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void collectUsersBySlackUsersShouldPassMapToRepository() throws Exception {
+        //given
+        List<String> slackUsersRequest = Arrays.asList("slack1", "slack2");
+        Map<String, UserDTO> users = new LinkedHashMap<>();
+
+        //when
+        userService.collectUsersBySlackUsers(slackUsersRequest, users);
+
+        //then
+        verify(userRepository).collectUsersBySlackUsers(slackUsersRequest, users);
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    public void collectUsersBySlackUsersShouldRequestOnlyUsersMissingInDirectory() throws Exception {
+        //given
+        UserDirectory userDirectory = new MapUserDirectory();
+        userDirectory.put(new UserDTO("uuid1", "slack1"));
+        DefaultUserService service = new DefaultUserService(userRepository, userDirectory,
+                new UnknownSlackUsersCache(), new UserDirectoryLoader(userRepository, userDirectory));
+        ReflectionTestUtils.setField(service, "directoryEnabled", true);
+        doAnswer(invocation -> {
+            usersCaptor.getValue().put("slack2", new UserDTO("uuid2", "slack2"));
+            return null;
+        }).when(userRepository).collectUsersBySlackUsers(eq(Arrays.asList("slack2", "slack3")), usersCaptor.capture());
+        Map<String, UserDTO> users = new LinkedHashMap<>();
+
+        //when
+        service.collectUsersBySlackUsers(Arrays.asList("slack2", "slack1", "slack3"), users);
+
+        //then
+        assertEquals("{slack2=UserDTO(uuid=uuid2, slackUser=slack2), slack1=UserDTO(uuid=uuid1, slackUser=slack1)}",
+                users.toString());
+        assertEquals(new UserDTO("uuid2", "slack2"), userDirectory.find("slack2"));
+        verify(userRepository).collectUsersBySlackUsers(eq(Arrays.asList("slack2", "slack3")),
+                anyMapOf(String.class, UserDTO.class));
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    public void collectUsersBySlackUsersShouldNotRequestUnknownSlackUsersAgain() throws Exception {
+        //given
+        UnknownSlackUsersCache unknownSlackUsersCache = new UnknownSlackUsersCache();
+        ReflectionTestUtils.setField(unknownSlackUsersCache, "ttl", 60000L);
+        ReflectionTestUtils.setField(unknownSlackUsersCache, "maxSize", 100);
+        UserDirectory userDirectory = new MapUserDirectory();
+        DefaultUserService service = new DefaultUserService(userRepository, userDirectory,
+                unknownSlackUsersCache, new UserDirectoryLoader(userRepository, userDirectory));
+        doAnswer(invocation -> {
+            usersCaptor.getValue().put("slack1", new UserDTO("uuid1", "slack1"));
+            return null;
+        }).when(userRepository).collectUsersBySlackUsers(anyListOf(String.class), usersCaptor.capture());
+
+        //when
+        service.collectUsersBySlackUsers(Arrays.asList("slack1", "unknown"), new LinkedHashMap<>());
+        Map<String, UserDTO> users = new LinkedHashMap<>();
+        service.collectUsersBySlackUsers(Arrays.asList("slack1", "unknown"), users);
+        service.collectUsersBySlackUsers(Collections.singletonList("unknown"), new LinkedHashMap<>());
+
+        //then
+        assertEquals("{slack1=UserDTO(uuid=uuid1, slackUser=slack1)}", users.toString());
+        assertEquals(Collections.singletonList("unknown"), unknownSlackUsersCache.unknownSlackUsers());
+        verify(userRepository).collectUsersBySlackUsers(eq(Arrays.asList("slack1", "unknown")),
+                anyMapOf(String.class, UserDTO.class));
+        verify(userRepository).collectUsersBySlackUsers(eq(Collections.singletonList("slack1")),
+                anyMapOf(String.class, UserDTO.class));
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    public void restoredUsersShouldBeServedOnlyWhenUsersServiceIsUnavailableWithinStaleIfError() throws Exception {
+        //given
+        UserDirectory userDirectory = new MapUserDirectory();
+        UserDirectoryLoader userDirectoryLoader = new UserDirectoryLoader(userRepository, userDirectory);
+        ReflectionTestUtils.setField(userDirectoryLoader, "enabled", true);
+        ReflectionTestUtils.setField(userDirectoryLoader, "staleIfError", 60000L);
+        userDirectoryLoader.restoreStale(Collections.singletonList(new UserDTO("uuid1", "slack1")),
+                System.currentTimeMillis());
+        UnknownSlackUsersCache unknownSlackUsersCache = new UnknownSlackUsersCache();
+        DefaultUserService service = new DefaultUserService(userRepository, userDirectory, unknownSlackUsersCache,
+                userDirectoryLoader);
+        ReflectionTestUtils.setField(service, "directoryEnabled", true);
+        doThrow(new ResourceAccessException("Connection refused")).when(userRepository)
+                .collectUsersBySlackUsers(anyListOf(String.class), anyMapOf(String.class, UserDTO.class));
+        Map<String, UserDTO> users = new LinkedHashMap<>();
+
+        //when
+        service.collectUsersBySlackUsers(Collections.singletonList("slack1"), users);
+
+        //then
+        assertEquals("{slack1=UserDTO(uuid=uuid1, slackUser=slack1)}", users.toString());
+        assertTrue(userDirectoryLoader.isStale("slack1"));
+        verify(userRepository).collectUsersBySlackUsers(eq(Collections.singletonList("slack1")),
+                anyMapOf(String.class, UserDTO.class));
+        verifyNoMoreInteractions(userRepository);
+    }
+}
@@ -3,6 +3,8 @@ package ua.com.juja.microservices.keepers.slackbot.service.impl;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.context.junit4.SpringRunner;
@@ -14,9 +16,11 @@ import javax.inject.Inject;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
-import static org.mockito.Mockito.when;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
 
 /**
  * @author Nikolay Horushko
@@ -33,6 +37,9 @@ public class SlackUserHandlerServiceTest {
     @MockBean
     private UserService userService;
 
+    @Captor
+    private ArgumentCaptor<Map<String, UserDTO>> usersCaptor;
+
     private UserDTO userFrom;
     private UserDTO user1;
     private UserDTO user2;
@@ -50,7 +57,7 @@ public class SlackUserHandlerServiceTest {
         String text = String.format("text %s TexT text.", SlackParsedCommand.wrapSlackUserInFullPattern(user1.getSlackUser()));
         List<String> requestToUserService = Arrays.asList(user1.getSlackUser(), userFrom.getSlackUser());
         List<UserDTO> responseFromUserService = Arrays.asList(userFrom, user1);
-        when(userService.findUsersBySlackUsers(requestToUserService)).thenReturn(responseFromUserService);
+        mockUserServiceResponse(requestToUserService, responseFromUserService);
         SlackParsedCommand expected = new SlackParsedCommand(userFrom, text, Collections.singletonList(user1));
 
         //when
@@ -68,7 +75,7 @@ public class SlackUserHandlerServiceTest {
                 SlackParsedCommand.wrapSlackUserInFullPattern(user2.getSlackUser()) );
         List<String> requestToUserService = Arrays.asList(user1.getSlackUser(), user2.getSlackUser(), userFrom.getSlackUser());
         List<UserDTO> responseFromUserService = Arrays.asList(userFrom, user1, user2);
-        when(userService.findUsersBySlackUsers(requestToUserService)).thenReturn(responseFromUserService);
+        mockUserServiceResponse(requestToUserService, responseFromUserService);
         SlackParsedCommand expected = new SlackParsedCommand(userFrom, text, Arrays.asList(user1, user2));
 
         //when
@@ -84,7 +91,7 @@ public class SlackUserHandlerServiceTest {
         String text = "text without slack id TexT text.";
         List<String> requestToUserService = Collections.singletonList(userFrom.getSlackUser());
         List<UserDTO> responseFromUserService = Collections.singletonList(userFrom);
-        when(userService.findUsersBySlackUsers(requestToUserService)).thenReturn(responseFromUserService);
+        mockUserServiceResponse(requestToUserService, responseFromUserService);
         SlackParsedCommand expected = new SlackParsedCommand(userFrom, text, Collections.singletonList(userFrom));
 
         //when
@@ -93,4 +100,28 @@ public class SlackUserHandlerServiceTest {
         //then
         assertEquals(expected, actual);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getSlackParsedCommandShouldKeepFirstUserOnDuplicates() throws Exception {
+        //given
+        String text = String.format("text %s TexT text.", SlackParsedCommand.wrapSlackUserInFullPattern(user1.getSlackUser()));
+        List<String> requestToUserService = Arrays.asList(user1.getSlackUser(), userFrom.getSlackUser());
+        List<UserDTO> responseFromUserService = Arrays.asList(userFrom, user1, new UserDTO("uuid-other", "slack1"));
+        mockUserServiceResponse(requestToUserService, responseFromUserService);
+        SlackParsedCommand expected = new SlackParsedCommand(userFrom, text, Collections.singletonList(user1));
+
+        //when
+        SlackParsedCommand actual = slackUserHandlerService.createSlackParsedCommand(userFrom.getSlackUser(), text);
+
+        //then
+        assertEquals(expected, actual);
+    }
+
+    private void mockUserServiceResponse(List<String> request, List<UserDTO> response) {
+        doAnswer(invocation -> {
+            Map<String, UserDTO> users = usersCaptor.getValue();
+            response.forEach(user -> users.putIfAbsent(user.getSlackUser(), user));
+            return null;
+        }).when(userService).collectUsersBySlackUsers(eq(request), usersCaptor.capture());
+    }
+}
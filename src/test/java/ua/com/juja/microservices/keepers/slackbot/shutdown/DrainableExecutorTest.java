@@ -0,0 +1,189 @@
+package ua.com.juja.microservices.keepers.slackbot.shutdown;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DrainableExecutorTest {
+    private DrainableExecutor executor;
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void withoutPoolTaskShouldRunInCallerThread() {
+        //given
+        executor = new DrainableExecutor("test", 0, 0);
+        AtomicReference<Thread> thread = new AtomicReference<>();
+
+        //when
+        executor.execute("task", () -> thread.set(Thread.currentThread()));
+
+        //then
+        assertSame(Thread.currentThread(), thread.get());
+        assertEquals(0, executor.inFlight());
+    }
+
+    @Test
+    public void drainShouldWaitForAcceptedTasks() throws Exception {
+        //given
+        executor = new DrainableExecutor("test", 1, 10);
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean finished = new AtomicBoolean();
+        executor.execute("task", () -> {
+            started.countDown();
+            sleep(200);
+            finished.set(true);
+        });
+        started.await();
+
+        //when
+        List<String> abandoned = executor.drain(System.nanoTime() + TimeUnit.SECONDS.toNanos(5));
+
+        //then
+        assertEquals(Collections.emptyList(), abandoned);
+        assertTrue(finished.get());
+    }
+
+    @Test
+    public void drainShouldReportTasksNotFinishedByDeadline() throws Exception {
+        //given
+        executor = new DrainableExecutor("test", 1, 10);
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute("running", () -> {
+            started.countDown();
+            sleep(5000);
+        });
+        executor.execute("queued", () -> {
+        });
+        started.await();
+
+        //when
+        List<String> abandoned = executor.drain(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100));
+
+        //then
+        Collections.sort(abandoned);
+        assertEquals(Arrays.asList("queued", "running"), abandoned);
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void drainedExecutorShouldRejectNewTasks() throws Exception {
+        //given
+        executor = new DrainableExecutor("test", 0, 0);
+        executor.drain(System.nanoTime());
+
+        //when
+        executor.execute("task", () -> {
+        });
+    }
+
+    @Test
+    public void rejectedTaskShouldNotBeTracked() throws Exception {
+        //given
+        executor = new DrainableExecutor("test", 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute("running", () -> await(release));
+        executor.execute("queued", () -> {
+        });
+
+        //when
+        try {
+            executor.execute("rejected", () -> {
+            });
+        } catch (RejectedExecutionException ex) {
+            release.countDown();
+        }
+
+        //then
+        assertFalse(executor.drain(System.nanoTime() + TimeUnit.SECONDS.toNanos(5)).contains("rejected"));
+        assertEquals(0, executor.inFlight());
+    }
+
+    @Test
+    public void taskOverFullQueueShouldRunInCallerThreadWhenAllowed() {
+        //given
+        executor = new DrainableExecutor("test", 1, 1, 0, true);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute("running", () -> await(release));
+        executor.execute("queued", () -> {
+        });
+        AtomicReference<Thread> thread = new AtomicReference<>();
+
+        //when
+        executor.execute("overflow", () -> thread.set(Thread.currentThread()));
+
+        //then
+        release.countDown();
+        assertSame(Thread.currentThread(), thread.get());
+    }
+
+    @Test
+    public void highPriorityTaskShouldGoAheadOfQueuedNormalTasks() throws Exception {
+        //given
+        executor = new DrainableExecutor("test", 1, 10, 60000);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        executor.execute("running", () -> await(release));
+        executor.execute("read1", () -> order.add("read1"));
+        executor.execute("read2", () -> order.add("read2"));
+
+        //when
+        executor.execute("write", DrainableExecutor.Priority.HIGH, () -> order.add("write"));
+        release.countDown();
+        executor.drain(System.nanoTime() + TimeUnit.SECONDS.toNanos(5));
+
+        //then
+        assertEquals(Arrays.asList("write", "read1", "read2"), order);
+    }
+
+    @Test
+    public void normalTaskWaitingLongerThanAgingShouldNotBeOvertaken() throws Exception {
+        //given
+        executor = new DrainableExecutor("test", 1, 10, 50);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        executor.execute("running", () -> await(release));
+        executor.execute("read", () -> order.add("read"));
+        sleep(100);
+
+        //when
+        executor.execute("write", DrainableExecutor.Priority.HIGH, () -> order.add("write"));
+        release.countDown();
+        executor.drain(System.nanoTime() + TimeUnit.SECONDS.toNanos(5));
+
+        //then
+        assertEquals(Arrays.asList("read", "write"), order);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package ua.com.juja.microservices.keepers.slackbot.shutdown;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GracefulShutdownTest {
+    private DrainableExecutor slackCommandExecutor;
+    private DrainableExecutor slackDeliveryExecutor;
+    private GracefulShutdown gracefulShutdown;
+
+    @Before
+    public void setup() {
+        slackCommandExecutor = new DrainableExecutor("slack-command", 1, 10);
+        slackDeliveryExecutor = new DrainableExecutor("slack-delivery", 1, 10);
+        gracefulShutdown = new GracefulShutdown(slackCommandExecutor, slackDeliveryExecutor);
+        ReflectionTestUtils.setField(gracefulShutdown, "drainTimeout", 5000L);
+        gracefulShutdown.start();
+    }
+
+    @Test
+    public void stopShouldDeliverRepliesOfCommandsInFlight() throws Exception {
+        //given
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean delivered = new AtomicBoolean();
+        slackCommandExecutor.execute("command", () -> {
+            started.countDown();
+            sleep(200);
+            slackDeliveryExecutor.execute("reply", () -> {
+                sleep(100);
+                delivered.set(true);
+            });
+        });
+        started.await();
+
+        //when
+        gracefulShutdown.stop();
+
+        //then
+        assertTrue(delivered.get());
+        assertFalse(gracefulShutdown.isRunning());
+        assertFalse(slackCommandExecutor.isAccepting());
+        assertFalse(slackDeliveryExecutor.isAccepting());
+    }
+
+    @Test
+    public void stopShouldRunCallbackAfterDrain() {
+        //given
+        AtomicBoolean called = new AtomicBoolean();
+
+        //when
+        gracefulShutdown.stop(() -> called.set(!slackCommandExecutor.isAccepting()));
+
+        //then
+        assertTrue(called.get());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package ua.com.juja.microservices.keepers.slackbot.startup;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import ua.com.juja.microservices.keepers.slackbot.controller.KeepersSlackCommandController;
+
+import javax.inject.Inject;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("fast-startup")
+public class FastStartupProfileTest {
+
+    @Inject
+    private ConfigurableApplicationContext context;
+
+    @Test
+    public void shouldCreateCommandPathOnFirstUse() {
+        //then
+        assertTrue(context.getBeanFactory().getBeanDefinition("keepersSlackCommandController").isLazyInit());
+        assertNotNull(context.getBean(KeepersSlackCommandController.class));
+    }
+
+    @Test
+    public void shouldKeepScheduledBeansEager() {
+        //then
+        assertFalse(context.getBeanFactory().getBeanDefinition("keepersByDirectionIndex").isLazyInit());
+        assertTrue(context.getBeanFactory().containsSingleton("keepersByDirectionIndex"));
+    }
+
+    @Test
+    public void shouldTrimAutoConfiguration() {
+        //then
+        assertFalse(context.containsBean("mbeanExporter"));
+        assertFalse(context.containsBean("multipartResolver"));
+    }
+}
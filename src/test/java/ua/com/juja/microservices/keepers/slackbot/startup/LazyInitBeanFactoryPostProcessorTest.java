@@ -0,0 +1,95 @@
+package ua.com.juja.microservices.keepers.slackbot.startup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.AnnotatedGenericBeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LazyInitBeanFactoryPostProcessorTest {
+    private DefaultListableBeanFactory beanFactory;
+    private LazyInitBeanFactoryPostProcessor postProcessor;
+
+    @Before
+    public void setup() {
+        beanFactory = new DefaultListableBeanFactory();
+        postProcessor = new LazyInitBeanFactoryPostProcessor();
+        postProcessor.setEnvironment(new MockEnvironment().withProperty("keepers.startup.eagerBeans", "eager, other"));
+    }
+
+    @Test
+    public void shouldMakeApplicationBeanLazy() {
+        //given
+        register("plain", PlainBean.class);
+
+        //when
+        postProcessor.postProcessBeanFactory(beanFactory);
+
+        //then
+        assertTrue(beanFactory.getBeanDefinition("plain").isLazyInit());
+    }
+
+    @Test
+    public void shouldKeepListedBeanEager() {
+        //given
+        register("eager", PlainBean.class);
+
+        //when
+        postProcessor.postProcessBeanFactory(beanFactory);
+
+        //then
+        assertFalse(beanFactory.getBeanDefinition("eager").isLazyInit());
+    }
+
+    @Test
+    public void shouldKeepScheduledAndListeningBeansEager() {
+        //given
+        register("scheduled", ScheduledBean.class);
+        register("listening", ListeningBean.class);
+
+        //when
+        postProcessor.postProcessBeanFactory(beanFactory);
+
+        //then
+        assertFalse(beanFactory.getBeanDefinition("scheduled").isLazyInit());
+        assertFalse(beanFactory.getBeanDefinition("listening").isLazyInit());
+    }
+
+    @Test
+    public void shouldKeepFrameworkBeanEager() {
+        //given
+        register("list", ArrayList.class);
+
+        //when
+        postProcessor.postProcessBeanFactory(beanFactory);
+
+        //then
+        assertFalse(beanFactory.getBeanDefinition("list").isLazyInit());
+    }
+
+    private void register(String beanName, Class<?> beanClass) {
+        beanFactory.registerBeanDefinition(beanName, new AnnotatedGenericBeanDefinition(beanClass));
+    }
+
+    static class PlainBean {
+    }
+
+    static class ScheduledBean {
+        @Scheduled(fixedDelay = 1000)
+        public void refresh() {
+        }
+    }
+
+    static class ListeningBean {
+        @EventListener
+        public void onEvent(Object event) {
+        }
+    }
+}
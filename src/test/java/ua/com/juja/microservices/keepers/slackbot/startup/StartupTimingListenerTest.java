@@ -0,0 +1,64 @@
+package ua.com.juja.microservices.keepers.slackbot.startup;
+
+import org.junit.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.boot.context.event.ApplicationPreparedEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.event.ApplicationStartingEvent;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class StartupTimingListenerTest {
+    private static final String[] ARGS = new String[0];
+
+    @Test
+    public void shouldReportEveryPhaseWhenApplicationIsReady() {
+        //given
+        StartupTimingListener listener = new StartupTimingListener(System.currentTimeMillis() - 100);
+        SpringApplication application = new SpringApplication();
+        GenericApplicationContext context = new GenericApplicationContext();
+
+        //when
+        listener.onApplicationEvent(new ApplicationStartingEvent(application, ARGS));
+        listener.onApplicationEvent(new ApplicationEnvironmentPreparedEvent(application, ARGS, new MockEnvironment()));
+        listener.onApplicationEvent(new ApplicationPreparedEvent(application, ARGS, context));
+        context.refresh();
+        listener.onApplicationEvent(new ContextRefreshedEvent(context));
+        listener.onApplicationEvent(new ApplicationReadyEvent(application, ARGS, context));
+
+        //then
+        Map<String, Long> phases = listener.getPhases();
+        assertEquals(Arrays.asList("jvm", "environment", "context", "refresh", "runners", "total"),
+                Arrays.asList(phases.keySet().toArray()));
+        assertTrue(phases.get("jvm") >= 100);
+        assertEquals(phases.values().stream().mapToLong(Long::longValue).sum() - phases.get("total"),
+                (long) phases.get("total"));
+        assertEquals(6, listener.metrics().size());
+        assertSame(listener, context.getBean(StartupTimingListener.BEAN_NAME));
+    }
+
+    @Test
+    public void shouldIgnoreRefreshOfChildContext() {
+        //given
+        StartupTimingListener listener = new StartupTimingListener(System.currentTimeMillis());
+        SpringApplication application = new SpringApplication();
+        GenericApplicationContext context = new GenericApplicationContext();
+        GenericApplicationContext childContext = new GenericApplicationContext(context);
+        listener.onApplicationEvent(new ApplicationStartingEvent(application, ARGS));
+
+        //when
+        listener.onApplicationEvent(new ContextRefreshedEvent(childContext));
+
+        //then
+        assertEquals(1, listener.getPhases().size());
+    }
+}
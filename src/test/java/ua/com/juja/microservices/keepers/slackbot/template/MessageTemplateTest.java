@@ -0,0 +1,78 @@
+package ua.com.juja.microservices.keepers.slackbot.template;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+public class MessageTemplateTest {
+    @Rule
+    public ExpectedException thrown = ExpectedException.none();
+
+    @Test
+    public void renderShouldReplacePlaceholdersInAnyOrder() {
+        //given
+        MessageTemplate template = MessageTemplate.compile("{1} and {0}, again {1}");
+
+        //when
+        String actual = template.render("first", "second");
+
+        //then
+        assertEquals("second and first, again second", actual);
+        assertEquals(2, template.getArgumentCount());
+    }
+
+    @Test
+    public void renderShouldWriteArraysAndCollectionsAsLists() {
+        //given
+        MessageTemplate template = MessageTemplate.compile("Directions {0}, keepers {1}, none {2}");
+
+        //when
+        String actual = template.render(new String[]{"teams", "codenjoy"}, Arrays.asList("<@a>", "<@b>"),
+                Collections.emptyList());
+
+        //then
+        assertEquals("Directions [teams, codenjoy], keepers [<@a>, <@b>], none []", actual);
+    }
+
+    @Test
+    public void compileShouldKeepBracesThatAreNotPlaceholders() {
+        //given
+        MessageTemplate template = MessageTemplate.compile("{} {name} {0} {");
+
+        //when
+        String actual = template.render("value");
+
+        //then
+        assertEquals("{} {name} value {", actual);
+    }
+
+    @Test
+    public void renderWithoutRequiredArgumentsShouldThrowException() {
+        //given
+        MessageTemplate template = MessageTemplate.compile("Keeper {0} in {1}");
+
+        //then
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("requires 2 arguments, but got 1");
+
+        //when
+        template.render("keeper");
+    }
+
+    @Test
+    public void appendToShouldAppendRenderedTemplate() {
+        //given
+        StringBuilder builder = new StringBuilder("Result: ");
+
+        //when
+        MessageTemplate.compile("{0}!").appendTo(builder, "done");
+
+        //then
+        assertEquals("Result: done!", builder.toString());
+    }
+}
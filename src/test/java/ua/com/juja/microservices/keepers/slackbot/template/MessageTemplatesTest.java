@@ -0,0 +1,45 @@
+package ua.com.juja.microservices.keepers.slackbot.template;
+
+import org.junit.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.junit.Assert.assertEquals;
+
+public class MessageTemplatesTest {
+
+    @Test
+    public void renderShouldUseDefaultTemplate() {
+        //given
+        MessageTemplates messageTemplates = new MessageTemplates(new MockEnvironment());
+
+        //when
+        String actual = messageTemplates.render(Message.KEEPER_ADDED, "<@slack1>", "teams");
+
+        //then
+        assertEquals("Thanks, we added a new Keeper: <@slack1> in direction: teams", actual);
+    }
+
+    @Test
+    public void renderShouldUseTemplateFromProperties() {
+        //given
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("keepers.slackBot.messages.keeperAdded", "Added {0} as a keeper of {1}");
+        MessageTemplates messageTemplates = new MessageTemplates(environment);
+
+        //when
+        String actual = messageTemplates.render(Message.KEEPER_ADDED, "<@slack1>", "teams");
+
+        //then
+        assertEquals("Added <@slack1> as a keeper of teams", actual);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void templateFromPropertiesWithOtherArgumentsShouldFailAtStartup() {
+        //given
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("keepers.slackBot.messages.keeperAdded", "Added {0} as a keeper of {1} since {2}");
+
+        //when
+        new MessageTemplates(environment);
+    }
+}
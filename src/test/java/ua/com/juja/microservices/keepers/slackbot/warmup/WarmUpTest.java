@@ -0,0 +1,113 @@
+package ua.com.juja.microservices.keepers.slackbot.warmup;
+
+import me.ramswaroop.jbot.core.slack.models.RichMessage;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.MDC;
+import org.springframework.context.ApplicationContext;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.bind.annotation.RestController;
+import ua.com.juja.microservices.keepers.slackbot.json.JsonPayloads;
+import ua.com.juja.microservices.keepers.slackbot.template.MessageTemplates;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class WarmUpTest {
+    private ApplicationContext applicationContext;
+    private JsonPayloads jsonPayloads;
+    private WarmUp warmUp;
+
+    @Before
+    public void setup() {
+        jsonPayloads = spy(new JsonPayloads(false));
+        applicationContext = mock(ApplicationContext.class);
+        warmUp = new WarmUp(applicationContext, jsonPayloads, new MessageTemplates(new MockEnvironment()));
+        ReflectionTestUtils.setField(warmUp, "enabled", true);
+        ReflectionTestUtils.setField(warmUp, "iterations", 3);
+    }
+
+    @Test
+    public void disabledWarmUpShouldBeFinishedAtOnce() {
+        //given
+        ReflectionTestUtils.setField(warmUp, "enabled", false);
+
+        //when
+        warmUp.start();
+
+        //then
+        assertTrue(warmUp.isFinished());
+    }
+
+    @Test
+    public void enabledWarmUpShouldNotBeFinishedBeforeRun() {
+        //then
+        assertFalse(warmUp.isFinished());
+    }
+
+    @Test
+    public void runShouldReplyToEverySyntheticCommand() {
+        //when
+        warmUp.run();
+
+        //then
+        assertTrue(warmUp.isFinished());
+        verify(jsonPayloads, times(30)).writer(RichMessage.class);
+    }
+
+    @Test
+    public void runShouldLookUpControllersFirst() {
+        //when
+        warmUp.run();
+
+        //then
+        verify(applicationContext).getBeansWithAnnotation(RestController.class);
+    }
+
+    @Test
+    public void runShouldMarkOnlyWarmUpLogging() {
+        //given
+        Set<String> markers = Collections.synchronizedSet(new HashSet<>());
+        Set<String> threads = Collections.synchronizedSet(new HashSet<>());
+        doAnswer(invocation -> {
+            markers.add(MDC.get(WarmUp.LOG_KEY));
+            threads.add(Thread.currentThread().getName());
+            return invocation.callRealMethod();
+        }).when(jsonPayloads).writer(any(Class.class));
+
+        //when
+        warmUp.run();
+
+        //then
+        assertEquals(1, markers.size());
+        assertTrue(markers.contains("true"));
+        assertTrue(threads.contains("warm-up-worker"));
+        assertNull(MDC.get(WarmUp.LOG_KEY));
+    }
+
+    @Test
+    public void failedRunShouldStillFinish() {
+        //given
+        doThrow(new IllegalStateException()).when(jsonPayloads).writer(RichMessage.class);
+
+        //when
+        warmUp.run();
+
+        //then
+        assertTrue(warmUp.isFinished());
+    }
+}